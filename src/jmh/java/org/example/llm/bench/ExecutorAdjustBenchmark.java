@@ -0,0 +1,101 @@
+package org.example.llm.bench;
+
+import org.example.llm.core.InstrumentedThreadPoolExecutor;
+import org.example.llm.core.PidTuningAdvisor;
+import org.example.llm.core.ThreadPoolRegistry;
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 业务线程提交任务的吞吐：对比普通/计时线程池，以及后台是否同时在调用 ThreadPoolRegistry.adjust
+ * <p>
+ * 任务只消耗少量CPU；队列满时由提交线程执行（CallerRuns），吞吐中包含背压的影响。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ExecutorAdjustBenchmark {
+    private static final String POOL = "benchPool";
+    private static final long ADJUST_INTERVAL_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    @Param({"plain", "instrumented"})
+    public String executorType;
+
+    @Param({"false", "true"})
+    public boolean adjusting;
+
+    private ThreadPoolExecutor executor;
+    private ThreadPoolRegistry registry;
+    private Thread adjuster;
+    private volatile boolean running;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ResizableBlockingQueue<Runnable> queue = new ResizableBlockingQueue<>(1024);
+        executor = "plain".equals(executorType)
+                ? new ThreadPoolExecutor(8, 32, 60, TimeUnit.SECONDS, queue,
+                        Executors.defaultThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy())
+                : new InstrumentedThreadPoolExecutor(8, 32, 60, TimeUnit.SECONDS, queue,
+                        Executors.defaultThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+        registry = new ThreadPoolRegistry(List.of(new PidTuningAdvisor()));
+        registry.register(POOL, executor, 4, 32, 128, 1024, PidTuningAdvisor.NAME);
+
+        running = true;
+        if (adjusting) {
+            // 模拟调优器：在小/大配置之间来回调整核心数、最大线程数和队列容量
+            adjuster = new Thread(() -> {
+                boolean grow = true;
+                while (running) {
+                    if (grow) {
+                        registry.adjust(POOL, 24, 32, 1024);
+                    } else {
+                        registry.adjust(POOL, 4, 8, 128);
+                    }
+                    grow = !grow;
+                    LockSupport.parkNanos(ADJUST_INTERVAL_NANOS);
+                }
+            }, "bench-adjuster");
+            adjuster.setDaemon(true);
+            adjuster.start();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        if (adjuster != null) {
+            adjuster.join();
+        }
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public void execute() {
+        executor.execute(() -> Blackhole.consumeCPU(64));
+    }
+}
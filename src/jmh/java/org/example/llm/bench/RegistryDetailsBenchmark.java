@@ -0,0 +1,85 @@
+package org.example.llm.bench;
+
+import org.example.llm.core.PidTuningAdvisor;
+import org.example.llm.core.ThreadPoolRegistry;
+import org.example.llm.core.ThreadPoolSampler;
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.example.llm.entity.ThreadPoolDetail;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 线程池数量从10到1000时，读取全部明细（REST/指标/落盘的路径）和一次采样的开销
+ * <p>
+ * 每个线程池保持一个阻塞中的活跃任务，使 getPoolSize() 等读取真实的工作线程状态。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RegistryDetailsBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int pools;
+
+    private ThreadPoolRegistry registry;
+    private ThreadPoolSampler sampler;
+    private final List<ThreadPoolExecutor> executors = new ArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new ThreadPoolRegistry(List.of(new PidTuningAdvisor()));
+        sampler = new ThreadPoolSampler(registry);
+        for (int i = 0; i < pools; i++) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 2, 60, TimeUnit.SECONDS,
+                    new ResizableBlockingQueue<>(64), Executors.defaultThreadFactory());
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            executors.add(executor);
+            registry.register("pool-" + i, executor, 1, 4, 16, 64, PidTuningAdvisor.NAME);
+        }
+        sampler.sampleAll();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        release.countDown();
+        executors.forEach(ThreadPoolExecutor::shutdownNow);
+    }
+
+    @Benchmark
+    public List<ThreadPoolDetail> getAllPoolDetails() {
+        return registry.getAllPoolDetails();
+    }
+
+    @Benchmark
+    public void sampleAll() {
+        sampler.sampleAll();
+    }
+}
@@ -0,0 +1,81 @@
+package org.example.llm.bench;
+
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.example.llm.entity.ResizableLinkedBlockingQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 新旧可调整队列在多生产者争用下的 offer/poll 吞吐对比
+ * <p>
+ * 默认 8 个生产者 + 4 个消费者；直接运行 main 会依次跑 8/16/32/64 个生产者，
+ * 也可通过 JMH 参数 -tg 16,4 指定线程组。
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ResizableQueueBenchmark {
+    private static final Integer ITEM = 1;
+
+    @Param({"linked", "resizable"})
+    public String impl;
+
+    @Param({"1024"})
+    public int capacity;
+
+    private BlockingQueue<Integer> queue;
+
+    @SuppressWarnings("deprecation")
+    @Setup(Level.Iteration)
+    public void setUp() {
+        queue = "linked".equals(impl)
+                ? new ResizableLinkedBlockingQueue<>(capacity)
+                : new ResizableBlockingQueue<>(capacity);
+    }
+
+    @Benchmark
+    @Group("offerPoll")
+    @GroupThreads(8)
+    public boolean offer() {
+        return queue.offer(ITEM);
+    }
+
+    @Benchmark
+    @Group("offerPoll")
+    @GroupThreads(4)
+    public Integer poll() {
+        return queue.poll();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int producers : new int[]{8, 16, 32, 64}) {
+            Options options = new OptionsBuilder()
+                    .include(ResizableQueueBenchmark.class.getSimpleName())
+                    .threadGroups(producers, 4)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
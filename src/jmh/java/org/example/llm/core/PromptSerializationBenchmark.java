@@ -0,0 +1,138 @@
+package org.example.llm.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.ThreadPoolDetail;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 调优链路的本地开销：提示词序列化、请求体构建、响应解析，以及采样环形文件的写入/读取
+ * <p>
+ * 原 DeepseekClient.parseDataFile 已由内存历史和环形文件取代，这里测量取代它的路径。
+ * 放在 core 包内以访问包级可见的 PromptDataWriter 和 SampleRingBuffer。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromptSerializationBenchmark {
+    private static final String RESPONSE = "{\"choices\":[{\"message\":{\"content\":"
+            + "\"{\\\"core\\\":12,\\\"max\\\":24,\\\"queue\\\":300}\"}}],"
+            + "\"usage\":{\"prompt_tokens\":4000,\"completion_tokens\":20}}";
+
+    private PoolSampleHistory.Window window;
+    private Map<String, PoolSampleHistory.Window> batch;
+    private DeepseekClient client;
+    private Path ringDir;
+    private SampleRingBuffer ring;
+    private ThreadPoolDetail detail;
+    private long timestamp;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        PoolSampleHistory history = new PoolSampleHistory(ThreadPoolRegistry.HISTORY_SIZE);
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < ThreadPoolRegistry.HISTORY_SIZE; i++) {
+            history.add(start + i * 5_000L, detail(i));
+        }
+        window = history.snapshot(ThreadPoolRegistry.HISTORY_SIZE);
+        batch = new LinkedHashMap<>();
+        for (int p = 0; p < 20; p++) {
+            batch.put("pool-" + p, window);
+        }
+        client = new DeepseekClient(Runnable::run, new LlmHttpTransport(), null);
+
+        ringDir = Files.createTempDirectory("bench-ring");
+        ring = new SampleRingBuffer(ringDir.resolve("benchDetail.ring"), 720);
+        detail = detail(7);
+        for (int i = 0; i < 720; i++) {
+            ring.append(start + i, detail);
+        }
+        timestamp = start;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        ring.close();
+        try (var files = Files.list(ringDir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+        Files.deleteIfExists(ringDir);
+    }
+
+    private static ThreadPoolDetail detail(int i) {
+        int active = 8 + i % 24;
+        return new ThreadPoolDetail("orderServicePool", 8, 32, 500, 16, 32, active, i * 3 % 500, 500,
+                i * 3 % 500 / 500.0, (32 - active) / 32.0, 1.5, 12.25, 20.0, 85.5);
+    }
+
+    @Benchmark
+    public String jsonRows() {
+        return PromptDataWriter.toJsonRows(window);
+    }
+
+    @Benchmark
+    public String batchJson() {
+        return PromptDataWriter.toBatchJson(batch);
+    }
+
+    @Benchmark
+    public String columnarRows() {
+        return PromptDataWriter.toPromptData(window, PromptDataWriter.Format.COLUMNAR, 12);
+    }
+
+    @Benchmark
+    public String summaryRows() {
+        return PromptDataWriter.toPromptData(window, PromptDataWriter.Format.SUMMARY, 12);
+    }
+
+    @Benchmark
+    public String columnarBatch() {
+        return PromptDataWriter.toBatchPromptData(batch, PromptDataWriter.Format.COLUMNAR, 12);
+    }
+
+    @Benchmark
+    public String singleRequestBody() throws JsonProcessingException {
+        return client.buildRequestBody("system", PromptDataWriter.toJsonRows(window));
+    }
+
+    @Benchmark
+    public String parseResponse() {
+        JsonNode root = client.readTree(RESPONSE);
+        return client.extractContent(root);
+    }
+
+    @Benchmark
+    public void ringAppend() {
+        ring.append(++timestamp, detail);
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> ringReadLast() {
+        return ring.readLast(60);
+    }
+}
@@ -2,16 +2,12 @@ package org.example.llm.config;
 
 import com.alibaba.nacos.api.config.annotation.NacosConfigurationProperties;
 import lombok.Data;
-import org.example.llm.core.DeepseekClient;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.client.RestTemplate;
 
-import java.util.concurrent.Executor;
-
 @Configuration
 public class TaskExecutionConfig {
 
@@ -26,12 +22,4 @@ public class TaskExecutionConfig {
         executor.initialize();
         return executor;
     }
-
-    // 注入DeepseekClient时提供Executor
-    @Bean
-    public DeepseekClient deepseekClient(
-            @Qualifier("tuningAsyncPool") Executor executor // 若DeepseekClient需要异步执行器
-    ) {
-        return new DeepseekClient(executor); // 若DeepseekClient构造函数需要Executor
-    }
-}
\ No newline at end of file
+}
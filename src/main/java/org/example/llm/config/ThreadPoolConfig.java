@@ -2,7 +2,10 @@ package org.example.llm.config;
 
 import io.micrometer.core.instrument.util.NamedThreadFactory;
 import org.example.llm.core.DyThreadPool;
-import org.example.llm.entity.ResizableLinkedBlockingQueue;
+import org.example.llm.core.InstrumentedRejectionHandler;
+import org.example.llm.core.InstrumentedThreadPoolExecutor;
+import org.example.llm.core.PidTuningAdvisor;
+import org.example.llm.entity.ResizableBlockingQueue;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -17,13 +20,15 @@ public class ThreadPoolConfig {
             poolName = "orderServicePool",
             minCore = 8,
             maxCore = 32,
-            maxQueueSize = 500
+            minQueueSize = 100,
+            maxQueueSize = 500,
+            rejection = InstrumentedRejectionHandler.Policy.SPILL // 突发时订单任务先进入溢出队列，不直接失败
     )
     @Bean
     public ThreadPoolExecutor orderThreadPool() {
-        return new ThreadPoolExecutor(
+        return new InstrumentedThreadPoolExecutor(
                 8, 32, 60L, TimeUnit.SECONDS,
-                new ResizableLinkedBlockingQueue<>(500), // 自定义可调整队列
+                new ResizableBlockingQueue<>(500), // 自定义可调整队列
                 new NamedThreadFactory("order-pool")
         );
     }
@@ -43,4 +48,22 @@ public class ThreadPoolConfig {
                 new NamedThreadFactory("payment-pool")
         );
     }
-}
\ No newline at end of file
+
+    // 调优调度的工作线程池：时间轮到期的调优任务在这里执行，由本地PID顾问调优（不经过LLM）
+    @DyThreadPool(
+            poolName = "tuningWorkerPool",
+            minCore = 2,
+            maxCore = 16,
+            minQueueSize = 100,
+            maxQueueSize = 2000,
+            advisor = PidTuningAdvisor.NAME
+    )
+    @Bean("tuningWorkerPool")
+    public ThreadPoolExecutor tuningWorkerPool() {
+        return new InstrumentedThreadPoolExecutor(
+                4, 16, 60L, TimeUnit.SECONDS,
+                new ResizableBlockingQueue<>(1000),
+                new NamedThreadFactory("tuning-worker")
+        );
+    }
+}
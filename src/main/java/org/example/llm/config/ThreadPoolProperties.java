@@ -0,0 +1,39 @@
+package org.example.llm.config;
+
+import lombok.Data;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 可热更新的线程池配置（threadpool.pools.&lt;线程池名&gt;.*），覆盖 @DyThreadPool 注解中的同名项
+ * <pre>
+ * threadpool:
+ *   pools:
+ *     orderServicePool:
+ *       max-core: 80
+ *       advisor: pid
+ *       outer-interval-ms: 30000
+ * </pre>
+ * 未配置的项使用注解值；删除配置后恢复注解值。由 {@link org.example.llm.core.PoolConfigRefresher} 在配置推送后整体校验并应用。
+ */
+@Data
+public class ThreadPoolProperties {
+    public static final String PREFIX = "threadpool";
+
+    private Map<String, Pool> pools = new LinkedHashMap<>();
+
+    @Data
+    public static class Pool {
+        private Integer minCore;
+        private Integer maxCore;
+        private Integer minQueueSize;
+        private Integer maxQueueSize;
+        /** 调优顾问名称 */
+        private String advisor;
+        /** 快速环周期（毫秒） */
+        private Long innerIntervalMs;
+        /** 慢速环（LLM规划）周期（毫秒），批量模式下使用全局周期 */
+        private Long outerIntervalMs;
+    }
+}
@@ -2,14 +2,23 @@ package org.example.llm.controller;
 
 import com.alibaba.nacos.shaded.com.google.common.util.concurrent.RateLimiter;
 import io.micrometer.core.instrument.MeterRegistry;
+import org.example.llm.core.AdmissionController;
+import org.example.llm.core.ClusterCoordinator;
 import org.example.llm.core.ThreadPoolRegistry;
 import org.example.llm.core.ThreadPoolTuningScheduler;
+import org.example.llm.core.WorkloadReplayer;
+import org.example.llm.core.WorkloadTraces;
+import org.example.llm.entity.PoolSampleHistory;
 import org.example.llm.entity.R;
+import org.example.llm.entity.ReplayReport;
 import org.example.llm.entity.ThreadPoolDetail;
+import org.example.llm.entity.WorkloadTrace;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.io.IOException;
 import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.RejectedExecutionException;
@@ -24,11 +33,17 @@ public class ThreadPoolController {
     private final ThreadPoolRegistry registry;
     private final MeterRegistry meterRegistry;
     private final ThreadPoolTuningScheduler tuningScheduler;
+    private final WorkloadReplayer replayer;
+    private final ClusterCoordinator cluster;
 
-    public ThreadPoolController(ThreadPoolRegistry registry, MeterRegistry meterRegistry, ThreadPoolTuningScheduler tuningScheduler) {
+    public ThreadPoolController(ThreadPoolRegistry registry, MeterRegistry meterRegistry,
+                                ThreadPoolTuningScheduler tuningScheduler, WorkloadReplayer replayer,
+                                ClusterCoordinator cluster) {
         this.registry = registry;
         this.meterRegistry = meterRegistry;
         this.tuningScheduler = tuningScheduler;
+        this.replayer = replayer;
+        this.cluster = cluster;
     }
 
     @GetMapping("/status")
@@ -46,7 +61,8 @@ public class ThreadPoolController {
                                     "coreSize", d.getCurrentCore(),
                                     "maxSize", d.getCurrentMax(),
                                     "activeThreads", d.getActiveThreads(),
-                                    "queueSize", d.getQueueSize()
+                                    "queueSize", d.getQueueSize(),
+                                    "queueCapacity", d.getQueueCapacity()
                             ));
                         }}
                 ));
@@ -57,7 +73,7 @@ public class ThreadPoolController {
             @RequestParam String poolName
     ) {
         tuningScheduler.startAutoTuning(poolName);
-        return R.success("定时调优已启动，每5秒执行一次");
+        return R.success("定时调优已启动，顾问: " + registry.getAdvisor(poolName).name());
     }
 
     // 停止定时调优
@@ -80,6 +96,78 @@ public class ThreadPoolController {
     }
 
 
+    // 获取线程池最近的采样历史（按列返回）
+    @GetMapping("/history/{poolName}")
+    public R<PoolSampleHistory.Window> getPoolHistory(
+            @PathVariable String poolName,
+            @RequestParam(defaultValue = "60") int limit
+    ) {
+        return R.success(registry.getHistory(poolName, limit));
+    }
+
+    // 查看可用顾问、线程池当前使用的顾问及快速环护栏
+    @GetMapping("/advisor/{poolName}")
+    public R<?> getAdvisor(@PathVariable String poolName) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("pool", poolName);
+        result.put("advisor", registry.getAdvisor(poolName).name());
+        result.put("available", registry.getAdvisorNames());
+        result.put("band", tuningScheduler.getBand(poolName));
+        return R.success(result);
+    }
+
+    // 全局线程预算：总预算及各线程池的权重、SLO和分配上限
+    @GetMapping("/budget")
+    public R<?> getBudget() {
+        return R.success(registry.getBudgetStatus());
+    }
+
+    // 集群调优：模式、本实例标识、在线副本及各线程池是否由本实例规划
+    @GetMapping("/cluster")
+    public R<?> getCluster() {
+        return R.success(cluster.getStatus());
+    }
+
+    // 切换线程池的调优顾问（如 deepseek / ollama / pid）
+    @PostMapping("/advisor")
+    public R<?> setAdvisor(
+            @RequestParam String poolName,
+            @RequestParam String advisor
+    ) {
+        try {
+            registry.setAdvisor(poolName, advisor);
+            tuningScheduler.onAdvisorChanged(poolName);
+            return R.success(Map.of("pool", poolName, "advisor", advisor));
+        } catch (IllegalArgumentException e) {
+            return R.error(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    // 挂载/移除准入控制（none / aimd / vegas / gradient2）
+    @PostMapping("/admission")
+    public R<?> setAdmission(
+            @RequestParam String poolName,
+            @RequestParam String algorithm
+    ) {
+        try {
+            registry.setAdmission(poolName, AdmissionController.Algorithm.valueOf(algorithm.toUpperCase(Locale.ROOT)));
+            AdmissionController admission = registry.getAdmission(poolName);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("pool", poolName);
+            result.put("algorithm", admission != null ? admission.getAlgorithm() : AdmissionController.Algorithm.NONE);
+            result.put("limit", admission != null ? admission.getLimit() : 0);
+            return R.success(result);
+        } catch (IllegalArgumentException e) {
+            return R.error(Map.of(
+                    "status", "error",
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
     // AI自动调整参数接口
     @PostMapping("/adjust-ai")
     public R<?> autoAdjust(
@@ -270,11 +358,65 @@ public class ThreadPoolController {
                     "submitted", submitted.get(),
                     "rejected", rejected.get(),
                     "queueSize", pool.getQueue().size(),
-                    "isAutoTuning", tuningScheduler.isTuningActive(poolName)
+                    "isAutoTuning", tuningScheduler.isTuningActive(poolName),
+                    // 最近一个采样周期的排队/执行时间p99（未启用任务计时时为0）
+                    "waitP99Ms", registry.getPoolDetail(poolName).getWaitP99Ms(),
+                    "runP99Ms", registry.getPoolDetail(poolName).getRunP99Ms()
             ));
         }, pool);
     }
 
+    // 负载回放：同一轨迹（相同种子）下对比 static / heuristic / llm 策略
+    @PostMapping("/replay")
+    public CompletableFuture<?> replay(
+            @RequestParam(defaultValue = "orderServicePool") String poolName,
+            @RequestParam(defaultValue = "llm") String strategy,
+            @RequestParam(defaultValue = "poisson") String trace, // poisson | diurnal | burst | file | body
+            @RequestParam(defaultValue = "50") double rate,
+            @RequestParam(defaultValue = "200") double peakRate,
+            @RequestParam(defaultValue = "60") int durationSec,
+            @RequestParam(defaultValue = "100") double meanServiceMs,
+            @RequestParam(defaultValue = "exponential") String service,
+            @RequestParam(defaultValue = "42") long seed,
+            @RequestParam(defaultValue = "1") double speedup,
+            @RequestParam(required = false) String file, // trace=file 时轨迹目录（threadpool.replay.dir/traces）下的轨迹名称
+            @RequestBody(required = false) String body, // trace=body 时的轨迹内容（每行 arrival_ms,service_ms）
+            @RequestParam(defaultValue = "4") int fixedCore,
+            @RequestParam(required = false) String advisor,
+            @RequestParam(defaultValue = "json") String format // json | csv
+    ) {
+        try {
+            WorkloadTrace workload;
+            if ("file".equalsIgnoreCase(trace)) {
+                workload = replayer.loadTrace(file);
+            } else if ("body".equalsIgnoreCase(trace)) {
+                if (body == null || body.isBlank()) {
+                    throw new IllegalArgumentException("trace=body 时请求体不能为空");
+                }
+                workload = WorkloadTraces.parse("body", body.lines().toList());
+            } else {
+                workload = WorkloadTraces.generate(WorkloadTraces.Shape.valueOf(trace.toUpperCase(Locale.ROOT)),
+                        rate, peakRate, durationSec, meanServiceMs,
+                        WorkloadTraces.Service.valueOf(service.toUpperCase(Locale.ROOT)), seed);
+            }
+            return replayer.replay(poolName, workload, strategy.toLowerCase(Locale.ROOT), fixedCore, advisor, speedup, seed)
+                    .thenApply(report -> "csv".equalsIgnoreCase(format)
+                            ? ReplayReport.CSV_HEADER + "\n" + report.toCsvLine() + "\n"
+                            : R.success(report));
+        } catch (IOException e) {
+            // 不返回底层异常信息（可能包含服务器路径）
+            return CompletableFuture.completedFuture(R.error(Map.of(
+                    "status", "error",
+                    "message", "读取轨迹失败: " + file
+            )));
+        } catch (RuntimeException e) {
+            return CompletableFuture.completedFuture(R.error(Map.of(
+                    "status", "error",
+                    "message", String.valueOf(e.getMessage())
+            )));
+        }
+    }
+
     // 固定静态配置
     private void enforceStaticConfig(String poolName, int fixedCore) {
         ThreadPoolRegistry.PoolMetadata meta = registry.getPoolMetadata(poolName);
@@ -0,0 +1,398 @@
+package org.example.llm.core;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.TuningRecommendation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * LLM调优顾问的公共实现：提示词构建、异步调用、指标记录和建议解析
+ * <p>
+ * 子类只需给出接口地址、请求体格式以及从响应中取出模型输出的方式。
+ */
+public abstract class AbstractLlmAdvisor implements TuningAdvisor {
+    protected final Logger logger = LoggerFactory.getLogger(getClass());
+    protected final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Executor asyncExecutor;
+    private final LlmHttpTransport transport;
+    private final LlmCallMetrics metrics;
+    private PromptDataWriter.Format promptFormat = PromptDataWriter.Format.VERBOSE;
+    private int promptPoints = 12;
+    private boolean streaming = true;
+    private Duration requestTimeout = Duration.ofSeconds(10);
+
+    protected AbstractLlmAdvisor(Executor asyncExecutor, LlmHttpTransport transport, LlmCallMetrics metrics) {
+        this.asyncExecutor = asyncExecutor;
+        this.transport = transport;
+        this.metrics = metrics;
+    }
+
+    /**
+     * 接口地址
+     */
+    protected abstract String endpoint();
+
+    /**
+     * 额外请求头（鉴权等）
+     */
+    protected abstract Map<String, String> headers();
+
+    /**
+     * 按提供方格式组装请求体
+     */
+    protected abstract String buildRequestBody(String systemPrompt, String userContent)
+            throws JsonProcessingException;
+
+    /**
+     * 流式请求体（stream: true）
+     */
+    protected abstract String buildStreamingRequestBody(String systemPrompt, String userContent)
+            throws JsonProcessingException;
+
+    /**
+     * 从响应中取出模型输出的文本（应为JSON）
+     */
+    protected abstract String extractContent(JsonNode root);
+
+    /**
+     * 解析流式响应的一行，不含数据的行（空行、注释、结束标记）返回 null
+     */
+    protected JsonNode parseStreamLine(String line) {
+        return line.isBlank() ? null : readTree(line);
+    }
+
+    /**
+     * 从流式响应的一个分片中取出新生成的文本，没有时返回 null
+     */
+    protected abstract String extractDelta(JsonNode chunk);
+
+    /**
+     * 从响应中取出token消耗：[prompt, completion]，缺失时为0
+     */
+    protected abstract long[] extractUsage(JsonNode root);
+
+    @Override
+    public boolean remote() {
+        return true;
+    }
+
+    /**
+     * 提示词中采样数据的编码：verbose（默认，与之前的提示词相同）/ columnar / summary，用于对比建议质量和调用延迟
+     */
+    @Value("${threadpool.llm.prompt-format:verbose}")
+    public void setPromptFormat(String promptFormat) {
+        this.promptFormat = PromptDataWriter.Format.parse(promptFormat);
+    }
+
+    /**
+     * summary 格式降采样后的最多点数
+     */
+    @Value("${threadpool.llm.prompt-points:12}")
+    public void setPromptPoints(int promptPoints) {
+        if (promptPoints <= 0) {
+            throw new IllegalArgumentException("prompt-points 必须大于0");
+        }
+        this.promptPoints = promptPoints;
+    }
+
+    /**
+     * 单线程池请求是否使用流式响应：core、max、queue 解析完整后立即取消请求，不等待剩余token
+     */
+    @Value("${threadpool.llm.streaming:true}")
+    public void setStreaming(boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    /**
+     * 单次请求的总超时（含排队等待主机并发许可），默认与调度器等待LLM的上限一致；
+     * 调用方更早放弃时（orTimeout 或 cancel 完成返回的 future）请求随之中止
+     */
+    @Value("${threadpool.llm.request-timeout-ms:10000}")
+    public void setRequestTimeoutMs(long requestTimeoutMs) {
+        if (requestTimeoutMs <= 0) {
+            throw new IllegalArgumentException("request-timeout-ms 必须大于0");
+        }
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+    }
+
+    /**
+     * 基于注册中心内存中的采样历史异步获取调优建议（不占用调用线程）
+     */
+    @Override
+    public CompletableFuture<TuningRecommendation> recommend(String poolName, PoolSampleHistory.Window history) {
+        try {
+            if (history == null || history.isEmpty()) {
+                throw new IllegalArgumentException("线程池暂无采样数据: " + poolName);
+            }
+            PromptDataWriter.Format format = promptFormat;
+            String systemPrompt = singlePoolPrompt(history, format);
+            String userContent = (format == PromptDataWriter.Format.VERBOSE ? "完整监控数据（JSON数组）：\n" : "监控数据：\n")
+                    + PromptDataWriter.toPromptData(history, format, promptPoints);
+            CompletableFuture<TuningRecommendation> result;
+            if (streaming) {
+                result = stream(buildStreamingRequestBody(systemPrompt, userContent), format);
+            } else {
+                CompletableFuture<String> call = post(buildRequestBody(systemPrompt, userContent), "single", format);
+                result = cancelUpstream(call.thenApplyAsync(body -> toRecommendation(readTree(body)), asyncExecutor),
+                        call);
+            }
+            return cancelUpstream(result
+                    .whenComplete((r, e) -> {
+                        if (e != null && !(e instanceof CancellationException)) {
+                            logger.error("获取线程池[{}]建议失败", poolName, e);
+                        }
+                    }), result);
+        } catch (Exception e) {
+            logger.error("获取线程池[{}]建议失败", poolName, e);
+            return CompletableFuture.failedFuture(new RuntimeException("建议获取失败: " + e.getMessage(), e));
+        }
+    }
+
+    /**
+     * 批量获取多个线程池的调优建议：系统提示只发送一次，各线程池数据紧凑编码在同一请求中
+     *
+     * @return 线程池名 → 建议；响应中缺失的线程池不会出现在结果中
+     */
+    @Override
+    public CompletableFuture<Map<String, TuningRecommendation>> recommendBatch(
+            Map<String, PoolSampleHistory.Window> histories) {
+        try {
+            Map<String, PoolSampleHistory.Window> valid = new LinkedHashMap<>();
+            histories.forEach((poolName, history) -> {
+                if (history != null && !history.isEmpty()) {
+                    valid.put(poolName, history);
+                }
+            });
+            if (valid.isEmpty()) {
+                return CompletableFuture.completedFuture(Map.of());
+            }
+            PromptDataWriter.Format format = promptFormat;
+            String requestBody = buildRequestBody(batchPrompt(format),
+                    "各线程池监控数据：\n" + PromptDataWriter.toBatchPromptData(valid, format, promptPoints));
+            CompletableFuture<String> call = post(requestBody, "batch", format);
+            CompletableFuture<Map<String, TuningRecommendation>> result = cancelUpstream(
+                    call.thenApplyAsync(body -> parseBatchResponse(body, valid.keySet()), asyncExecutor), call);
+            return cancelUpstream(result
+                    .whenComplete((r, e) -> {
+                        if (e != null && !(e instanceof CancellationException)) {
+                            logger.error("批量获取线程池{}建议失败", valid.keySet(), e);
+                        }
+                    }), result);
+        } catch (Exception e) {
+            logger.error("批量获取线程池建议失败", e);
+            return CompletableFuture.failedFuture(new RuntimeException("批量建议获取失败: " + e.getMessage(), e));
+        }
+    }
+
+    // region 提示词
+    private String singlePoolPrompt(PoolSampleHistory.Window fullData, PromptDataWriter.Format format) {
+        // 强化版系统提示
+        return String.format(
+        """
+        【强制格式要求】
+        你是一个线程池优化专家，请分析以下数据。
+        当前线程池配置限制：
+        - 配置最小核心线程数为：%d
+        - 配置最大线程数为：%d
+        - 最大队列容量：%d
+
+        %s
+        你需要分析这些数据并给出建议的核心线程数、最大线程数和队列容量。
+        配置最小核心线程数和配置最大线程数是固定的
+        你的建议中核心线程数必须比最小核心线程数大，最大线程数必须小于等于配置最大线程数
+        当队列使用率超过80%%时，建议增加核心线程数和最大线程数；当队列使用率低于50%%时，建议减少核心线程数和最大线程数
+        队列容量不得超过最大队列容量；突发流量下线程已接近上限时可适当增大队列，线程充足而排队时间长时应减小队列、增加线程
+        优先降低排队时间p99；排队时间远小于执行时间且空闲率高时可减少线程
+
+        【输出要求】
+        1. 必须且只能返回JSON格式
+        2. 包含两个整数字段：core 和 max，表示建议的核心线程数和最大线程数；可选整数字段 queue，表示建议的队列容量
+        3. max必须大于等于core
+
+        【示例】
+        {"core":8,"max":16,"queue":200}
+
+        请直接返回优化建议：""",
+                fullData.getConfigMinCore()[0], fullData.getConfigMaxCore()[0], fullData.getConfigMaxQueue()[0],
+                format == PromptDataWriter.Format.VERBOSE ? VERBOSE_FORMAT : COLUMNAR_FORMAT
+        );
+    }
+
+    private static final String COLUMN_MEANINGS = """
+        - current_core: 当前核心线程数
+        - current_max: 当前最大线程数
+        - active_threads: 活跃线程数
+        - queue_size: 队列当前大小
+        - queue_capacity: 队列当前容量
+        - queue_utilization: 队列使用率
+        - idle_ratio: 线程空闲率
+        - wait_p50_ms / wait_p99_ms: 任务排队时间的p50/p99（毫秒）
+        - run_p50_ms / run_p99_ms: 任务执行时间的p50/p99（毫秒）
+        """;
+
+    private static final String VERBOSE_FORMAT = """
+        数据的格式如下:
+        - timestamp: 时间戳
+        - config_min_core: 配置最小核心线程数
+        - config_max_core: 配置最大线程数
+        - config_max_queue: 配置队列上限
+        """ + COLUMN_MEANINGS;
+
+    // 列式/摘要编码的数据说明（单池与批量共用）
+    private static final String COLUMNAR_FORMAT = """
+        数据的格式如下:
+        - config: 配置限制（min_core 最小核心线程数，max_core 最大线程数，max_queue 最大队列容量）
+        - end: 最后一条采样的时间；samples: 原始采样条数；interval_s: series 中相邻两点的间隔（秒）
+        - constant: 窗口内保持不变的列及其取值
+        - series: 其余各列按时间升序的数组
+        - stats（仅降采样时出现）: 各列在完整窗口上的 min/mean/max，trend 为整个窗口内的变化量
+        各列含义：
+        """ + COLUMN_MEANINGS;
+
+    private static final String BATCH_ROWS_FORMAT = """
+        每个线程池的数据格式如下:
+        - config: 该线程池的配置限制（min_core 最小核心线程数，max_core 最大线程数，max_queue 最大队列容量）
+        - columns: rows 中每列的含义
+        - rows: 按时间升序排列的采样，每行一个采样
+        """;
+
+    private static String batchPrompt(PromptDataWriter.Format format) {
+        return BATCH_PROMPT.replace("{data_format}",
+                format == PromptDataWriter.Format.VERBOSE ? BATCH_ROWS_FORMAT : "每个线程池的" + COLUMNAR_FORMAT);
+    }
+
+    private static final String BATCH_PROMPT = """
+        【强制格式要求】
+        你是一个线程池优化专家，请同时分析多个线程池的监控数据。
+        {data_format}
+
+        对每个线程池分别给出建议的核心线程数、最大线程数和队列容量。
+        核心线程数必须不小于 min_core，最大线程数必须小于等于 max_core，队列容量不得超过 max_queue
+        当队列使用率超过80%时，建议增加核心线程数和最大线程数；当队列使用率低于50%时，建议减少核心线程数和最大线程数
+        优先降低排队时间p99（wait_p99_ms）；排队时间远小于执行时间且空闲率高时可减少线程
+
+        【输出要求】
+        1. 必须且只能返回JSON格式
+        2. 以线程池名为键，值包含两个整数字段：core 和 max；可选整数字段 queue
+        3. max必须大于等于core，且必须覆盖输入中的每个线程池
+
+        【示例】
+        {"poolA":{"core":8,"max":16,"queue":200},"poolB":{"core":2,"max":4}}
+
+        请直接返回优化建议：""";
+    // endregion
+
+    // API调用：共享连接池的异步请求
+    private CompletableFuture<String> post(String requestBody, String mode, PromptDataWriter.Format format) {
+        long start = System.nanoTime();
+        CompletableFuture<String> request = transport.postJson(endpoint(), headers(), requestBody, requestTimeout);
+        return cancelUpstream(request
+                .whenComplete((body, e) -> {
+                    metrics.recordCall(name(), mode, format.tag(), System.nanoTime() - start, e == null);
+                    if (body != null) {
+                        recordUsage(body, mode, format);
+                    }
+                }), request);
+    }
+
+    // 流式调用：逐行解析分片并增量解析模型输出，建议完整后取消请求
+    private CompletableFuture<TuningRecommendation> stream(String requestBody, PromptDataWriter.Format format) {
+        long start = System.nanoTime();
+        StreamingRecommendationParser parser = new StreamingRecommendationParser();
+        CompletableFuture<Boolean> request = transport.postJsonStream(endpoint(), headers(), requestBody, line -> {
+                    JsonNode chunk = parseStreamLine(line);
+                    if (chunk == null) {
+                        return false;
+                    }
+                    // 提前取消时拿不到末尾的usage，只有完整读完的流才会记录token
+                    long[] usage = extractUsage(chunk);
+                    if (usage[0] > 0 || usage[1] > 0) {
+                        metrics.recordTokens(name(), "stream", format.tag(), usage[0], usage[1]);
+                    }
+                    String delta = extractDelta(chunk);
+                    return delta != null && parser.accept(delta);
+                }, requestTimeout);
+        return cancelUpstream(request
+                .whenComplete((stopped, e) -> {
+                    metrics.recordCall(name(), "stream", format.tag(), System.nanoTime() - start, e == null);
+                    if (e == null) {
+                        metrics.recordStreamEnd(name(), stopped);
+                    }
+                })
+                .thenApply(stopped -> {
+                    logger.debug("流式响应{}，已接收content:\n{}", stopped ? "提前结束" : "读取完毕", parser.content());
+                    return parser.result();
+                }), request);
+    }
+
+    // 调用方直接完成返回的 future（orTimeout 超时或 cancel）时把取消传回上游，最终中止HTTP请求并归还主机许可；
+    // 上游已完成时 cancel 无效果
+    private static <T> CompletableFuture<T> cancelUpstream(CompletableFuture<T> downstream,
+                                                           CompletableFuture<?> upstream) {
+        downstream.whenComplete((value, e) -> upstream.cancel(false));
+        return downstream;
+    }
+
+    // 记录token消耗（usage字段缺失时忽略）
+    private void recordUsage(String responseBody, String mode, PromptDataWriter.Format format) {
+        try {
+            long[] usage = extractUsage(objectMapper.readTree(responseBody));
+            metrics.recordTokens(name(), mode, format.tag(), usage[0], usage[1]);
+        } catch (JsonProcessingException e) {
+            logger.debug("解析usage失败: {}", e.getOriginalMessage());
+        }
+    }
+
+    private TuningRecommendation toRecommendation(JsonNode root) {
+        // 二次解析content中的JSON
+        return parseRecommendation(readTree(extractContent(root)));
+    }
+
+    private Map<String, TuningRecommendation> parseBatchResponse(String responseBody, Set<String> poolNames) {
+        JsonNode contentNode = readTree(extractContent(readTree(responseBody)));
+        Map<String, TuningRecommendation> result = new LinkedHashMap<>();
+        for (String poolName : poolNames) {
+            JsonNode poolNode = contentNode.get(poolName);
+            if (poolNode == null || !poolNode.isObject()) {
+                logger.warn("批量响应缺少线程池[{}]的建议", poolName);
+                continue;
+            }
+            try {
+                result.put(poolName, parseRecommendation(poolNode));
+            } catch (RuntimeException e) {
+                logger.warn("线程池[{}]的建议无效: {}", poolName, e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private TuningRecommendation parseRecommendation(JsonNode contentNode) {
+        if (!contentNode.has("core") || !contentNode.has("max")) {
+            throw new RuntimeException("content缺少必要字段");
+        }
+        // 队列容量为可选字段
+        int queue = contentNode.hasNonNull("queue") ? contentNode.get("queue").asInt() : -1;
+        return new TuningRecommendation(contentNode.get("core").asInt(), contentNode.get("max").asInt(), queue);
+    }
+
+    protected JsonNode readTree(String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("响应JSON解析失败: " + e.getOriginalMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.example.llm.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 准入控制：在任务进入线程池前按自适应并发上限放行，在途任务（排队 + 执行）达到上限时直接交给拒绝策略，
+ * 避免任务在队列中堆积到尾延迟失控后才被拒绝
+ */
+public class AdmissionController {
+
+    public enum Algorithm {
+        NONE,
+        /** 加性增、乘性减，延迟阈值见 threadpool.admission.aimd-latency-ms */
+        AIMD,
+        /** 基于最小延迟基线估算排队长度 */
+        VEGAS,
+        /** 基于长短期延迟梯度 */
+        GRADIENT2
+    }
+
+    private final Algorithm algorithm;
+    private final ConcurrencyLimit limit;
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    public AdmissionController(Algorithm algorithm, ConcurrencyLimit limit) {
+        this.algorithm = algorithm;
+        this.limit = limit;
+    }
+
+    /**
+     * @param initialLimit      初始上限（通常为最大线程数 + 队列容量，初始不改变原有行为）
+     * @param aimdThresholdMs   AIMD 判定过载的延迟阈值
+     */
+    public static AdmissionController create(Algorithm algorithm, int initialLimit, int minLimit, int maxLimit,
+                                             long aimdThresholdMs) {
+        ConcurrencyLimit limit = switch (algorithm) {
+            case AIMD -> new AimdLimit(initialLimit, minLimit, maxLimit, TimeUnit.MILLISECONDS.toNanos(aimdThresholdMs));
+            case VEGAS -> new VegasLimit(initialLimit, minLimit, maxLimit);
+            case GRADIENT2 -> new Gradient2Limit(initialLimit, minLimit, maxLimit);
+            case NONE -> throw new IllegalArgumentException("未指定准入控制算法");
+        };
+        return new AdmissionController(algorithm, limit);
+    }
+
+    /**
+     * 在途任务数未达上限时占用一个许可
+     */
+    public boolean tryAcquire() {
+        for (;;) {
+            int current = inflight.get();
+            if (current >= limit.getLimit()) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 归还许可并提交延迟样本
+     */
+    public void release(long latencyNanos, boolean dropped) {
+        int current = inflight.getAndDecrement();
+        limit.onSample(latencyNanos, current, dropped);
+    }
+
+    /**
+     * 归还未执行任务（被移除或线程池关闭时丢弃）的许可，不提交样本
+     */
+    public void cancel() {
+        inflight.decrementAndGet();
+    }
+
+    public Algorithm getAlgorithm() {
+        return algorithm;
+    }
+
+    public int getLimit() {
+        return limit.getLimit();
+    }
+
+    public int getInflight() {
+        return inflight.get();
+    }
+}
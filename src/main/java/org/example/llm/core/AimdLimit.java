@@ -0,0 +1,33 @@
+package org.example.llm.core;
+
+/**
+ * 加性增、乘性减（AIMD）：延迟超过阈值或被拒绝时按比例收缩，否则在上限被用到一半以上时加1
+ */
+public class AimdLimit implements ConcurrencyLimit {
+    static final double BACKOFF_RATIO = 0.9;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private volatile int limit;
+
+    public AimdLimit(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.limit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public synchronized void onSample(long latencyNanos, int inflight, boolean dropped) {
+        if (dropped || latencyNanos > latencyThresholdNanos) {
+            limit = Math.max(minLimit, Math.min(limit - 1, (int) (limit * BACKOFF_RATIO)));
+        } else if (inflight * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.llm.core;
+
+import org.example.llm.entity.PoolSampleHistory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 状态变化检测：记录每个线程池上一次规划时的近期状态，当前状态与之相比都在容差内时认为无需重新规划
+ * <p>
+ * 比较最近若干采样的平均队列使用率（绝对容差）、平均活跃线程数和平均队列长度（相对容差，至少1个线程/任务）。
+ * 距上一次规划超过 maxSkipMs 时强制重新规划，避免长期沿用过时的护栏。
+ */
+public class ChangeDetector {
+    private final double utilizationTolerance;
+    private final double relativeTolerance;
+    private final long maxSkipMs;
+    private final Map<String, State> planned = new ConcurrentHashMap<>();
+
+    /**
+     * @param utilizationTolerance 队列使用率的绝对容差（0~1）
+     * @param relativeTolerance    活跃线程数和队列长度的相对容差
+     * @param maxSkipMs            连续跳过的最长时间
+     */
+    public ChangeDetector(double utilizationTolerance, double relativeTolerance, long maxSkipMs) {
+        this.utilizationTolerance = utilizationTolerance;
+        this.relativeTolerance = relativeTolerance;
+        this.maxSkipMs = maxSkipMs;
+    }
+
+    private record State(double utilization, double active, double queue, long plannedAt) {
+    }
+
+    /**
+     * 与上一次规划时相比状态是否稳定（没有规划记录时返回 false）
+     */
+    public boolean stable(String poolName, PoolSampleHistory.Window window, long nowMillis) {
+        State previous = planned.get(poolName);
+        if (previous == null || window.isEmpty() || nowMillis - previous.plannedAt() >= maxSkipMs) {
+            return false;
+        }
+        State current = summarize(window, nowMillis);
+        return Math.abs(current.utilization() - previous.utilization()) <= utilizationTolerance
+                && within(current.active(), previous.active())
+                && within(current.queue(), previous.queue());
+    }
+
+    /**
+     * 记录本次规划时的状态
+     */
+    public void markPlanned(String poolName, PoolSampleHistory.Window window, long nowMillis) {
+        if (!window.isEmpty()) {
+            planned.put(poolName, summarize(window, nowMillis));
+        }
+    }
+
+    public void forget(String poolName) {
+        planned.remove(poolName);
+    }
+
+    private boolean within(double current, double previous) {
+        return Math.abs(current - previous) <= Math.max(1.0, previous * relativeTolerance);
+    }
+
+    private static State summarize(PoolSampleHistory.Window window, long nowMillis) {
+        int last = window.last();
+        int from = Math.max(0, window.getSize() - RecommendationCache.RECENT_SAMPLES);
+        double utilization = 0;
+        double active = 0;
+        double queue = 0;
+        for (int i = from; i <= last; i++) {
+            utilization += window.getQueueUtilization()[i];
+            active += window.getActiveThreads()[i];
+            queue += window.getQueueSize()[i];
+        }
+        int n = last - from + 1;
+        return new State(utilization / n, active / n, queue / n, nowMillis);
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.llm.core;
+
+/**
+ * 单个顾问提供方的熔断器
+ * <ul>
+ *     <li>CLOSED：正常调用，连续失败达到阈值后打开</li>
+ *     <li>OPEN：直接跳过该提供方，打开时长结束后进入半开</li>
+ *     <li>HALF_OPEN：只放行一个探测请求，成功则关闭，失败则重新打开</li>
+ * </ul>
+ * 调用频率为分钟级，直接用对象锁即可。
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMs;
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openUntil;
+    private boolean probing;
+
+    /**
+     * @param failureThreshold 连续失败多少次后打开
+     * @param openMs           打开状态持续时间
+     */
+    public CircuitBreaker(int failureThreshold, long openMs) {
+        if (failureThreshold <= 0 || openMs <= 0) {
+            throw new IllegalArgumentException("熔断参数必须大于0");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openMs = openMs;
+    }
+
+    /**
+     * 是否允许本次调用；允许后必须以 {@link #onSuccess()} 或 {@link #onFailure(long)} 结束
+     */
+    public synchronized boolean tryAcquire(long nowMillis) {
+        switch (state) {
+            case CLOSED -> {
+                return true;
+            }
+            case OPEN -> {
+                if (nowMillis < openUntil) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                probing = true;
+                return true;
+            }
+            default -> {
+                if (probing) {
+                    return false;
+                }
+                probing = true;
+                return true;
+            }
+        }
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probing = false;
+    }
+
+    public synchronized void onFailure(long nowMillis) {
+        probing = false;
+        if (state == State.HALF_OPEN || ++consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openUntil = nowMillis + openMs;
+            consecutiveFailures = 0;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+}
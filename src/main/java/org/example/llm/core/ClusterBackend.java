@@ -0,0 +1,121 @@
+package org.example.llm.core;
+
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.ThreadPoolDetail;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 集群调优的协调后端：成员发现、按线程池选主、交换采样报告、发布和订阅规划
+ * <p>
+ * 每个线程池只有主节点请求顾问，其余副本只上报采样并应用主节点发布的规划，LLM调用次数与副本数无关。
+ * 实现：{@link NacosClusterBackend}（Nacos注册中心 + 配置中心）、{@link FileClusterBackend}（共享目录 + 文件锁，用于本地测试）。
+ */
+public interface ClusterBackend extends AutoCloseable {
+
+    /**
+     * 本实例标识
+     */
+    String instanceId();
+
+    /**
+     * 本实例当前是否为该线程池的主节点
+     */
+    boolean isLeader(String poolName);
+
+    /**
+     * 发布本实例的采样报告（覆盖上一次）
+     */
+    void publishReport(Report report);
+
+    /**
+     * 其他存活实例最近发布的采样报告（不含本实例）
+     */
+    List<Report> peerReports();
+
+    /**
+     * 发布线程池的规划，所有订阅的实例（包括本实例）都会收到
+     */
+    void publishPlan(Plan plan);
+
+    /**
+     * 订阅线程池的规划；已有规划时立即回调一次
+     */
+    void subscribe(String poolName, Consumer<Plan> listener);
+
+    @Override
+    void close();
+
+    /**
+     * 最高随机权重（rendezvous）哈希：每个实例对 key 打分，得分最高者为主节点。
+     * 成员变化时只有原主节点所在的线程池换主，各线程池的主节点均匀分布在实例间。
+     */
+    static String rendezvous(String key, Collection<String> members) {
+        String best = null;
+        long bestScore = Long.MIN_VALUE;
+        for (String member : members) {
+            long score = mix(fnv1a(member + '\u0000' + key));
+            if (best == null || score > bestScore || (score == bestScore && member.compareTo(best) < 0)) {
+                best = member;
+                bestScore = score;
+            }
+        }
+        return best;
+    }
+
+    private static long fnv1a(String s) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    // splitmix64 的终混函数，打散只差最后几位的输入
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * 主节点发布的规划；version 为该线程池单调递增的版本号（发布方见过的最高版本 + 1），各实例只应用比已见版本更新的规划
+     */
+    record Plan(String poolName, int core, int max, int queue, long version, String leader) {
+    }
+
+    /**
+     * 一个实例的采样报告：各线程池最近若干条采样
+     */
+    record Report(String instanceId, long timestamp, Map<String, Rows> pools) {
+    }
+
+    /**
+     * 一个线程池的采样（按时间升序）
+     */
+    record Rows(long[] timestamps, List<ThreadPoolDetail> details) {
+
+        public static Rows of(String poolName, PoolSampleHistory.Window window) {
+            List<ThreadPoolDetail> details = new ArrayList<>(window.getSize());
+            for (int i = 0; i < window.getSize(); i++) {
+                details.add(window.detail(poolName, i));
+            }
+            return new Rows(window.getTimestamps().clone(), details);
+        }
+
+        public PoolSampleHistory.Window toWindow() {
+            int size = Math.min(timestamps.length, details.size());
+            PoolSampleHistory history = new PoolSampleHistory(Math.max(1, size));
+            for (int i = 0; i < size; i++) {
+                history.add(timestamps[i], details.get(i));
+            }
+            return history.snapshot(size);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package org.example.llm.core;
+
+import com.alibaba.cloud.nacos.NacosConfigManager;
+import com.alibaba.cloud.nacos.NacosDiscoveryProperties;
+import com.alibaba.cloud.nacos.NacosServiceManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.TuningRecommendation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * 集群调优协调：同一服务的多个副本共享线程池规划
+ * <p>
+ * 各副本定期发布自己的采样报告；每个线程池由一个主节点聚合所有副本的采样（按副本平均负载）后请求一次顾问，
+ * 把规划发布到共享配置，所有副本通过监听器应用。非主节点的慢速环不调用LLM，快速环仍在本地运行。
+ * 后端不可用时退回单机调优（本实例视为主节点）。
+ * <p>
+ * 规划版本单调递增：主节点发布时取本实例见过的该线程池最高版本 + 1（包括自己发布的），不依赖各实例时钟一致。
+ */
+@Slf4j
+@Component
+public class ClusterCoordinator {
+
+    public enum Mode {
+        /** 各实例独立调优 */
+        OFF,
+        /** Nacos 注册中心选主，配置中心交换报告和规划 */
+        NACOS,
+        /** 共享目录 + 文件锁（本地测试） */
+        FILE
+    }
+
+    private final ThreadPoolRegistry registry;
+    private final MeterRegistry meterRegistry;
+    private final ObjectProvider<NacosServiceManager> nacosServiceManager;
+    private final ObjectProvider<NacosDiscoveryProperties> discoveryProperties;
+    private final ObjectProvider<NacosConfigManager> nacosConfigManager;
+    private final Map<String, Long> seenVersions = new ConcurrentHashMap<>(); // 各线程池见过的最高规划版本
+    private final Set<String> subscribed = ConcurrentHashMap.newKeySet();
+    // 发布报告涉及网络，不能占用与采样器共享的单线程调度器
+    private final ExecutorService reporter = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "cluster-reporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean reporting = new AtomicBoolean();
+    private volatile ClusterBackend backend;
+    private volatile List<ClusterBackend.Report> peerReports = List.of();
+    private volatile long peerReportsAt;
+
+    @Value("${threadpool.cluster.mode:off}")
+    private String mode;
+    @Value("${threadpool.cluster.dir:${java.io.tmpdir}/threadpool-cluster}")
+    private String dir;
+    @Value("${threadpool.cluster.instance-id:}") // 仅 file 模式；nacos 模式取注册的 ip:port
+    private String instanceId;
+    @Value("${threadpool.cluster.report-ms:5000}")
+    private long reportMs;
+    @Value("${threadpool.cluster.report-rows:12}")
+    private int reportRows;
+    @Value("${threadpool.cluster.stale-ms:30000}")
+    private long staleMs;
+    @Value("${threadpool.cluster.poll-ms:1000}")
+    private long pollMs;
+    @Value("${spring.application.name:service}")
+    private String serviceName;
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    public ClusterCoordinator(ThreadPoolRegistry registry, MeterRegistry meterRegistry,
+                              ObjectProvider<NacosServiceManager> nacosServiceManager,
+                              ObjectProvider<NacosDiscoveryProperties> discoveryProperties,
+                              ObjectProvider<NacosConfigManager> nacosConfigManager) {
+        this.registry = registry;
+        this.meterRegistry = meterRegistry;
+        this.nacosServiceManager = nacosServiceManager;
+        this.discoveryProperties = discoveryProperties;
+        this.nacosConfigManager = nacosConfigManager;
+    }
+
+    // nacos 模式的成员是注册中心中的 ip:port，自定义标识会与之重复，且报告的发布和读取不在同一个键下
+    @PostConstruct
+    void validate() {
+        if (mode() == Mode.NACOS && !instanceId.isBlank()) {
+            throw new IllegalStateException("集群模式 nacos 的实例标识取自注册中心的 ip:port，"
+                    + "不能设置 threadpool.cluster.instance-id");
+        }
+    }
+
+    public boolean enabled() {
+        return mode() != Mode.OFF;
+    }
+
+    /**
+     * 本实例是否负责该线程池的LLM规划（未启用集群或后端异常时为 true）
+     */
+    public boolean isLeader(String poolName) {
+        if (!enabled()) {
+            return true;
+        }
+        try {
+            return backend().isLeader(poolName);
+        } catch (RuntimeException e) {
+            log.warn("线程池[{}]集群选主失败，按本地调优处理: {}", poolName, e.getMessage());
+            return true;
+        }
+    }
+
+    /**
+     * 主节点的调优输入：本实例窗口与其他副本最近报告中同一线程池的窗口聚合
+     */
+    public PoolSampleHistory.Window aggregate(String poolName, PoolSampleHistory.Window local) {
+        if (!enabled() || local.isEmpty()) {
+            return local;
+        }
+        List<PoolSampleHistory.Window> windows = new ArrayList<>();
+        windows.add(local);
+        for (ClusterBackend.Report report : peerReports()) {
+            ClusterBackend.Rows rows = report.pools() == null ? null : report.pools().get(poolName);
+            if (rows != null && !rows.details().isEmpty()) {
+                windows.add(rows.toWindow());
+            }
+        }
+        return PoolSampleHistory.aggregate(windows);
+    }
+
+    /**
+     * 主节点发布规划（未启用集群时不做处理）
+     */
+    public void publish(String poolName, TuningRecommendation plan) {
+        if (!enabled()) {
+            return;
+        }
+        try {
+            ClusterBackend backend = backend();
+            long version = seenVersions.merge(poolName, 1L, (seen, one) -> seen + 1);
+            backend.publishPlan(new ClusterBackend.Plan(poolName, plan.core(), plan.max(), plan.queue(),
+                    version, backend.instanceId()));
+            planCounter("published").increment();
+        } catch (RuntimeException e) {
+            log.warn("线程池[{}]发布集群规划失败: {}", poolName, e.getMessage());
+        }
+    }
+
+    /**
+     * 订阅其他实例发布的规划；同一线程池只订阅一次，旧版本和本实例发布的规划不会回调，但都计入已见版本
+     */
+    public void subscribe(String poolName, Consumer<TuningRecommendation> onPlan) {
+        if (!enabled() || !subscribed.add(poolName)) {
+            return;
+        }
+        try {
+            ClusterBackend backend = backend();
+            backend.subscribe(poolName, plan -> {
+                long seen = seenVersions.getOrDefault(poolName, 0L);
+                seenVersions.merge(poolName, plan.version(), Math::max);
+                if (backend.instanceId().equals(plan.leader()) || plan.version() <= seen) {
+                    return;
+                }
+                log.info("线程池[{}]应用主节点[{}]的集群规划：core={}，max={}，queue={}",
+                        poolName, plan.leader(), plan.core(), plan.max(), plan.queue());
+                planCounter("applied").increment();
+                onPlan.accept(new TuningRecommendation(plan.core(), plan.max(), plan.queue()));
+            });
+        } catch (RuntimeException e) {
+            subscribed.remove(poolName);
+            log.warn("线程池[{}]订阅集群规划失败: {}", poolName, e.getMessage());
+        }
+    }
+
+    /**
+     * 定期发布本实例各线程池最近的采样；发布交给专用线程异步执行，上一次发布未完成时跳过本周期
+     */
+    @Scheduled(fixedRateString = "${threadpool.cluster.report-ms:5000}")
+    public void report() {
+        if (!enabled() || !reporting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            reporter.execute(() -> {
+                try {
+                    publishReport();
+                } finally {
+                    reporting.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            reporting.set(false); // 已关闭
+        }
+    }
+
+    private void publishReport() {
+        try {
+            Map<String, ClusterBackend.Rows> pools = new LinkedHashMap<>();
+            registry.forEachPool((poolName, meta) ->
+                    pools.put(poolName, ClusterBackend.Rows.of(poolName, meta.history().snapshot(reportRows))));
+            ClusterBackend backend = backend();
+            backend.publishReport(new ClusterBackend.Report(backend.instanceId(), System.currentTimeMillis(), pools));
+        } catch (RuntimeException e) {
+            log.warn("发布集群采样报告失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 集群概况：模式、本实例标识、各线程池是否由本实例规划
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", mode());
+        if (enabled()) {
+            Map<String, Boolean> leaders = new LinkedHashMap<>();
+            registry.forEachPool((poolName, meta) -> leaders.put(poolName, isLeader(poolName)));
+            result.put("instance", backend().instanceId());
+            result.put("peers", peerReports().stream().map(ClusterBackend.Report::instanceId).toList());
+            result.put("leader", leaders);
+        }
+        return result;
+    }
+
+    @PreDestroy
+    public void close() {
+        reporter.shutdownNow();
+        if (backend != null) {
+            backend.close();
+        }
+    }
+
+    // 各线程池的主节点在同一周期内依次读取，报告按上报周期缓存
+    private List<ClusterBackend.Report> peerReports() {
+        long now = System.currentTimeMillis();
+        if (now - peerReportsAt >= reportMs) {
+            peerReports = backend().peerReports();
+            peerReportsAt = now;
+        }
+        return peerReports;
+    }
+
+    private Mode mode() {
+        return Mode.valueOf(mode.trim().toUpperCase(Locale.ROOT));
+    }
+
+    // Nacos 实例端口在Web服务器启动后才确定，后端在首次使用时创建
+    private ClusterBackend backend() {
+        ClusterBackend current = backend;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (backend == null) {
+                backend = createBackend();
+                log.info("集群调优已启用: mode={}，instance={}", mode(), backend.instanceId());
+            }
+            return backend;
+        }
+    }
+
+    private ClusterBackend createBackend() {
+        switch (mode()) {
+            case NACOS -> {
+                NacosDiscoveryProperties discovery = discoveryProperties.getIfAvailable();
+                NacosServiceManager serviceManager = nacosServiceManager.getIfAvailable();
+                NacosConfigManager configManager = nacosConfigManager.getIfAvailable();
+                if (discovery == null || serviceManager == null || configManager == null) {
+                    throw new IllegalStateException("集群模式 nacos 需要启用 Nacos 服务发现和配置中心");
+                }
+                String id = discovery.getIp() + ":" + (discovery.getPort() > 0 ? discovery.getPort() : serverPort);
+                return new NacosClusterBackend(serviceManager.getNamingService(), configManager.getConfigService(),
+                        discovery.getService() != null ? discovery.getService() : serviceName,
+                        discovery.getGroup(), id, staleMs);
+            }
+            case FILE -> {
+                String id = !instanceId.isBlank() ? instanceId : UUID.randomUUID().toString();
+                return new FileClusterBackend(Path.of(dir), id, staleMs, pollMs);
+            }
+            default -> throw new IllegalStateException("集群调优未启用");
+        }
+    }
+
+    private Counter planCounter(String direction) {
+        return Counter.builder("threadpool.cluster.plans")
+                .tag("direction", direction)
+                .description("Cluster tuning plans published by this instance or applied from a leader")
+                .register(meterRegistry);
+    }
+}
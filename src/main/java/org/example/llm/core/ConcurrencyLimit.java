@@ -0,0 +1,18 @@
+package org.example.llm.core;
+
+/**
+ * 自适应并发上限算法：根据每个任务的延迟样本调整允许的在途任务数
+ */
+public interface ConcurrencyLimit {
+
+    int getLimit();
+
+    /**
+     * 任务结束时提交一个样本
+     *
+     * @param latencyNanos 任务从提交到执行结束的耗时（排队 + 执行）
+     * @param inflight     提交样本时的在途任务数（含本任务）
+     * @param dropped      任务是否被线程池拒绝（视为过载信号）
+     */
+    void onSample(long latencyNanos, int inflight, boolean dropped);
+}
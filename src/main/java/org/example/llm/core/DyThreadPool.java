@@ -27,8 +27,70 @@ public @interface DyThreadPool {
      */
     int maxCore() default 100;
 
+    /**
+     * 队列容量最小值
+     */
+    int minQueueSize() default 10;
+
     /**
      * 队列容量动态调整范围
      */
     int maxQueueSize() default 200;
-}
\ No newline at end of file
+
+    /**
+     * 是否记录任务排队/执行时间（注册时替换为 InstrumentedThreadPoolExecutor）
+     */
+    boolean instrumented() default true;
+
+    /**
+     * 调优顾问名称（deepseek / ollama / hedged / pid，或其他 TuningAdvisor 实现）
+     */
+    String advisor() default DeepseekClient.NAME;
+
+    /**
+     * 全局线程预算（threadpool.budget.max-threads）中的优先级权重，需求相同时按权重比例分配
+     */
+    double weight() default 1.0;
+
+    /**
+     * 任务排队时间p99的SLO（毫秒），超出时在全局预算中放大该线程池的需求；0表示无SLO
+     */
+    long waitSloMs() default 0;
+
+    /**
+     * 执行模式：VIRTUAL 时注册为 {@link VirtualThreadPoolExecutor}，核心线程数作为并发许可上限
+     */
+    Mode mode() default Mode.PLATFORM;
+
+    /**
+     * 准入控制算法（需要任务计时），NONE 表示不启用
+     */
+    AdmissionController.Algorithm admission() default AdmissionController.Algorithm.NONE;
+
+    /**
+     * 拒绝策略（均按处理结果计数）；ABORT 时若Bean已配置了非默认的拒绝策略则保留原策略
+     */
+    InstrumentedRejectionHandler.Policy rejection() default InstrumentedRejectionHandler.Policy.ABORT;
+
+    /**
+     * CALLER_RUNS 每秒最多由调用方执行的任务数
+     */
+    int callerRunsPerSecond() default 50;
+
+    /**
+     * RETRY 等待队列空位的最长时间（毫秒）
+     */
+    long retryTimeoutMs() default 100;
+
+    /**
+     * SPILL 溢出队列容量
+     */
+    int spillCapacity() default 1000;
+
+    enum Mode {
+        /** 平台线程的 ThreadPoolExecutor */
+        PLATFORM,
+        /** 虚拟线程（JDK 21+），并发数由许可上限控制，适合阻塞I/O为主的任务 */
+        VIRTUAL
+    }
+}
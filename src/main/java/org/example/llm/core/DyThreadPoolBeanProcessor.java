@@ -2,6 +2,7 @@ package org.example.llm.core;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.example.llm.entity.ResizableBlockingQueue;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.beans.factory.config.BeanPostProcessor;
 import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
@@ -10,7 +11,11 @@ import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @Slf4j
@@ -18,16 +23,17 @@ import java.util.concurrent.ThreadPoolExecutor;
 public class DyThreadPoolBeanProcessor implements BeanPostProcessor {
     private final ThreadPoolRegistry registry;
     private final ConfigurableListableBeanFactory beanFactory;
+    private final WarmStartStore warmStartStore;
 
     @Override
     public Object postProcessAfterInitialization(Object bean, String beanName) {
         if (bean instanceof ThreadPoolExecutor) {
-            processThreadPoolBean(beanName, (ThreadPoolExecutor) bean);
+            return processThreadPoolBean(beanName, (ThreadPoolExecutor) bean);
         }
         return bean;
     }
 
-    private void processThreadPoolBean(String beanName, ThreadPoolExecutor executor) {
+    private ThreadPoolExecutor processThreadPoolBean(String beanName, ThreadPoolExecutor executor) {
         try {
             BeanDefinition beanDef = beanFactory.getBeanDefinition(beanName);
             if (beanDef.getSource() instanceof MethodMetadata) {
@@ -44,18 +50,125 @@ public class DyThreadPoolBeanProcessor implements BeanPostProcessor {
                 // 获取@DyThreadPool注解
                 DyThreadPool annotation = beanMethod.getAnnotation(DyThreadPool.class);
                 if (annotation != null) {
+                    executor = annotation.mode() == DyThreadPool.Mode.VIRTUAL
+                            ? rebuildAsVirtual(annotation.poolName(), executor)
+                            : rebuildIfNeeded(annotation.poolName(), executor, annotation.instrumented());
+                    installRejectionHandler(annotation, executor);
                     registry.register(
                             annotation.poolName(),
                             executor,
                             annotation.minCore(),
                             annotation.maxCore(),
-                            annotation.maxQueueSize()
+                            annotation.minQueueSize(),
+                            annotation.maxQueueSize(),
+                            annotation.advisor()
                     );
+                    registry.setBudgetPolicy(annotation.poolName(), annotation.weight(), annotation.waitSloMs());
+                    // 上次运行保存的参数：恢复核心线程数并预启动、预设队列容量
+                    warmStartStore.restore(annotation.poolName());
+                    if (annotation.admission() != AdmissionController.Algorithm.NONE) {
+                        registry.setAdmission(annotation.poolName(), annotation.admission());
+                    }
                     log.info("成功注册动态线程池: {}", annotation.poolName());
                 }
             }
         } catch (Exception e) {
             log.error("处理线程池Bean失败: {}", beanName, e);
         }
+        return executor;
     }
-}
\ No newline at end of file
+
+    private void installRejectionHandler(DyThreadPool annotation, ThreadPoolExecutor executor) {
+        RejectedExecutionHandler current = executor.getRejectedExecutionHandler();
+        if (annotation.rejection() == InstrumentedRejectionHandler.Policy.ABORT
+                && current.getClass() != ThreadPoolExecutor.AbortPolicy.class) {
+            log.info("线程池[{}]保留已配置的拒绝策略: {}", annotation.poolName(), current.getClass().getSimpleName());
+            return;
+        }
+        executor.setRejectedExecutionHandler(new InstrumentedRejectionHandler(annotation.poolName(),
+                annotation.rejection(), annotation.callerRunsPerSecond(), annotation.retryTimeoutMs(),
+                annotation.spillCapacity()));
+    }
+
+    /**
+     * 虚拟线程模式：按原核心/最大线程数作为许可上限及其边界重建为 VirtualThreadPoolExecutor，
+     * 有界队列同样换成 ResizableBlockingQueue，拒绝策略沿用原线程池
+     */
+    private ThreadPoolExecutor rebuildAsVirtual(String poolName, ThreadPoolExecutor executor) {
+        if (executor instanceof VirtualThreadPoolExecutor) {
+            return executor;
+        }
+        BlockingQueue<Runnable> queue = executor.getQueue();
+        if (!queue.isEmpty() || executor.getTaskCount() > 0 || executor.getPoolSize() > 0) {
+            log.warn("线程池[{}]已有任务或线程，跳过虚拟线程重建", poolName);
+            return executor;
+        }
+        int capacity = queue.remainingCapacity();
+        BlockingQueue<Runnable> workQueue = capacity == Integer.MAX_VALUE || capacity == 0
+                ? queue
+                : new ResizableBlockingQueue<>(capacity);
+        VirtualThreadPoolExecutor replacement = new VirtualThreadPoolExecutor(
+                poolName + "-vt-",
+                Math.max(1, executor.getCorePoolSize()),
+                Math.max(1, executor.getMaximumPoolSize()),
+                workQueue,
+                executor.getThreadFactory(),
+                executor.getRejectedExecutionHandler());
+        executor.shutdown();
+        log.info("线程池[{}]已重建为虚拟线程执行器：许可上限={}，队列={}，虚拟线程={}", poolName,
+                replacement.getLimit(), workQueue.getClass().getSimpleName(),
+                VirtualThreadPoolExecutor.virtualThreadsSupported());
+        return replacement;
+    }
+
+    /**
+     * ThreadPoolExecutor 的队列和类型都不可替换：在尚未执行任务时按原参数重建实例，
+     * 普通有界 LinkedBlockingQueue 换成 ResizableBlockingQueue 使队列容量可调，
+     * 需要任务计时时换成 InstrumentedThreadPoolExecutor
+     */
+    private ThreadPoolExecutor rebuildIfNeeded(String poolName, ThreadPoolExecutor executor, boolean instrumented) {
+        BlockingQueue<Runnable> queue = executor.getQueue();
+        boolean replaceQueue = queue.getClass() == LinkedBlockingQueue.class;
+        if (replaceQueue && queue.remainingCapacity() + queue.size() == Integer.MAX_VALUE) {
+            log.warn("线程池[{}]使用无界队列，跳过队列替换", poolName);
+            replaceQueue = false;
+        }
+        boolean instrument = instrumented && !(executor instanceof InstrumentedThreadPoolExecutor);
+        if (!replaceQueue && !instrument) {
+            return executor;
+        }
+        if (!queue.isEmpty() || executor.getTaskCount() > 0) {
+            log.warn("线程池[{}]已有任务，跳过重建", poolName);
+            return executor;
+        }
+        // 沿用原队列时，原线程池不能有已启动的线程，否则关闭前可能从共享队列取走任务
+        if (!replaceQueue && executor.getPoolSize() > 0) {
+            log.warn("线程池[{}]已预启动线程，跳过任务计时", poolName);
+            return executor;
+        }
+
+        BlockingQueue<Runnable> workQueue = replaceQueue
+                ? new ResizableBlockingQueue<>(queue.remainingCapacity())
+                : queue;
+        ThreadPoolExecutor replacement = instrument || executor instanceof InstrumentedThreadPoolExecutor
+                ? new InstrumentedThreadPoolExecutor(
+                        executor.getCorePoolSize(),
+                        executor.getMaximumPoolSize(),
+                        executor.getKeepAliveTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS,
+                        workQueue,
+                        executor.getThreadFactory(),
+                        executor.getRejectedExecutionHandler())
+                : new ThreadPoolExecutor(
+                        executor.getCorePoolSize(),
+                        executor.getMaximumPoolSize(),
+                        executor.getKeepAliveTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS,
+                        workQueue,
+                        executor.getThreadFactory(),
+                        executor.getRejectedExecutionHandler());
+        replacement.allowCoreThreadTimeOut(executor.allowsCoreThreadTimeOut());
+        executor.shutdown();
+        log.info("线程池[{}]已重建：队列={}，任务计时={}", poolName,
+                workQueue.getClass().getSimpleName(), replacement instanceof InstrumentedThreadPoolExecutor);
+        return replacement;
+    }
+}
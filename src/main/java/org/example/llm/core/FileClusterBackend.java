@@ -0,0 +1,201 @@
+package org.example.llm.core;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 基于共享目录的集群后端（本地多进程测试用，替代 Nacos）
+ * <ul>
+ *     <li>选主：每个线程池一个锁文件，持有排他文件锁的实例为主节点，进程退出时操作系统释放锁，其他实例下次尝试时接任</li>
+ *     <li>报告：reports/&lt;实例&gt;.json，修改时间超过 staleMs 的视为已下线</li>
+ *     <li>规划：plans/&lt;线程池&gt;.json，先写临时文件再原子替换；订阅方按 pollMs 轮询版本号</li>
+ * </ul>
+ */
+@Slf4j
+public class FileClusterBackend implements ClusterBackend {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String instanceId;
+    private final Path reports;
+    private final Path plans;
+    private final Path locks;
+    private final long staleMs;
+    private final Map<String, FileLock> held = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<Plan>>> listeners = new ConcurrentHashMap<>();
+    private final Map<String, Long> seenVersions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService poller;
+
+    public FileClusterBackend(Path dir, String instanceId, long staleMs, long pollMs) {
+        this.instanceId = instanceId;
+        this.reports = dir.resolve("reports");
+        this.plans = dir.resolve("plans");
+        this.locks = dir.resolve("locks");
+        this.staleMs = staleMs;
+        try {
+            Files.createDirectories(reports);
+            Files.createDirectories(plans);
+            Files.createDirectories(locks);
+        } catch (IOException e) {
+            throw new UncheckedIOException("无法创建集群目录: " + dir, e);
+        }
+        this.poller = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cluster-file-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::poll, pollMs, pollMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String instanceId() {
+        return instanceId;
+    }
+
+    @Override
+    public boolean isLeader(String poolName) {
+        FileLock lock = held.get(poolName);
+        if (lock != null && lock.isValid()) {
+            return true;
+        }
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(locks.resolve(fileName(poolName) + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null; // 同一进程内的另一个实例持有锁
+        } catch (IOException e) {
+            log.warn("线程池[{}]尝试获取主节点锁失败: {}", poolName, e.getMessage());
+            lock = null;
+        }
+        if (lock == null) {
+            closeQuietly(channel);
+            return false;
+        }
+        held.put(poolName, lock);
+        log.info("实例[{}]成为线程池[{}]的主节点", instanceId, poolName);
+        return true;
+    }
+
+    @Override
+    public void publishReport(Report report) {
+        write(reports.resolve(fileName(instanceId) + ".json"), report);
+    }
+
+    @Override
+    public List<Report> peerReports() {
+        List<Report> result = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        try (Stream<Path> files = Files.list(reports)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (!file.toString().endsWith(".json")
+                        || now - Files.getLastModifiedTime(file).toMillis() > staleMs) {
+                    continue;
+                }
+                Report report = read(file, Report.class);
+                if (report != null && !instanceId.equals(report.instanceId())) {
+                    result.add(report);
+                }
+            }
+        } catch (IOException e) {
+            log.warn("读取集群采样报告失败: {}", e.getMessage());
+        }
+        return result;
+    }
+
+    @Override
+    public void publishPlan(Plan plan) {
+        write(plans.resolve(fileName(plan.poolName()) + ".json"), plan);
+    }
+
+    @Override
+    public void subscribe(String poolName, Consumer<Plan> listener) {
+        listeners.computeIfAbsent(poolName, k -> new CopyOnWriteArrayList<>()).add(listener);
+        Plan plan = read(plans.resolve(fileName(poolName) + ".json"), Plan.class);
+        if (plan != null) {
+            seenVersions.merge(poolName, plan.version(), Math::max);
+            listener.accept(plan);
+        }
+    }
+
+    @Override
+    public void close() {
+        poller.shutdownNow();
+        held.values().forEach(lock -> closeQuietly(lock.channel()));
+        held.clear();
+    }
+
+    // 检查订阅线程池的规划文件，版本更新时通知监听器
+    private void poll() {
+        listeners.forEach((poolName, consumers) -> {
+            Plan plan = read(plans.resolve(fileName(poolName) + ".json"), Plan.class);
+            if (plan == null || plan.version() <= seenVersions.getOrDefault(poolName, Long.MIN_VALUE)) {
+                return;
+            }
+            seenVersions.put(poolName, plan.version());
+            for (Consumer<Plan> consumer : consumers) {
+                try {
+                    consumer.accept(plan);
+                } catch (Exception e) {
+                    log.error("线程池[{}]应用集群规划失败: {}", poolName, e.getMessage(), e);
+                }
+            }
+        });
+    }
+
+    private void write(Path target, Object value) {
+        try {
+            Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+            Files.write(tmp, objectMapper.writeValueAsBytes(value));
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("写入集群文件失败: " + target, e);
+        }
+    }
+
+    private <T> T read(Path file, Class<T> type) {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(file.toFile(), type);
+        } catch (IOException e) {
+            log.warn("读取集群文件失败: {} ({})", file, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String fileName(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // 关闭通道即释放锁，失败时无需处理
+        }
+    }
+}
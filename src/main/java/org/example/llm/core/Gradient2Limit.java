@@ -0,0 +1,52 @@
+package org.example.llm.core;
+
+/**
+ * Gradient2风格上限：比较长期平均延迟与当前延迟得到梯度（0.5~1），
+ * 新上限 = limit × 梯度 + sqrt(limit)，再做平滑；延迟膨胀时收缩，平稳时按 sqrt(limit) 的余量增长
+ * <p>
+ * 长期延迟在预热期内取算术平均，之后为 {@link #LONG_WINDOW} 个样本的指数平均；
+ * 当前延迟明显低于长期值时让长期值逐步回落，负载下降后能重新增长。
+ */
+public class Gradient2Limit implements ConcurrencyLimit {
+    static final int LONG_WINDOW = 600;
+    private static final double TOLERANCE = 1.5; // 允许的延迟膨胀倍数
+    private static final double SMOOTHING = 0.2;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double DRIFT_DECAY = 0.95;
+    private final int minLimit;
+    private final int maxLimit;
+    private volatile double estimatedLimit;
+    private double longRtt;
+    private int samples;
+
+    public Gradient2Limit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) estimatedLimit;
+    }
+
+    @Override
+    public synchronized void onSample(long latencyNanos, int inflight, boolean dropped) {
+        double shortRtt = Math.max(1, latencyNanos);
+        samples = Math.min(samples + 1, LONG_WINDOW);
+        longRtt += (shortRtt - longRtt) / samples;
+        if (longRtt / shortRtt > 2) {
+            longRtt *= DRIFT_DECAY;
+        }
+        double limit = estimatedLimit;
+        if (!dropped && inflight < limit / 2) {
+            return; // 负载不足以用满上限时不增长
+        }
+        double gradient = dropped
+                ? MIN_GRADIENT
+                : Math.max(MIN_GRADIENT, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        newLimit = limit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(newLimit, maxLimit));
+    }
+}
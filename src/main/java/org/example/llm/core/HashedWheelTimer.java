@@ -0,0 +1,154 @@
+package org.example.llm.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 时间轮定时器：单个线程按固定刻度推进，每个刻度只处理落在当前槽位的定时任务
+ * <p>
+ * 新增定时任务先进入无锁队列，由时间轮线程在下一个刻度放入槽位；槽位只由时间轮线程访问，无需加锁。
+ * 超出一圈的延迟用剩余圈数表示，取消只做标记，到期时跳过。到期回调在时间轮线程上执行，必须很快返回（通常只是提交到工作线程池）。
+ * 精度为一个刻度，适合大量周期性、对精度要求不高的任务（如数千个线程池的调优周期）。
+ */
+@Slf4j
+public class HashedWheelTimer {
+    private final long tickNanos;
+    private final ArrayDeque<Timeout>[] wheel;
+    private final int mask;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private volatile boolean stopped;
+    private final long startNanos;
+    private long tick; // 已处理的刻度数，只由时间轮线程访问
+
+    /**
+     * @param tickMs    刻度（毫秒）
+     * @param wheelSize 槽位数，向上取整为2的幂
+     */
+    @SuppressWarnings("unchecked")
+    public HashedWheelTimer(String threadName, long tickMs, int wheelSize) {
+        if (tickMs <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("时间轮参数必须大于0");
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.wheel = new ArrayDeque[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+        this.mask = size - 1;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, threadName);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 在 delayMs 后执行一次 task（在时间轮线程上执行）
+     */
+    public Timeout newTimeout(Runnable task, long delayMs) {
+        if (stopped) {
+            throw new IllegalStateException("时间轮已停止");
+        }
+        long deadline = System.nanoTime() - startNanos + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delayMs));
+        Timeout timeout = new Timeout(task, deadline);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 停止时间轮线程，未到期的任务不再执行
+     */
+    public void stop() {
+        stopped = true;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 尚未放入槽位的定时任务数
+     */
+    public int pendingTimeouts() {
+        return pending.size();
+    }
+
+    private void run() {
+        while (!stopped) {
+            long deadline = (tick + 1) * tickNanos;
+            long sleep;
+            while (!stopped && (sleep = deadline - (System.nanoTime() - startNanos)) > 0) {
+                LockSupport.parkNanos(this, sleep);
+            }
+            if (stopped) {
+                return;
+            }
+            transferPending();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    // 新任务按到期刻度放入槽位；已过期的放入当前槽位立即执行
+    private void transferPending() {
+        Timeout timeout;
+        while ((timeout = pending.poll()) != null) {
+            if (timeout.cancelled) {
+                continue;
+            }
+            long expireTick = Math.max(tick, timeout.deadlineNanos / tickNanos);
+            timeout.remainingRounds = (expireTick - tick) / wheel.length;
+            wheel[(int) (expireTick & mask)].add(timeout);
+        }
+    }
+
+    private void expire(ArrayDeque<Timeout> bucket) {
+        for (Iterator<Timeout> it = bucket.iterator(); it.hasNext(); ) {
+            Timeout timeout = it.next();
+            if (timeout.cancelled) {
+                it.remove();
+            } else if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            } else {
+                it.remove();
+                try {
+                    timeout.task.run();
+                } catch (Throwable e) {
+                    log.error("定时任务执行失败: {}", e.toString(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 定时任务句柄
+     */
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadlineNanos; // 相对时间轮启动时刻
+        private long remainingRounds;
+        private volatile boolean cancelled;
+
+        private Timeout(Runnable task, long deadlineNanos) {
+            this.task = task;
+            this.deadlineNanos = deadlineNanos;
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package org.example.llm.core;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.TuningRecommendation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对冲顾问：按优先级调用远程顾问（DeepSeek → Ollama），在时间预算内一定给出建议
+ * <ul>
+ *     <li>对冲：当前提供方超过其近期延迟的指定分位数仍未返回时，并行调用下一个提供方，取最先返回的有效建议</li>
+ *     <li>降级：提供方失败时立即调用下一个；全部失败或超出时间预算时使用本地启发式规划（与模拟LLM相同的整窗规划）</li>
+ *     <li>熔断：每个提供方独立熔断，打开期间直接跳过，不再逐周期报错</li>
+ * </ul>
+ * 被对冲掉的慢请求不会取消，其结果仍用于更新熔断器和延迟统计；每次调用最长等待 call-timeout-ms，
+ * 超时按失败计入熔断器，挂起的请求不会让半开状态的探测一直占用。
+ */
+@Slf4j
+@Component
+public class HedgedAdvisor implements TuningAdvisor {
+    public static final String NAME = "hedged";
+    static final String HEURISTIC = "heuristic";
+    private static final int LATENCY_WINDOW = 64; // 计算对冲延迟时保留的最近成功调用数
+
+    private final List<TuningAdvisor> advisors;
+    private final MeterRegistry meterRegistry;
+    private final List<Provider> providers = new ArrayList<>();
+    private final Set<String> degradedPools = ConcurrentHashMap.newKeySet(); // 最近一次为本地规划的线程池
+
+    @Value("${threadpool.hedge.percentile:0.9}")
+    private double hedgePercentile;
+    @Value("${threadpool.hedge.default-delay-ms:3000}")
+    private long defaultDelayMs;
+    @Value("${threadpool.hedge.min-delay-ms:500}")
+    private long minDelayMs;
+    @Value("${threadpool.hedge.budget-ms:8000}")
+    private long budgetMs;
+    @Value("${threadpool.hedge.call-timeout-ms:10000}")
+    private long callTimeoutMs;
+    @Value("${threadpool.hedge.breaker.failure-threshold:3}")
+    private int failureThreshold;
+    @Value("${threadpool.hedge.breaker.open-ms:60000}")
+    private long openMs;
+
+    public HedgedAdvisor(DeepseekClient primary, OllamaDeepseek secondary, MeterRegistry meterRegistry) {
+        this.advisors = List.of(primary, secondary); // 按优先级排列
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void init() {
+        if (budgetMs <= 0 || callTimeoutMs <= 0 || hedgePercentile <= 0 || hedgePercentile > 1) {
+            throw new IllegalArgumentException("对冲参数无效");
+        }
+        for (TuningAdvisor advisor : advisors) {
+            Provider provider = new Provider(advisor, new CircuitBreaker(failureThreshold, openMs));
+            providers.add(provider);
+            Gauge.builder("threadpool.advisor.breaker.state", provider.breaker, b -> b.getState().ordinal())
+                    .tag("provider", advisor.name())
+                    .description("Circuit breaker state (0=closed, 1=half-open, 2=open)")
+                    .register(meterRegistry);
+        }
+        log.info("对冲顾问: 提供方={}，对冲分位数={}，时间预算={}ms",
+                advisors.stream().map(TuningAdvisor::name).toList(), hedgePercentile, budgetMs);
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean remote() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<TuningRecommendation> recommend(String poolName, PoolSampleHistory.Window history) {
+        if (history == null || history.isEmpty()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("线程池暂无采样数据: " + poolName));
+        }
+        Attempt attempt = new Attempt(poolName, history);
+        CompletableFuture.runAsync(() -> attempt.fallback("超出时间预算" + budgetMs + "ms"),
+                CompletableFuture.delayedExecutor(budgetMs, TimeUnit.MILLISECONDS));
+        attempt.launchNext();
+        return attempt.result;
+    }
+
+    @Override
+    public boolean degraded(String poolName) {
+        return degradedPools.contains(poolName);
+    }
+
+    /**
+     * 提供方当前的熔断状态（未知提供方返回 null）
+     */
+    public CircuitBreaker.State getBreakerState(String provider) {
+        return providers.stream()
+                .filter(p -> p.advisor.name().equals(provider))
+                .map(p -> p.breaker.getState())
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static boolean valid(TuningRecommendation plan) {
+        return plan != null && plan.core() > 0 && plan.max() >= plan.core();
+    }
+
+    // 一次建议请求：依次（或对冲并行）调用各提供方，最先返回的有效建议胜出
+    private final class Attempt {
+        private final String poolName;
+        private final PoolSampleHistory.Window history;
+        private final CompletableFuture<TuningRecommendation> result = new CompletableFuture<>();
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private volatile boolean hedged;
+
+        Attempt(String poolName, PoolSampleHistory.Window history) {
+            this.poolName = poolName;
+            this.history = history;
+        }
+
+        // 调用下一个未熔断的提供方；没有可用提供方且没有在途请求时降级
+        void launchNext() {
+            while (!result.isDone()) {
+                int index = next.getAndIncrement();
+                if (index >= providers.size()) {
+                    if (outstanding.get() == 0) {
+                        fallback("没有可用的远程顾问");
+                    }
+                    return;
+                }
+                Provider provider = providers.get(index);
+                if (!provider.breaker.tryAcquire(System.currentTimeMillis())) {
+                    Counter.builder("threadpool.advisor.breaker.rejected")
+                            .tag("provider", provider.advisor.name())
+                            .description("Advisor calls skipped by an open circuit breaker")
+                            .register(meterRegistry)
+                            .increment();
+                    continue;
+                }
+                call(provider);
+                if (index + 1 < providers.size()) {
+                    CompletableFuture.runAsync(this::hedge,
+                            CompletableFuture.delayedExecutor(provider.hedgeDelayMs(), TimeUnit.MILLISECONDS));
+                }
+                return;
+            }
+        }
+
+        private void hedge() {
+            if (!result.isDone()) {
+                hedged = true;
+                launchNext();
+            }
+        }
+
+        private void call(Provider provider) {
+            outstanding.incrementAndGet();
+            long start = System.nanoTime();
+            CompletableFuture<TuningRecommendation> future;
+            try {
+                future = provider.advisor.recommend(poolName, history);
+            } catch (RuntimeException e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            future.orTimeout(callTimeoutMs, TimeUnit.MILLISECONDS).whenComplete((plan, e) -> {
+                long elapsed = System.nanoTime() - start;
+                boolean ok = e == null && valid(plan);
+                outstanding.decrementAndGet();
+                Timer.builder("threadpool.advisor.latency")
+                        .tag("provider", provider.advisor.name())
+                        .tag("outcome", ok ? "success" : "error")
+                        .description("Advisor call latency")
+                        .register(meterRegistry)
+                        .record(elapsed, TimeUnit.NANOSECONDS);
+                if (ok) {
+                    provider.breaker.onSuccess();
+                    provider.recordLatency(elapsed);
+                    if (complete(plan, false)) {
+                        decided(provider.advisor.name());
+                    }
+                } else {
+                    provider.breaker.onFailure(System.currentTimeMillis());
+                    log.warn("顾问[{}]未给出有效建议（pool={}）: {}", provider.advisor.name(), poolName,
+                            e != null ? e.toString() : plan);
+                    launchNext();
+                }
+            });
+        }
+
+        void fallback(String reason) {
+            if (!result.isDone() && complete(LlmStubAdvisor.plan(history), true)) {
+                log.warn("线程池[{}]{}，使用本地启发式规划", poolName, reason);
+                decided(HEURISTIC);
+            }
+        }
+
+        // 降级标记须在结果的回调（调度器据此决定是否缓存）执行前设置，与完成动作一起加锁
+        private synchronized boolean complete(TuningRecommendation plan, boolean degraded) {
+            if (result.isDone()) {
+                return false;
+            }
+            if (degraded) {
+                degradedPools.add(poolName);
+            } else {
+                degradedPools.remove(poolName);
+            }
+            return result.complete(plan);
+        }
+
+        private void decided(String provider) {
+            Counter.builder("threadpool.advisor.decision")
+                    .tag("provider", provider)
+                    .tag("hedged", String.valueOf(hedged))
+                    .description("Tuning decisions by the provider that answered first")
+                    .register(meterRegistry)
+                    .increment();
+        }
+    }
+
+    // 提供方：熔断器 + 最近成功调用的延迟
+    private final class Provider {
+        private final TuningAdvisor advisor;
+        private final CircuitBreaker breaker;
+        private final long[] latencies = new long[LATENCY_WINDOW];
+        private int count;
+
+        Provider(TuningAdvisor advisor, CircuitBreaker breaker) {
+            this.advisor = advisor;
+            this.breaker = breaker;
+        }
+
+        synchronized void recordLatency(long nanos) {
+            latencies[count++ % LATENCY_WINDOW] = nanos;
+        }
+
+        // 近期延迟的对冲分位数，裁剪到 [minDelayMs, budgetMs]；没有样本时使用默认值
+        long hedgeDelayMs() {
+            long[] sorted;
+            synchronized (this) {
+                sorted = Arrays.copyOf(latencies, Math.min(count, LATENCY_WINDOW));
+            }
+            long delay = defaultDelayMs;
+            if (sorted.length > 0) {
+                Arrays.sort(sorted);
+                int rank = (int) Math.ceil(sorted.length * hedgePercentile) - 1;
+                delay = TimeUnit.NANOSECONDS.toMillis(sorted[Math.max(0, rank)]);
+            }
+            return Math.max(minDelayMs, Math.min(delay, budgetMs));
+        }
+    }
+}
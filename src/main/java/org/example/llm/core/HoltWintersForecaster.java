@@ -0,0 +1,146 @@
+package org.example.llm.core;
+
+import java.util.Arrays;
+
+/**
+ * 加法 Holt-Winters 预测：水平 + 趋势 + 季节分量，按固定长度的时间桶在线更新
+ * <p>
+ * 季节下标取绝对桶号对季节长度取模，与时钟对齐（如1分钟桶、1440个桶即一天）。
+ * 第一个周期只记录原始值（预测为指数平均），满一个周期后以周期均值为水平、各桶相对均值的偏差为季节分量初始化。
+ */
+public class HoltWintersForecaster {
+    private final int seasonLength;
+    private final double alpha; // 水平平滑系数
+    private final double beta; // 趋势平滑系数
+    private final double gamma; // 季节平滑系数
+    private final double[] seasonal;
+    private double level;
+    private double trend;
+    private long lastBucket = -1;
+    private long updates;
+
+    public HoltWintersForecaster(int seasonLength, double alpha, double beta, double gamma) {
+        if (seasonLength <= 0) {
+            throw new IllegalArgumentException("季节长度必须大于0");
+        }
+        this.seasonLength = seasonLength;
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.seasonal = new double[seasonLength];
+        Arrays.fill(seasonal, Double.NaN);
+    }
+
+    /**
+     * 加入一个桶的观测值；早于最近一次更新的桶被忽略，中间缺失的桶按趋势外推跳过
+     */
+    public synchronized void update(long bucket, double value) {
+        if (bucket <= lastBucket) {
+            return;
+        }
+        int index = (int) Math.floorMod(bucket, (long) seasonLength);
+        if (updates < seasonLength) {
+            seasonal[index] = value;
+            level = lastBucket < 0 ? value : level + alpha * (value - level);
+            lastBucket = bucket;
+            if (++updates == seasonLength) {
+                initSeason();
+            }
+            return;
+        }
+        long steps = bucket - lastBucket;
+        double season = seasonal[index];
+        double previousLevel = level;
+        level = alpha * (value - season) + (1 - alpha) * (level + steps * trend);
+        trend = beta * (level - previousLevel) / steps + (1 - beta) * trend;
+        seasonal[index] = gamma * (value - level) + (1 - gamma) * season;
+        lastBucket = bucket;
+        updates++;
+    }
+
+    // 缺失的桶（如进程停止期间）偏差取0
+    private void initSeason() {
+        double sum = 0;
+        int count = 0;
+        for (double value : seasonal) {
+            if (!Double.isNaN(value)) {
+                sum += value;
+                count++;
+            }
+        }
+        double mean = sum / count;
+        for (int i = 0; i < seasonLength; i++) {
+            seasonal[i] = Double.isNaN(seasonal[i]) ? 0 : seasonal[i] - mean;
+        }
+        level = mean;
+        trend = 0;
+    }
+
+    /**
+     * 预测指定桶的值（不小于0）
+     */
+    public synchronized double forecast(long bucket) {
+        if (lastBucket < 0) {
+            return 0;
+        }
+        if (updates < seasonLength) {
+            return level;
+        }
+        int index = (int) Math.floorMod(bucket, (long) seasonLength);
+        return Math.max(0, level + (bucket - lastBucket) * trend + seasonal[index]);
+    }
+
+    /**
+     * [fromBucket, fromBucket + steps) 内的预测峰值
+     */
+    public synchronized double peak(long fromBucket, int steps) {
+        double peak = 0;
+        for (int i = 0; i < steps; i++) {
+            peak = Math.max(peak, forecast(fromBucket + i));
+        }
+        return peak;
+    }
+
+    /**
+     * 是否已观察满一个季节周期（季节分量可用）
+     */
+    public synchronized boolean seasonLearned() {
+        return updates >= seasonLength;
+    }
+
+    public synchronized long getLastBucket() {
+        return lastBucket;
+    }
+
+    public int getSeasonLength() {
+        return seasonLength;
+    }
+
+    /**
+     * 导出模型状态（用于持久化，重启后不必重新观察一个完整周期）
+     */
+    public synchronized State exportState() {
+        return new State(seasonLength, level, trend, lastBucket, updates, seasonal.clone());
+    }
+
+    /**
+     * 用导出的状态覆盖当前模型；季节长度不一致时拒绝
+     */
+    public synchronized void restore(State state) {
+        if (state.seasonLength() != seasonLength || state.seasonal().length != seasonLength) {
+            throw new IllegalArgumentException("季节长度不一致: " + state.seasonLength() + " != " + seasonLength);
+        }
+        System.arraycopy(state.seasonal(), 0, seasonal, 0, seasonLength);
+        level = state.level();
+        trend = state.trend();
+        lastBucket = state.lastBucket();
+        updates = state.updates();
+    }
+
+    /**
+     * 模型状态；第一个周期内未观察到的季节分量为NaN
+     */
+    public record State(int seasonLength, double level, double trend, long lastBucket, long updates,
+                        double[] seasonal) {
+    }
+}
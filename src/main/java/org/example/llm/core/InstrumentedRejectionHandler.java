@@ -0,0 +1,179 @@
+package org.example.llm.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 可计数的拒绝策略，按处理结果分别计数（由 ThreadPoolMetricsExporter 导出为 threadpool.rejected.tasks）
+ * <ul>
+ *     <li>ABORT：直接抛出 RejectedExecutionException</li>
+ *     <li>CALLER_RUNS：由提交线程执行以形成背压，超过每秒速率上限时改为拒绝，避免拖垮调用方</li>
+ *     <li>RETRY：在限定时间内等待队列出现空位后重新入队，超时拒绝</li>
+ *     <li>SPILL：放入有界溢出队列，线程池有空位时（任务结束后或采样周期）转回工作队列，溢出队列满时拒绝</li>
+ * </ul>
+ */
+@Slf4j
+public class InstrumentedRejectionHandler implements RejectedExecutionHandler {
+
+    public enum Policy {
+        ABORT,
+        CALLER_RUNS,
+        RETRY,
+        SPILL
+    }
+
+    public enum Outcome {
+        /** 最终被拒绝（抛出异常） */
+        ABORTED,
+        /** 由提交线程执行 */
+        CALLER_RAN,
+        /** 等待后重新入队成功 */
+        RETRIED,
+        /** 进入溢出队列 */
+        SPILLED
+    }
+
+    private final String poolName;
+    private final Policy policy;
+    private final int callerRunsPerSecond;
+    private final long retryTimeoutNanos;
+    private final LinkedBlockingDeque<Runnable> overflow;
+    private final LongAdder[] outcomes = new LongAdder[Outcome.values().length];
+    private final LongAdder drained = new LongAdder();
+    private final AtomicInteger pending = new AtomicInteger(); // 溢出队列长度，任务结束时无锁判断是否需要转移
+    // CALLER_RUNS 速率上限：当前秒序号与该秒已用次数
+    private final AtomicLong windowSecond = new AtomicLong();
+    private final AtomicLong windowCount = new AtomicLong();
+
+    /**
+     * @param callerRunsPerSecond CALLER_RUNS 每秒最多由调用方执行的任务数
+     * @param retryTimeoutMs      RETRY 等待队列空位的最长时间
+     * @param spillCapacity       SPILL 溢出队列容量
+     */
+    public InstrumentedRejectionHandler(String poolName, Policy policy, int callerRunsPerSecond,
+                                        long retryTimeoutMs, int spillCapacity) {
+        this.poolName = poolName;
+        this.policy = policy;
+        this.callerRunsPerSecond = callerRunsPerSecond;
+        this.retryTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(retryTimeoutMs);
+        this.overflow = policy == Policy.SPILL ? new LinkedBlockingDeque<>(spillCapacity) : null;
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            abort(r, executor, "线程池已关闭");
+        }
+        switch (policy) {
+            case CALLER_RUNS -> {
+                if (tryCallerRun()) {
+                    outcomes[Outcome.CALLER_RAN.ordinal()].increment();
+                    r.run();
+                    return;
+                }
+                abort(r, executor, "调用方执行超过速率上限");
+            }
+            case RETRY -> {
+                try {
+                    if (executor.getQueue().offer(r, retryTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                        outcomes[Outcome.RETRIED.ordinal()].increment();
+                        ensureWorker(executor);
+                        return;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                abort(r, executor, "等待队列空位超时");
+            }
+            case SPILL -> {
+                if (overflow.offerLast(r)) {
+                    pending.incrementAndGet();
+                    outcomes[Outcome.SPILLED.ordinal()].increment();
+                    // 入溢出队列期间可能已有空位
+                    drainTo(executor);
+                    return;
+                }
+                abort(r, executor, "溢出队列已满");
+            }
+            default -> abort(r, executor, "队列已满");
+        }
+    }
+
+    /**
+     * 把溢出队列中的任务按顺序转回工作队列，直到工作队列再次满；线程池关闭后仍会执行完已溢出的任务
+     */
+    public void drainTo(ThreadPoolExecutor executor) {
+        if (pending.get() == 0 || executor.isTerminated()) {
+            return;
+        }
+        BlockingQueue<Runnable> queue = executor.getQueue();
+        int moved = 0;
+        synchronized (overflow) {
+            Runnable task;
+            while ((task = overflow.peekFirst()) != null && queue.offer(task)) {
+                overflow.pollFirst();
+                pending.decrementAndGet();
+                moved++;
+            }
+        }
+        if (moved > 0) {
+            drained.add(moved);
+            ensureWorker(executor);
+        }
+    }
+
+    // 绕过 execute() 直接入队时，线程池可能没有线程来取任务
+    private static void ensureWorker(ThreadPoolExecutor executor) {
+        if (executor.getPoolSize() == 0) {
+            executor.prestartCoreThread();
+        }
+    }
+
+    private boolean tryCallerRun() {
+        long second = System.nanoTime() / 1_000_000_000L;
+        long current = windowSecond.get();
+        if (current != second && windowSecond.compareAndSet(current, second)) {
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() <= callerRunsPerSecond;
+    }
+
+    private void abort(Runnable r, ThreadPoolExecutor executor, String reason) {
+        outcomes[Outcome.ABORTED.ordinal()].increment();
+        log.warn("[Rejection] Pool: {} policy={} reason={} - Active: {}/{} Queue: {}",
+                poolName, policy, reason, executor.getActiveCount(), executor.getMaximumPoolSize(),
+                executor.getQueue().size());
+        throw new RejectedExecutionException("线程池[" + poolName + "]拒绝任务: " + reason);
+    }
+
+    public Policy getPolicy() {
+        return policy;
+    }
+
+    public long getCount(Outcome outcome) {
+        return outcomes[outcome.ordinal()].sum();
+    }
+
+    /**
+     * 已从溢出队列转回工作队列的任务数
+     */
+    public long getDrainedCount() {
+        return drained.sum();
+    }
+
+    public int getOverflowSize() {
+        return pending.get();
+    }
+}
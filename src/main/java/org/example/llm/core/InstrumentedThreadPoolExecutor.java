@@ -0,0 +1,338 @@
+package org.example.llm.core;
+
+import org.example.llm.entity.LatencyHistogram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 记录每个任务排队时间和执行时间的线程池
+ * <p>
+ * 提交时把任务包装为带入队时间戳的 {@link TimedTask}，在 beforeExecute 中记录排队时间，
+ * afterExecute 中记录执行时间；两者写入无分配的 {@link LatencyHistogram}。
+ * 同时维护正在执行的任务数和存活线程数，采样时无需调用加锁的 getActiveCount()/getPoolSize()。
+ * <p>
+ * 可挂载 {@link AdmissionController}：提交时先申请准入许可，超出自适应上限的任务直接交给拒绝策略（计入 shed），
+ * 任务结束或最终被拒绝时归还许可；拒绝策略把任务转入溢出队列或重新入队时许可随任务保留到执行结束。
+ * <p>
+ * 工作队列中保存的是包装后的任务：remove、purge 和 shutdownNow 按提交时的原任务处理，并归还未执行任务的许可。
+ */
+public class InstrumentedThreadPoolExecutor extends ThreadPoolExecutor {
+    private final LatencyHistogram waitHistogram = new LatencyHistogram();
+    private final LatencyHistogram runHistogram = new LatencyHistogram();
+    private final AtomicInteger running = new AtomicInteger();
+    private final LongAdder shed = new LongAdder();
+    private volatile AdmissionController admission;
+
+    public InstrumentedThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                                          BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue,
+                CountingThreadFactory.wrap(threadFactory, new AtomicInteger()));
+        setRejectedExecutionHandler(super.getRejectedExecutionHandler());
+    }
+
+    public InstrumentedThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime, TimeUnit unit,
+                                          BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory,
+                                          RejectedExecutionHandler handler) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit, workQueue,
+                CountingThreadFactory.wrap(threadFactory, new AtomicInteger()), handler);
+        setRejectedExecutionHandler(handler);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        TimedTask task = admit(command);
+        if (task != null) {
+            super.execute(task);
+        }
+    }
+
+    /**
+     * 包装任务并申请准入许可；超出并发上限时交给拒绝策略并返回null
+     */
+    TimedTask admit(Runnable command) {
+        TimedTask task = command instanceof TimedTask ? (TimedTask) command : new TimedTask(command);
+        AdmissionController controller = admission;
+        if (controller != null && task.admission == null) {
+            if (!controller.tryAcquire()) {
+                shed.increment();
+                rejectTask(task);
+                return null;
+            }
+            task.admission = controller;
+        }
+        return task;
+    }
+
+    /**
+     * 交给拒绝策略（策略最终拒绝时归还任务占用的准入许可）
+     */
+    void rejectTask(Runnable task) {
+        super.getRejectedExecutionHandler().rejectedExecution(task, this);
+    }
+
+    // 对外暴露用户配置的拒绝策略，内部始终包一层以便被拒绝的任务归还准入许可
+    @Override
+    public void setRejectedExecutionHandler(RejectedExecutionHandler handler) {
+        super.setRejectedExecutionHandler(handler instanceof AdmissionReleasingHandler
+                ? handler
+                : new AdmissionReleasingHandler(handler));
+    }
+
+    @Override
+    public RejectedExecutionHandler getRejectedExecutionHandler() {
+        return ((AdmissionReleasingHandler) super.getRejectedExecutionHandler()).delegate;
+    }
+
+    // 父类创建线程时调用 getThreadFactory()，因此包装后的工厂对外可见；复制到新线程池时会先解包
+    @Override
+    public void setThreadFactory(ThreadFactory threadFactory) {
+        super.setThreadFactory(CountingThreadFactory.wrap(threadFactory, counting().alive));
+    }
+
+    private CountingThreadFactory counting() {
+        return (CountingThreadFactory) super.getThreadFactory();
+    }
+
+    /**
+     * 挂载或移除（null）准入控制
+     */
+    public void setAdmission(AdmissionController admission) {
+        this.admission = admission;
+    }
+
+    public AdmissionController getAdmission() {
+        return admission;
+    }
+
+    /**
+     * 被准入控制提前拒绝的任务数
+     */
+    public long getShedCount() {
+        return shed.sum();
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
+        running.incrementAndGet();
+        if (r instanceof TimedTask) {
+            TimedTask task = (TimedTask) r;
+            task.startNanos = System.nanoTime();
+            waitHistogram.record(task.startNanos - task.enqueueNanos);
+        }
+    }
+
+    @Override
+    protected void afterExecute(Runnable r, Throwable t) {
+        if (r instanceof TimedTask) {
+            TimedTask task = (TimedTask) r;
+            long now = System.nanoTime();
+            runHistogram.record(now - task.startNanos);
+            task.release(now, false);
+        }
+        running.decrementAndGet();
+        // 有线程空出时把溢出队列中的任务转回工作队列
+        RejectedExecutionHandler handler = getRejectedExecutionHandler();
+        if (handler instanceof InstrumentedRejectionHandler) {
+            ((InstrumentedRejectionHandler) handler).drainTo(this);
+        }
+        super.afterExecute(r, t);
+    }
+
+    /**
+     * 按提交时的原任务（或其包装）移除排队中的任务，并归还其准入许可
+     */
+    @Override
+    public boolean remove(Runnable task) {
+        TimedTask queued = task instanceof TimedTask ? (TimedTask) task : findQueued(task);
+        if (queued == null || !super.remove(queued)) {
+            return false;
+        }
+        queued.discard();
+        return true;
+    }
+
+    // 父类只识别直接入队的 Future，这里解包后移除已取消的任务
+    @Override
+    public void purge() {
+        for (Runnable r : getQueue().toArray(new Runnable[0])) {
+            if (r instanceof TimedTask && ((TimedTask) r).delegate instanceof Future
+                    && ((Future<?>) ((TimedTask) r).delegate).isCancelled()) {
+                remove(r);
+            }
+        }
+        super.purge();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        return unwrap(super.shutdownNow());
+    }
+
+    private TimedTask findQueued(Runnable task) {
+        for (Runnable r : getQueue()) {
+            if (r instanceof TimedTask && ((TimedTask) r).delegate == task) {
+                return (TimedTask) r;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 把未执行的任务还原为提交时的原任务（调用方可能转型为 Future），并归还其准入许可
+     */
+    List<Runnable> unwrap(List<Runnable> tasks) {
+        List<Runnable> result = new ArrayList<>(tasks.size());
+        for (Runnable r : tasks) {
+            if (r instanceof TimedTask) {
+                TimedTask task = (TimedTask) r;
+                task.discard();
+                result.add(task.delegate);
+            } else {
+                result.add(r);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 计算本周期的百分位（由注册中心采样任务统一调用）
+     */
+    public void refreshHistograms() {
+        waitHistogram.refresh();
+        runHistogram.refresh();
+    }
+
+    /**
+     * 正在执行的任务数（无锁）
+     */
+    public int getRunningCount() {
+        return running.get();
+    }
+
+    /**
+     * 存活的工作线程数（无锁）；线程开始运行时计入、退出时扣除，与加锁的 getPoolSize() 只在线程启停的瞬间有差异
+     */
+    public int getThreadCount() {
+        return counting().alive.get();
+    }
+
+    public LatencyHistogram getWaitHistogram() {
+        return waitHistogram;
+    }
+
+    public LatencyHistogram getRunHistogram() {
+        return runHistogram;
+    }
+
+    /**
+     * 带入队时间戳的任务包装；startNanos 只由执行线程读写
+     */
+    static final class TimedTask implements Runnable {
+        final Runnable delegate;
+        final long enqueueNanos = System.nanoTime();
+        long startNanos;
+        AdmissionController admission; // 持有的准入许可，归还后置空
+        Thread runner; // 执行任务的线程，用于识别由拒绝策略在提交线程上执行的情况
+
+        void release(long nowNanos, boolean dropped) {
+            AdmissionController held = admission;
+            if (held != null) {
+                admission = null;
+                held.release(nowNanos - enqueueNanos, dropped);
+            }
+        }
+
+        // 任务未执行即被移除：只归还许可，不提交延迟样本
+        void discard() {
+            AdmissionController held = admission;
+            if (held != null) {
+                admission = null;
+                held.cancel();
+            }
+        }
+
+        TimedTask(Runnable delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void run() {
+            runner = Thread.currentThread();
+            delegate.run();
+        }
+    }
+
+    private static final class CountingThreadFactory implements ThreadFactory {
+        private final ThreadFactory delegate;
+        private final AtomicInteger alive;
+
+        private CountingThreadFactory(ThreadFactory delegate, AtomicInteger alive) {
+            this.delegate = delegate;
+            this.alive = alive;
+        }
+
+        static CountingThreadFactory wrap(ThreadFactory threadFactory, AtomicInteger alive) {
+            if (threadFactory == null) {
+                throw new NullPointerException();
+            }
+            ThreadFactory delegate = threadFactory instanceof CountingThreadFactory
+                    ? ((CountingThreadFactory) threadFactory).delegate
+                    : threadFactory;
+            return new CountingThreadFactory(delegate, alive);
+        }
+
+        @Override
+        public Thread newThread(Runnable worker) {
+            return delegate.newThread(() -> {
+                alive.incrementAndGet();
+                try {
+                    worker.run();
+                } finally {
+                    alive.decrementAndGet();
+                }
+            });
+        }
+    }
+
+    private static final class AdmissionReleasingHandler implements RejectedExecutionHandler {
+        private final RejectedExecutionHandler delegate;
+
+        AdmissionReleasingHandler(RejectedExecutionHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        // 只有真正丢弃的任务才作为过载信号；溢出或重新入队的任务仍持有许可，由 afterExecute 归还
+        @Override
+        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+            if (!(r instanceof TimedTask)) {
+                delegate.rejectedExecution(r, executor);
+                return;
+            }
+            TimedTask task = (TimedTask) r;
+            try {
+                delegate.rejectedExecution(r, executor);
+            } catch (RejectedExecutionException e) {
+                task.release(System.nanoTime(), true);
+                throw e;
+            }
+            // 由提交线程执行（CALLER_RUNS）时不会经过 afterExecute
+            if (task.runner == Thread.currentThread()) {
+                task.release(System.nanoTime(), false);
+            }
+        }
+    }
+}
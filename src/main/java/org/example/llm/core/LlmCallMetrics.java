@@ -0,0 +1,123 @@
+package org.example.llm.core;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LLM调用指标：调用次数、请求耗时、token消耗、批量大小、规划缓存与跳过次数
+ */
+@Component
+@RequiredArgsConstructor
+public class LlmCallMetrics {
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 记录一次LLM请求
+     *
+     * @param provider 提供方（deepseek/ollama）
+     * @param mode     single：单线程池请求；stream：单线程池流式请求；batch：多线程池批量请求
+     * @param format   提示词中采样数据的编码（verbose/columnar/summary）
+     */
+    public void recordCall(String provider, String mode, String format, long elapsedNanos, boolean success) {
+        Timer.builder("llm.request.latency")
+                .tag("provider", provider)
+                .tag("mode", mode)
+                .tag("format", format)
+                .tag("outcome", success ? "success" : "error")
+                .description("LLM request latency")
+                .register(meterRegistry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        Counter.builder("llm.calls")
+                .tag("provider", provider)
+                .tag("mode", mode)
+                .description("LLM calls issued")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    public void recordTokens(String provider, String mode, String format, long promptTokens, long completionTokens) {
+        if (promptTokens > 0) {
+            tokenCounter(provider, mode, format, "prompt").increment(promptTokens);
+        }
+        if (completionTokens > 0) {
+            tokenCounter(provider, mode, format, "completion").increment(completionTokens);
+        }
+    }
+
+    /**
+     * 流式请求的结束方式
+     *
+     * @param early true：建议完整后提前取消；false：读到流末尾
+     */
+    public void recordStreamEnd(String provider, boolean early) {
+        Counter.builder("llm.stream.completed")
+                .tag("provider", provider)
+                .tag("end", early ? "early" : "eof")
+                .description("Streaming LLM responses by how they ended")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 每个调优周期合并进一次请求的线程池数
+     */
+    public void recordBatchSize(int pools) {
+        DistributionSummary.builder("threadpool.tuning.batch.size")
+                .description("Pools tuned per LLM request")
+                .register(meterRegistry)
+                .record(pools);
+    }
+
+    /**
+     * 每个调优周期发出的LLM请求数
+     */
+    public void recordCallsPerTick(String mode, int calls) {
+        DistributionSummary.builder("threadpool.tuning.calls.per.tick")
+                .tag("mode", mode)
+                .description("LLM calls issued per tuning tick")
+                .register(meterRegistry)
+                .record(calls);
+    }
+
+    /**
+     * 规划缓存查询结果（命中率 = hit / (hit + miss)）
+     */
+    public void recordCacheLookup(String advisor, boolean hit) {
+        Counter.builder("threadpool.tuning.cache")
+                .tag("advisor", advisor)
+                .tag("result", hit ? "hit" : "miss")
+                .description("Recommendation cache lookups")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 未请求顾问的规划次数
+     *
+     * @param reason stable：负载稳定沿用当前护栏；cached：应用缓存的规划；follower：集群中由其他实例规划
+     */
+    public void recordSkipped(String advisor, String reason) {
+        Counter.builder("threadpool.tuning.skipped")
+                .tag("advisor", advisor)
+                .tag("reason", reason)
+                .description("Advisor calls skipped")
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Counter tokenCounter(String provider, String mode, String format, String type) {
+        return Counter.builder("llm.tokens")
+                .tag("provider", provider)
+                .tag("mode", mode)
+                .tag("format", format)
+                .tag("type", type)
+                .description("LLM token usage")
+                .register(meterRegistry);
+    }
+}
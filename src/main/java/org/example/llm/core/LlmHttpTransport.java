@@ -0,0 +1,294 @@
+package org.example.llm.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * LLM客户端共享的HTTP传输层
+ * <p>
+ * 基于JDK HttpClient：单实例复用连接（keep-alive / HTTP2多路复用），全程异步不占用调用线程；
+ * 按主机限制并发请求数，超出的请求排队等待，而不是阻塞线程。
+ * <p>
+ * 请求以调用方的预算为总超时；返回的 future 一旦完成（超时或被调用方取消），仍在排队的请求不再发出，
+ * 已发出的请求被中止并立即归还许可，不会占着许可等到服务端返回。
+ */
+@Component
+public class LlmHttpTransport {
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+    private static final int MAX_REQUESTS_PER_HOST = 16; // 每个主机的最大并发请求数
+    private static final Logger logger = LoggerFactory.getLogger(LlmHttpTransport.class);
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(CONNECT_TIMEOUT)
+            .build();
+    private final Map<String, HostLimiter> hostLimiters = new ConcurrentHashMap<>();
+    private long streamIdleTimeoutMs = 15_000;
+
+    /**
+     * 流式响应收到响应头之后，两行之间允许的最长间隔；请求超时只覆盖到响应头，
+     * 服务端发出响应头后停止输出时由它结束请求并归还许可
+     */
+    @Value("${threadpool.llm.stream-idle-timeout-ms:15000}")
+    public void setStreamIdleTimeoutMs(long streamIdleTimeoutMs) {
+        if (streamIdleTimeoutMs <= 0) {
+            throw new IllegalArgumentException("stream-idle-timeout-ms 必须大于0");
+        }
+        this.streamIdleTimeoutMs = streamIdleTimeoutMs;
+    }
+
+    /**
+     * 异步POST JSON，返回响应体；非2xx状态码以异常结束（总超时为 {@link #REQUEST_TIMEOUT}）
+     */
+    public CompletableFuture<String> postJson(String url, Map<String, String> headers, String body) {
+        return postJson(url, headers, body, REQUEST_TIMEOUT);
+    }
+
+    /**
+     * 异步POST JSON，返回响应体；非2xx状态码以异常结束
+     *
+     * @param timeout 调用方的总预算（含排队等待许可的时间），到期以 TimeoutException 结束并中止请求；
+     *                HttpRequest 自身的超时只作为兜底
+     */
+    public CompletableFuture<String> postJson(String url, Map<String, String> headers, String body, Duration timeout) {
+        URI uri = URI.create(url);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+        headers.forEach(builder::header);
+        HttpRequest request = builder.build();
+
+        HostLimiter limiter = hostLimiters.computeIfAbsent(uri.getAuthority(), h -> new HostLimiter());
+        CompletableFuture<String> result = new CompletableFuture<>();
+        limiter.submit(result, () -> {
+            try {
+                CompletableFuture<HttpResponse<String>> send =
+                        httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString(StandardCharsets.UTF_8));
+                send.whenComplete((response, ex) -> {
+                    if (ex != null) {
+                        result.completeExceptionally(ex);
+                    } else if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                        logger.error("API请求失败: {} - {}", response.statusCode(), response.body());
+                        result.completeExceptionally(new RuntimeException(
+                                "API Error " + response.statusCode() + ": " + response.body()));
+                    } else {
+                        result.complete(response.body());
+                    }
+                });
+                abortWhenDone(result, send, limiter);
+            } catch (RuntimeException e) {
+                limiter.release();
+                result.completeExceptionally(e);
+            }
+        });
+        return result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 逐行读取的流式响应（SSE / NDJSON）
+     */
+    @FunctionalInterface
+    public interface LineListener {
+        /**
+         * @return true 表示已拿到所需内容，停止读取并取消请求
+         */
+        boolean onLine(String line);
+    }
+
+    /**
+     * 异步POST JSON并逐行回调响应体（总超时为 {@link #REQUEST_TIMEOUT}）
+     */
+    public CompletableFuture<Boolean> postJsonStream(String url, Map<String, String> headers, String body,
+                                                     LineListener listener) {
+        return postJsonStream(url, headers, body, listener, REQUEST_TIMEOUT);
+    }
+
+    /**
+     * 异步POST JSON并逐行回调响应体；监听器返回 true 时立即取消请求，不再等待剩余内容
+     *
+     * @param timeout 调用方的总预算（含排队等待许可和读取响应的时间），到期以 TimeoutException 结束
+     * @return 是否提前停止；非2xx状态码、监听器抛出异常或超过 stream-idle-timeout-ms 没有新行时以异常结束
+     */
+    public CompletableFuture<Boolean> postJsonStream(String url, Map<String, String> headers, String body,
+                                                     LineListener listener, Duration timeout) {
+        URI uri = URI.create(url);
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream, application/x-ndjson")
+                .POST(HttpRequest.BodyPublishers.ofString(body, StandardCharsets.UTF_8));
+        headers.forEach(builder::header);
+        HttpRequest request = builder.build();
+
+        HostLimiter limiter = hostLimiters.computeIfAbsent(uri.getAuthority(), h -> new HostLimiter());
+        CompletableFuture<Boolean> result = new CompletableFuture<>();
+        LineSubscriber subscriber = new LineSubscriber(listener, result, streamIdleTimeoutMs);
+        limiter.submit(result, () -> {
+            try {
+                CompletableFuture<HttpResponse<String>> send = httpClient.sendAsync(request,
+                        info -> info.statusCode() >= 200 && info.statusCode() < 300
+                                ? HttpResponse.BodySubscribers.fromLineSubscriber(subscriber, s -> null,
+                                        StandardCharsets.UTF_8, null)
+                                : HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8));
+                send.whenComplete((response, ex) -> {
+                    if (ex != null) {
+                        result.completeExceptionally(ex);
+                    } else if (response.statusCode() < 200 || response.statusCode() >= 300) {
+                        logger.error("API请求失败: {} - {}", response.statusCode(), response.body());
+                        result.completeExceptionally(new RuntimeException(
+                                "API Error " + response.statusCode() + ": " + response.body()));
+                    } else {
+                        result.complete(false);
+                    }
+                });
+                abortWhenDone(result, send, limiter);
+            } catch (RuntimeException e) {
+                limiter.release();
+                result.completeExceptionally(e);
+            }
+        });
+        return result.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // 结果先完成（提前停止、超时或被调用方取消）时中止仍在进行的请求；许可随结果完成归还，只归还一次
+    private static void abortWhenDone(CompletableFuture<?> result, CompletableFuture<?> send, HostLimiter limiter) {
+        result.whenComplete((value, ex) -> {
+            send.cancel(true);
+            limiter.release();
+        });
+    }
+
+    // 逐行转交监听器，监听器要求停止或两行间隔超时时取消订阅（HttpClient随之中止请求）
+    private static final class LineSubscriber implements Flow.Subscriber<String> {
+        private final LineListener listener;
+        private final CompletableFuture<Boolean> result;
+        private final long idleTimeoutMs;
+        private volatile Flow.Subscription subscription;
+        private volatile long lastLineNanos;
+
+        LineSubscriber(LineListener listener, CompletableFuture<Boolean> result, long idleTimeoutMs) {
+            this.listener = listener;
+            this.result = result;
+            this.idleTimeoutMs = idleTimeoutMs;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            lastLineNanos = System.nanoTime();
+            scheduleIdleCheck(idleTimeoutMs);
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        // 只在到期时检查最近一行的时间，每行不必重新注册定时任务
+        private void scheduleIdleCheck(long delayMs) {
+            CompletableFuture.delayedExecutor(delayMs, TimeUnit.MILLISECONDS).execute(() -> {
+                if (result.isDone()) {
+                    return;
+                }
+                long idleMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastLineNanos);
+                if (idleMs < idleTimeoutMs) {
+                    scheduleIdleCheck(idleTimeoutMs - idleMs);
+                    return;
+                }
+                result.completeExceptionally(new TimeoutException("流式响应超过" + idleTimeoutMs + "毫秒没有新数据"));
+                subscription.cancel();
+            });
+        }
+
+        @Override
+        public void onNext(String line) {
+            lastLineNanos = System.nanoTime();
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                if (listener.onLine(line)) {
+                    result.complete(true);
+                    subscription.cancel();
+                }
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+                subscription.cancel();
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(false);
+        }
+    }
+
+    /**
+     * 当前排队等待发送的请求数（所有主机）
+     */
+    public int pendingRequests() {
+        return hostLimiters.values().stream().mapToInt(l -> l.pending.size()).sum();
+    }
+
+    // 非阻塞的按主机并发限制：获取不到许可的请求进入队列，释放许可时依次发出；排队期间结果已完成的请求不再发出
+    private static class HostLimiter {
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final ConcurrentLinkedQueue<Pending> pending = new ConcurrentLinkedQueue<>();
+
+        void submit(CompletableFuture<?> result, Runnable send) {
+            Pending request = new Pending(result, send);
+            pending.add(request);
+            result.whenComplete((value, ex) -> pending.remove(request));
+            drain();
+        }
+
+        void release() {
+            inFlight.decrementAndGet();
+            drain();
+        }
+
+        private void drain() {
+            for (;;) {
+                int current = inFlight.get();
+                if (current >= MAX_REQUESTS_PER_HOST) {
+                    return;
+                }
+                if (!inFlight.compareAndSet(current, current + 1)) {
+                    continue;
+                }
+                Pending next = pending.poll();
+                if (next == null || next.result().isDone()) {
+                    inFlight.decrementAndGet();
+                    // 归还许可后若又有请求入队，继续尝试
+                    if (next == null && pending.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                next.send().run();
+            }
+        }
+    }
+
+    private record Pending(CompletableFuture<?> result, Runnable send) {
+    }
+}
@@ -0,0 +1,65 @@
+package org.example.llm.core;
+
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.TuningRecommendation;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模拟LLM顾问：不访问网络，按整个历史窗口给出粗粒度规划，并在固定延迟后返回
+ * <p>
+ * 用于负载回放，在不依赖外部模型的情况下复现“慢而全局”的规划行为，结果可重复。
+ */
+@Component
+public class LlmStubAdvisor implements TuningAdvisor {
+    public static final String NAME = "llm-stub";
+    private static final double CORE_HEADROOM = 1.2; // 峰值活跃线程数的余量
+    private static final double QUEUE_GROW_UTILIZATION = 0.5; // 平均队列使用率超过该值时扩大队列
+
+    @Value("${threadpool.llm-stub.latency-ms:1500}")
+    private long latencyMs;
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public boolean remote() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<TuningRecommendation> recommend(String poolName, PoolSampleHistory.Window history) {
+        if (history == null || history.isEmpty()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("线程池暂无采样数据: " + poolName));
+        }
+        TuningRecommendation plan = plan(history);
+        return CompletableFuture.supplyAsync(() -> plan,
+                CompletableFuture.delayedExecutor(latencyMs, TimeUnit.MILLISECONDS));
+    }
+
+    static TuningRecommendation plan(PoolSampleHistory.Window history) {
+        int peakActive = 0;
+        double utilization = 0;
+        for (int i = 0; i < history.getSize(); i++) {
+            peakActive = Math.max(peakActive, history.getActiveThreads()[i]);
+            utilization += history.getQueueUtilization()[i];
+        }
+        utilization /= history.getSize();
+        int last = history.last();
+        int core = (int) Math.ceil(peakActive * CORE_HEADROOM);
+        if (utilization > QUEUE_GROW_UTILIZATION) {
+            core = Math.max(core, history.getCurrentCore()[last] + 1);
+        }
+        core = Math.max(history.getConfigMinCore()[last], Math.min(core, history.getConfigMaxCore()[last]));
+        int max = Math.min(history.getConfigMaxCore()[last], core + (core + 1) / 2);
+        int queue = utilization > QUEUE_GROW_UTILIZATION
+                ? Math.min(history.getConfigMaxQueue()[last], history.getQueueCapacity()[last] * 2)
+                : -1;
+        return new TuningRecommendation(core, max, queue);
+    }
+}
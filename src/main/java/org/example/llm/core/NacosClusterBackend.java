@@ -0,0 +1,169 @@
+package org.example.llm.core;
+
+import com.alibaba.nacos.api.config.ConfigService;
+import com.alibaba.nacos.api.config.listener.AbstractListener;
+import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.NamingService;
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 基于 Nacos 的集群后端
+ * <ul>
+ *     <li>成员：注册中心中本服务的健康实例（ip:port），选主用 {@link ClusterBackend#rendezvous} 哈希，各实例独立计算得到相同结果，无需额外的锁</li>
+ *     <li>报告：每个实例一个配置 {@code <服务名>-threadpool-report-<实例>.json}</li>
+ *     <li>规划：每个线程池一个配置 {@code <服务名>-threadpool-plan-<线程池>.json}，各实例通过配置监听器接收，推送延迟为秒级</li>
+ * </ul>
+ * 实例下线后注册中心摘除它，它负责的线程池在下一个慢速周期由新的主节点接管。
+ */
+@Slf4j
+public class NacosClusterBackend implements ClusterBackend {
+    private static final long READ_TIMEOUT_MS = 3000;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final NamingService namingService;
+    private final ConfigService configService;
+    private final String serviceName;
+    private final String group;
+    private final String instanceId;
+    private final long staleMs;
+    private final Map<String, List<AbstractListener>> listeners = new ConcurrentHashMap<>();
+
+    public NacosClusterBackend(NamingService namingService, ConfigService configService,
+                               String serviceName, String group, String instanceId, long staleMs) {
+        this.namingService = namingService;
+        this.configService = configService;
+        this.serviceName = serviceName;
+        this.group = group;
+        this.instanceId = instanceId;
+        this.staleMs = staleMs;
+    }
+
+    @Override
+    public String instanceId() {
+        return instanceId;
+    }
+
+    @Override
+    public boolean isLeader(String poolName) {
+        return instanceId.equals(ClusterBackend.rendezvous(poolName, members()));
+    }
+
+    // 健康实例（含本实例：注册尚未完成或注册中心暂不可用时按单实例处理）
+    private Collection<String> members() {
+        TreeSet<String> members = new TreeSet<>();
+        members.add(instanceId);
+        try {
+            for (Instance instance : namingService.selectInstances(serviceName, group, true)) {
+                members.add(instance.getIp() + ":" + instance.getPort());
+            }
+        } catch (NacosException e) {
+            log.warn("查询服务[{}]实例失败，按单实例处理: {}", serviceName, e.getErrMsg());
+        }
+        return members;
+    }
+
+    @Override
+    public void publishReport(Report report) {
+        publish(reportDataId(instanceId), report);
+    }
+
+    @Override
+    public List<Report> peerReports() {
+        List<Report> result = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (String member : members()) {
+            if (member.equals(instanceId)) {
+                continue;
+            }
+            Report report = read(reportDataId(member), Report.class);
+            if (report != null && now - report.timestamp() <= staleMs) {
+                result.add(report);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void publishPlan(Plan plan) {
+        publish(planDataId(plan.poolName()), plan);
+    }
+
+    @Override
+    public void subscribe(String poolName, Consumer<Plan> listener) {
+        String dataId = planDataId(poolName);
+        AbstractListener nacosListener = new AbstractListener() {
+            @Override
+            public void receiveConfigInfo(String content) {
+                Plan plan = parse(dataId, content, Plan.class);
+                if (plan != null) {
+                    listener.accept(plan);
+                }
+            }
+        };
+        try {
+            String current = configService.getConfigAndSignListener(dataId, group, READ_TIMEOUT_MS, nacosListener);
+            listeners.computeIfAbsent(dataId, k -> new ArrayList<>()).add(nacosListener);
+            Plan plan = parse(dataId, current, Plan.class);
+            if (plan != null) {
+                listener.accept(plan);
+            }
+        } catch (NacosException e) {
+            throw new IllegalStateException("订阅集群规划失败: " + dataId + " (" + e.getErrMsg() + ")", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        listeners.forEach((dataId, list) -> list.forEach(l -> configService.removeListener(dataId, group, l)));
+        listeners.clear();
+    }
+
+    private void publish(String dataId, Object value) {
+        try {
+            if (!configService.publishConfig(dataId, group, objectMapper.writeValueAsString(value), "json")) {
+                log.warn("发布集群配置失败: {}", dataId);
+            }
+        } catch (IOException | NacosException e) {
+            log.warn("发布集群配置失败: {} ({})", dataId, e.getMessage());
+        }
+    }
+
+    private <T> T read(String dataId, Class<T> type) {
+        try {
+            return parse(dataId, configService.getConfig(dataId, group, READ_TIMEOUT_MS), type);
+        } catch (NacosException e) {
+            log.warn("读取集群配置失败: {} ({})", dataId, e.getErrMsg());
+            return null;
+        }
+    }
+
+    private <T> T parse(String dataId, String content, Class<T> type) {
+        if (content == null || content.isBlank()) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(content, type);
+        } catch (IOException e) {
+            log.warn("解析集群配置失败: {} ({})", dataId, e.getMessage());
+            return null;
+        }
+    }
+
+    private String reportDataId(String instance) {
+        return serviceName + "-threadpool-report-" + instance.replace(':', '_') + ".json";
+    }
+
+    private String planDataId(String poolName) {
+        return serviceName + "-threadpool-plan-" + poolName + ".json";
+    }
+}
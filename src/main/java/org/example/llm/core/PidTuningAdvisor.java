@@ -0,0 +1,99 @@
+package org.example.llm.core;
+
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.TuningRecommendation;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 本地PID调优顾问：不访问网络，基于最近一次采样在微秒级给出建议
+ * <p>
+ * 误差：队列使用率超过目标时取超出部分（线程不足）；队列未积压而空闲率超过目标时取空闲超出部分的负值（线程过剩）；
+ * 两者之间为死区，误差为0且积分项逐步衰减。控制量按配置最大线程数换算为核心线程数的增减量，积分项做限幅防止饱和。
+ */
+@Component
+public class PidTuningAdvisor implements TuningAdvisor {
+    public static final String NAME = "pid";
+
+    static final double TARGET_UTILIZATION = 0.2; // 队列使用率上限目标
+    static final double TARGET_IDLE = 0.3; // 可接受的线程空闲率
+    static final double IDLE_WEIGHT = 0.5; // 空闲惩罚权重
+    static final double KP = 0.6;
+    static final double KI = 0.1;
+    static final double KD = 0.05;
+    private static final double INTEGRAL_LIMIT = 2.0; // 积分限幅（抗饱和）
+    private static final double INTEGRAL_DECAY = 0.8; // 死区内积分衰减系数
+    private static final double MAX_HEADROOM = 0.5; // 最大线程数相对核心线程数的余量
+
+    private final Map<String, PidState> states = new ConcurrentHashMap<>();
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    // 只看最新状态，由注册中心提供实时采样
+    @Override
+    public int historySize() {
+        return 1;
+    }
+
+    @Override
+    public CompletableFuture<TuningRecommendation> recommend(String poolName, PoolSampleHistory.Window history) {
+        if (history == null || history.isEmpty()) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException("线程池暂无采样数据: " + poolName));
+        }
+        return CompletableFuture.completedFuture(
+                states.computeIfAbsent(poolName, k -> new PidState()).update(history));
+    }
+
+    /**
+     * 误差信号：正值表示线程不足，负值表示线程过剩
+     */
+    static double error(double queueUtilization, double idleRatio) {
+        if (queueUtilization > TARGET_UTILIZATION) {
+            return queueUtilization - TARGET_UTILIZATION;
+        }
+        if (queueUtilization == 0.0 && idleRatio > TARGET_IDLE) {
+            return -IDLE_WEIGHT * (idleRatio - TARGET_IDLE);
+        }
+        return 0.0;
+    }
+
+    // 单个线程池的控制器状态；同一线程池的调优由调度器串行触发，这里只防御偶发并发
+    private static final class PidState {
+        private double integral;
+        private double lastError;
+        private long lastTimestamp;
+
+        synchronized TuningRecommendation update(PoolSampleHistory.Window history) {
+            int last = history.last();
+            long timestamp = history.getTimestamps()[last];
+            int minCore = history.getConfigMinCore()[last];
+            int maxCore = history.getConfigMaxCore()[last];
+            int currentCore = history.getCurrentCore()[last];
+
+            double e = error(history.getQueueUtilization()[last], history.getIdleRatio()[last]);
+            double dt = lastTimestamp > 0 && timestamp > lastTimestamp ? (timestamp - lastTimestamp) / 1000.0 : 0.0;
+            double derivative = 0.0;
+            if (dt > 0) {
+                integral = e == 0.0 ? integral * INTEGRAL_DECAY
+                        : Math.max(-INTEGRAL_LIMIT, Math.min(INTEGRAL_LIMIT, integral + e * dt));
+                derivative = (e - lastError) / dt;
+            }
+            lastError = e;
+            if (timestamp > lastTimestamp) {
+                lastTimestamp = timestamp;
+            }
+
+            double output = KP * e + KI * integral + KD * derivative;
+            int delta = (int) Math.round(output * maxCore);
+            int core = Math.max(minCore, Math.min(maxCore, currentCore + delta));
+            int max = Math.min(maxCore, core + (int) Math.ceil(core * MAX_HEADROOM));
+            return TuningRecommendation.of(core, Math.max(core, max));
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package org.example.llm.core;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.llm.config.ThreadPoolProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.bind.BindException;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 线程池配置热更新：启动完成及 Nacos 推送配置（EnvironmentChangeEvent）后，把 threadpool.pools.* 应用到运行中的线程池
+ * <p>
+ * 每次都从 Environment 重新绑定完整配置，先整体校验（线程池存在、范围有效、顾问存在、周期大于0），
+ * 任一项无效则整次更新不生效并保留当前配置；通过后在注册中心锁内一次替换所有范围并重新裁剪线程池参数，
+ * 再切换顾问、调整周期。同一线程池的范围、顾问和周期同时变化时合并为一次调优重启（每次重启都会清除变化检测并立即重新规划）。
+ * 事件在刷新线程上同步处理，推送后立即作用到执行器。
+ */
+@Slf4j
+@Component
+public class PoolConfigRefresher {
+    private static final String POOLS_PREFIX = ThreadPoolProperties.PREFIX + ".pools";
+
+    private final ThreadPoolRegistry registry;
+    private final ThreadPoolTuningScheduler scheduler;
+    private final Environment environment;
+    private Map<String, ThreadPoolProperties.Pool> applied = Map.of(); // 已生效的配置（键为注册的线程池名）
+
+    public PoolConfigRefresher(ThreadPoolRegistry registry, ThreadPoolTuningScheduler scheduler,
+                               Environment environment) {
+        this.registry = registry;
+        this.scheduler = scheduler;
+        this.environment = environment;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        refresh();
+    }
+
+    @EventListener
+    public void onEnvironmentChange(EnvironmentChangeEvent event) {
+        if (event.getKeys().stream().anyMatch(key -> key.startsWith(POOLS_PREFIX))) {
+            refresh();
+        }
+    }
+
+    /**
+     * 重新绑定并应用线程池配置
+     *
+     * @return 是否生效（配置无效时为 false，当前配置保持不变）
+     */
+    public synchronized boolean refresh() {
+        Map<String, ThreadPoolProperties.Pool> candidate;
+        try {
+            ThreadPoolProperties properties = Binder.get(environment)
+                    .bind(ThreadPoolProperties.PREFIX, ThreadPoolProperties.class)
+                    .orElseGet(ThreadPoolProperties::new);
+            candidate = resolvePoolNames(properties.getPools());
+        } catch (BindException | IllegalArgumentException e) {
+            log.error("线程池配置无效，本次更新不生效: {}", rootMessage(e));
+            return false;
+        }
+
+        // 整体校验：先算出所有线程池的生效范围，构造失败即拒绝
+        Map<String, ThreadPoolRegistry.Bounds> bounds = new LinkedHashMap<>();
+        List<String> errors = new ArrayList<>();
+        registry.forEachPool((poolName, meta) -> {
+            ThreadPoolProperties.Pool pool = candidate.get(poolName);
+            try {
+                bounds.put(poolName, effectiveBounds(registry.getDeclaredBounds(poolName), pool));
+            } catch (IllegalArgumentException e) {
+                errors.add(poolName + ": " + e.getMessage());
+            }
+            if (pool == null) {
+                return;
+            }
+            if (pool.getAdvisor() != null && !registry.getAdvisorNames().contains(pool.getAdvisor())) {
+                errors.add(poolName + ": 未找到调优顾问 " + pool.getAdvisor());
+            }
+            if ((pool.getInnerIntervalMs() != null && pool.getInnerIntervalMs() <= 0)
+                    || (pool.getOuterIntervalMs() != null && pool.getOuterIntervalMs() <= 0)) {
+                errors.add(poolName + ": 调优周期必须大于0");
+            }
+        });
+        if (!errors.isEmpty()) {
+            log.error("线程池配置无效，本次更新不生效: {}", errors);
+            return false;
+        }
+
+        List<String> changed = registry.updateBounds(bounds);
+        changed.forEach(scheduler::resetBand);
+        Set<String> restart = new LinkedHashSet<>(changed);
+        bounds.keySet().forEach(poolName -> {
+            if (applyStrategy(poolName, applied.get(poolName), candidate.get(poolName))) {
+                restart.add(poolName);
+            }
+        });
+        restart.forEach(scheduler::onAdvisorChanged);
+        applied = candidate;
+        log.info("线程池配置已应用: 覆盖{}个线程池，范围变化{}", candidate.keySet(), changed);
+        return true;
+    }
+
+    private static ThreadPoolRegistry.Bounds effectiveBounds(ThreadPoolRegistry.Bounds declared,
+                                                              ThreadPoolProperties.Pool pool) {
+        if (pool == null) {
+            return declared;
+        }
+        return new ThreadPoolRegistry.Bounds(
+                Objects.requireNonNullElse(pool.getMinCore(), declared.minCore()),
+                Objects.requireNonNullElse(pool.getMaxCore(), declared.maxCore()),
+                Objects.requireNonNullElse(pool.getMinQueueSize(), declared.minQueueSize()),
+                Objects.requireNonNullElse(pool.getMaxQueueSize(), declared.maxQueueSize()));
+    }
+
+    // 顾问和周期只在配置项本身变化时处理，不覆盖通过接口做的运行时切换；删除配置项时恢复注解值/全局周期
+    // 返回是否需要重启调优
+    private boolean applyStrategy(String poolName, ThreadPoolProperties.Pool before, ThreadPoolProperties.Pool after) {
+        String oldAdvisor = before != null ? before.getAdvisor() : null;
+        String newAdvisor = after != null ? after.getAdvisor() : null;
+        boolean advisorChanged = !Objects.equals(oldAdvisor, newAdvisor);
+        if (advisorChanged) {
+            registry.setAdvisor(poolName, newAdvisor != null ? newAdvisor : registry.getDeclaredAdvisor(poolName));
+        }
+        Long innerMs = after != null ? after.getInnerIntervalMs() : null;
+        Long outerMs = after != null ? after.getOuterIntervalMs() : null;
+        boolean cadenceChanged = scheduler.updateCadence(poolName, innerMs, outerMs);
+        return advisorChanged || cadenceChanged;
+    }
+
+    // 配置键经宽松绑定后大小写、连字符可能与注册名不同，按忽略大小写和分隔符匹配已注册的线程池
+    private Map<String, ThreadPoolProperties.Pool> resolvePoolNames(Map<String, ThreadPoolProperties.Pool> pools) {
+        Map<String, String> registered = new LinkedHashMap<>();
+        registry.forEachPool((poolName, meta) -> registered.put(normalize(poolName), poolName));
+        Map<String, ThreadPoolProperties.Pool> resolved = new LinkedHashMap<>();
+        pools.forEach((key, pool) -> {
+            String poolName = registered.get(normalize(key));
+            if (poolName == null) {
+                throw new IllegalArgumentException("未找到线程池: " + key);
+            }
+            resolved.put(poolName, pool);
+        });
+        return resolved;
+    }
+
+    private static String normalize(String name) {
+        return name.replaceAll("[^A-Za-z0-9]", "").toLowerCase(Locale.ROOT);
+    }
+
+    private static String rootMessage(Throwable e) {
+        while (e.getCause() != null) {
+            e = e.getCause();
+        }
+        return e.getMessage();
+    }
+}
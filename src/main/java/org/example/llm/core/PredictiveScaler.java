@@ -0,0 +1,335 @@
+package org.example.llm.core;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 预测性预扩容：按时间桶汇总每个线程池的线程需求（活跃线程数 + 积压折算的线程数，见 {@link ThreadPoolRegistry#threadDemand}），
+ * 用 Holt-Winters 学习日内季节性，在预测峰值到来前 lead-seconds 通过 ThreadPoolRegistry.adjust 提前扩容，并在峰值过去前阻止快速环缩容
+ * <p>
+ * 模型状态定期（及关闭时）写入 state-file，启动时先恢复保存的模型，再用采样环形文件中更新的历史补齐，
+ * 频繁发布的服务不必每次重新观察一个完整周期；季节分量学满一个周期后才开始预扩容。
+ * 调优已停止的线程池（手动停止、静态配置压测、回放的 static 策略）只学习不扩容。
+ * 预测精度以 lead-seconds 前给出的预测与实际值的 MAPE（指数平均）导出为 threadpool.forecast.mape。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "threadpool.forecast", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class PredictiveScaler {
+    private static final double ALPHA = 0.3;
+    private static final double BETA = 0.05;
+    private static final double GAMMA = 0.2;
+    private static final double MAPE_SMOOTHING = 0.1;
+    private static final double MAX_HEADROOM = 0.5; // 最大线程数相对核心线程数的余量
+    private static final int MAGIC = 0x54504643; // "TPFC"
+    private static final int VERSION = 1;
+
+    private final ThreadPoolRegistry registry;
+    private final ThreadPoolSampleStore sampleStore;
+    private final ThreadPoolTuningScheduler tuningScheduler;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, PoolForecast> forecasts = new ConcurrentHashMap<>();
+    private volatile Map<String, HoltWintersForecaster.State> savedStates;
+
+    @Value("${threadpool.forecast.bucket-seconds:60}")
+    private long bucketSeconds;
+    @Value("${threadpool.forecast.season-buckets:1440}")
+    private int seasonBuckets;
+    @Value("${threadpool.forecast.lead-seconds:300}")
+    private long leadSeconds;
+    @Value("${threadpool.forecast.headroom:1.2}")
+    private double headroom;
+    @Value("${threadpool.forecast.state-file:logs/threadpool/forecast.bin}")
+    private String stateFile;
+    @Value("${threadpool.forecast.state-max-age-ms:604800000}")
+    private long stateMaxAgeMs;
+
+    @Scheduled(fixedRateString = "${threadpool.forecast.sample-interval-ms:5000}")
+    public void sample() {
+        long now = System.currentTimeMillis();
+        long bucket = now / (bucketSeconds * 1000);
+        registry.forEachPool((poolName, meta) -> {
+            try {
+                PoolForecast forecast = forecasts.computeIfAbsent(poolName, this::bootstrap);
+                int load = ThreadPoolRegistry.threadDemand(meta.snapshot().getActiveCount(),
+                        meta.snapshot().getQueueUtilization(), meta.snapshot().getMaximumPoolSize());
+                double closed = forecast.accumulate(bucket, load);
+                if (!Double.isNaN(closed)) {
+                    onBucketClosed(poolName, meta, forecast, forecast.closedBucket, closed, now);
+                }
+            } catch (Exception e) {
+                log.error("线程池[{}]负载预测失败: {}", poolName, e.getMessage(), e);
+            }
+        });
+    }
+
+    public HoltWintersForecaster getForecaster(String poolName) {
+        PoolForecast forecast = forecasts.get(poolName);
+        return forecast != null ? forecast.model : null;
+    }
+
+    private int leadSteps() {
+        return (int) Math.max(1, leadSeconds / bucketSeconds);
+    }
+
+    /**
+     * 把所有线程池的模型状态写入 state-file；本次未创建模型的线程池保留原记录
+     */
+    @Scheduled(fixedRateString = "${threadpool.forecast.save-ms:60000}", initialDelayString = "${threadpool.forecast.save-ms:60000}")
+    public void save() {
+        Map<String, HoltWintersForecaster.State> states = new LinkedHashMap<>(savedStates());
+        forecasts.forEach((poolName, forecast) -> states.put(poolName, forecast.model.exportState()));
+        long nowBucket = System.currentTimeMillis() / (bucketSeconds * 1000);
+        states.values().removeIf(state -> (nowBucket - state.lastBucket()) * bucketSeconds * 1000 > stateMaxAgeMs);
+        if (states.isEmpty()) {
+            return;
+        }
+        try {
+            write(Paths.get(stateFile), bucketSeconds * 1000, states);
+        } catch (IOException e) {
+            log.error("负载预测模型保存失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void saveOnShutdown() {
+        save();
+    }
+
+    public static void write(Path path, long bucketMillis, Map<String, HoltWintersForecaster.State> states)
+            throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(bucketMillis);
+            out.writeInt(states.size());
+            for (Map.Entry<String, HoltWintersForecaster.State> entry : states.entrySet()) {
+                HoltWintersForecaster.State state = entry.getValue();
+                out.writeUTF(entry.getKey());
+                out.writeInt(state.seasonLength());
+                out.writeDouble(state.level());
+                out.writeDouble(state.trend());
+                out.writeLong(state.lastBucket());
+                out.writeLong(state.updates());
+                for (double value : state.seasonal()) {
+                    out.writeDouble(value);
+                }
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 读取模型状态文件；文件不存在或桶长度与 bucketMillis 不同（桶号含义已变）时返回空
+     *
+     * @throws IOException 文件损坏或版本不符
+     */
+    public static Map<String, HoltWintersForecaster.State> read(Path path, long bucketMillis) throws IOException {
+        Map<String, HoltWintersForecaster.State> result = new LinkedHashMap<>();
+        if (!Files.exists(path)) {
+            return result;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("负载预测模型文件格式不符: " + path);
+            }
+            if (in.readLong() != bucketMillis) {
+                return result;
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String poolName = in.readUTF();
+                int seasonLength = in.readInt();
+                double level = in.readDouble();
+                double trend = in.readDouble();
+                long lastBucket = in.readLong();
+                long updates = in.readLong();
+                double[] seasonal = new double[seasonLength];
+                for (int j = 0; j < seasonLength; j++) {
+                    seasonal[j] = in.readDouble();
+                }
+                result.put(poolName, new HoltWintersForecaster.State(seasonLength, level, trend, lastBucket, updates,
+                        seasonal));
+            }
+        }
+        return result;
+    }
+
+    // 首次使用时读取一次
+    private Map<String, HoltWintersForecaster.State> savedStates() {
+        Map<String, HoltWintersForecaster.State> states = savedStates;
+        if (states == null) {
+            synchronized (this) {
+                if (savedStates == null) {
+                    try {
+                        savedStates = read(Paths.get(stateFile), bucketSeconds * 1000);
+                    } catch (IOException e) {
+                        log.warn("负载预测模型读取失败，从采样历史重新学习: {}", e.getMessage());
+                        savedStates = Map.of();
+                    }
+                }
+                states = savedStates;
+            }
+        }
+        return states;
+    }
+
+    // 先恢复保存的模型，再用环形文件中更新的采样按桶取平均补齐（早于模型最近桶的采样被忽略）
+    private PoolForecast bootstrap(String poolName) {
+        PoolForecast forecast = new PoolForecast(new HoltWintersForecaster(seasonBuckets, ALPHA, BETA, GAMMA),
+                leadSteps());
+        long bucketMillis = bucketSeconds * 1000;
+        restoreModel(poolName, forecast.model, System.currentTimeMillis() / bucketMillis);
+        long[] current = {-1};
+        double[] sum = {0};
+        int[] count = {0};
+        sampleStore.forEachThreadDemand(poolName, Integer.MAX_VALUE, (epochMillis, load) -> {
+            long bucket = epochMillis / bucketMillis;
+            if (bucket != current[0] && count[0] > 0) {
+                forecast.model.update(current[0], sum[0] / count[0]);
+                sum[0] = 0;
+                count[0] = 0;
+            }
+            current[0] = bucket;
+            sum[0] += load;
+            count[0]++;
+        });
+        if (count[0] > 0) {
+            forecast.model.update(current[0], sum[0] / count[0]);
+        }
+        Gauge.builder("threadpool.forecast.mape", forecast, f -> f.mape)
+                .tag("pool", poolName)
+                .description("Mean absolute percentage error of the lead-time load forecast")
+                .register(meterRegistry);
+        Gauge.builder("threadpool.forecast.load", forecast, f -> f.predictedPeak)
+                .tag("pool", poolName)
+                .description("Predicted peak thread demand within the lead time")
+                .register(meterRegistry);
+        log.info("线程池[{}]负载预测已预热，最近桶={}，季节分量{}", poolName, forecast.model.getLastBucket(),
+                forecast.model.seasonLearned() ? "已学满" : "学习中");
+        return forecast;
+    }
+
+    private void restoreModel(String poolName, HoltWintersForecaster model, long nowBucket) {
+        HoltWintersForecaster.State state = savedStates().get(poolName);
+        if (state == null || state.seasonLength() != seasonBuckets
+                || (nowBucket - state.lastBucket()) * bucketSeconds * 1000 > stateMaxAgeMs) {
+            return;
+        }
+        if (nowBucket - state.lastBucket() >= seasonBuckets) {
+            // 停机超过一个周期：季节形状仍可用，旧趋势按停机时长外推会失真，清零
+            state = new HoltWintersForecaster.State(state.seasonLength(), state.level(), 0, state.lastBucket(),
+                    state.updates(), state.seasonal());
+        }
+        model.restore(state);
+        log.info("线程池[{}]恢复保存的负载预测模型，最近桶={}", poolName, state.lastBucket());
+    }
+
+    private void onBucketClosed(String poolName, ThreadPoolRegistry.PoolMetadata meta, PoolForecast forecast,
+                                long bucket, double load, long now) {
+        forecast.score(bucket, load);
+        forecast.model.update(bucket, load);
+        int steps = leadSteps();
+        forecast.issue(bucket + steps, forecast.model.forecast(bucket + steps));
+        double peak = forecast.model.peak(bucket + 1, steps);
+        forecast.predictedPeak = peak;
+        if (!forecast.model.seasonLearned()) {
+            return;
+        }
+        // 调优已停止（手动停止或固定为静态配置）时不覆盖当前参数
+        if (!Boolean.TRUE.equals(tuningScheduler.isTuningActive(poolName))) {
+            return;
+        }
+        int target = Math.max(meta.minCore(), Math.min((int) Math.ceil(peak * headroom), meta.maxCore()));
+        // 峰值过去之前保持下限，避免快速环在负载到来前把线程缩回去
+        tuningScheduler.holdFloor(poolName, target, now + (leadSeconds + bucketSeconds) * 1000);
+        int currentCore = registry.getCurrentCore(poolName);
+        if (target <= currentCore) {
+            return;
+        }
+        int max = Math.max(registry.getCurrentMax(poolName), target + (int) Math.ceil(target * MAX_HEADROOM));
+        registry.adjust(poolName, target, max);
+        log.info("线程池[{}]预测{}秒内线程需求峰值{}，提前扩容 core={}→{}",
+                poolName, leadSeconds, String.format("%.1f", peak), currentCore, target);
+    }
+
+    /**
+     * 单个线程池的预测状态：当前桶的累加值，以及为评估精度保存的提前预测
+     */
+    static final class PoolForecast {
+        final HoltWintersForecaster model;
+        private final double[] issued;
+        private final long[] issuedFor;
+        private long currentBucket = -1;
+        private double sum;
+        private int count;
+        long closedBucket;
+        volatile double mape = Double.NaN;
+        volatile double predictedPeak;
+
+        PoolForecast(HoltWintersForecaster model, int leadSteps) {
+            this.model = model;
+            this.issued = new double[leadSteps + 1];
+            this.issuedFor = new long[leadSteps + 1];
+            Arrays.fill(issuedFor, -1);
+        }
+
+        // 进入新桶时返回上一个桶的平均线程需求，否则返回NaN
+        double accumulate(long bucket, int load) {
+            double closed = Double.NaN;
+            if (bucket != currentBucket) {
+                if (count > 0) {
+                    closed = sum / count;
+                    closedBucket = currentBucket;
+                }
+                currentBucket = bucket;
+                sum = 0;
+                count = 0;
+            }
+            sum += load;
+            count++;
+            return closed;
+        }
+
+        void issue(long bucket, double value) {
+            int slot = (int) Math.floorMod(bucket, (long) issued.length);
+            issued[slot] = value;
+            issuedFor[slot] = bucket;
+        }
+
+        // 负载为0时百分比误差无意义，跳过
+        void score(long bucket, double actual) {
+            int slot = (int) Math.floorMod(bucket, (long) issued.length);
+            if (issuedFor[slot] != bucket || actual <= 0) {
+                return;
+            }
+            double error = Math.abs(issued[slot] - actual) / actual;
+            mape = Double.isNaN(mape) ? error : mape + MAPE_SMOOTHING * (error - mape);
+        }
+    }
+}
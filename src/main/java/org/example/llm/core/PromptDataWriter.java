@@ -0,0 +1,338 @@
+package org.example.llm.core;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.example.llm.entity.PoolSampleHistory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 将采样历史直接流式写成提示词中的JSON，避免中间Map和装箱
+ * <p>
+ * 三种编码（threadpool.llm.prompt-format）：
+ * <ul>
+ *     <li>verbose：每条采样一个JSON对象，逐行重复字段名和配置</li>
+ *     <li>columnar：配置和窗口内不变的列只写一次，其余按列给出数组，时间戳改为结束时间 + 采样间隔</li>
+ *     <li>summary：在 columnar 基础上降采样到指定点数，并给出每列的 min/mean/max/trend</li>
+ * </ul>
+ */
+public final class PromptDataWriter {
+    /**
+     * 提示词中采样数据的编码方式
+     */
+    public enum Format {
+        VERBOSE,
+        COLUMNAR,
+        SUMMARY;
+
+        static Format parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("未知的提示词格式: " + value);
+            }
+        }
+
+        String tag() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final String[] BATCH_COLUMNS = {"current_core", "current_max", "active_threads",
+            "queue_size", "queue_capacity", "queue_utilization", "idle_ratio",
+            "wait_p50_ms", "wait_p99_ms", "run_p50_ms", "run_p99_ms"};
+
+    private static final int INT_COLUMNS = 5; // BATCH_COLUMNS 中前5列为整数
+    private static final int COL_QUEUE_SIZE = 3;
+    private static final int COL_WAIT_P99 = 8;
+    private static final int COL_RUN_P99 = 10;
+
+    private PromptDataWriter() {
+    }
+
+    /**
+     * 单个线程池的采样数据，按格式编码
+     *
+     * @param points summary 格式降采样后的最多点数
+     */
+    public static String toPromptData(PoolSampleHistory.Window window, Format format, int points) {
+        if (format == Format.VERBOSE) {
+            return toJsonRows(window);
+        }
+        StringWriter out = new StringWriter(1024);
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(out)) {
+            writeColumnar(gen, window, format == Format.SUMMARY ? points : Integer.MAX_VALUE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("序列化采样历史失败", e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * 批量请求：verbose 沿用按行的二维数组，其余格式每个线程池与单池编码相同
+     */
+    public static String toBatchPromptData(Map<String, PoolSampleHistory.Window> histories, Format format,
+                                           int points) {
+        if (format == Format.VERBOSE) {
+            return toBatchJson(histories);
+        }
+        StringWriter out = new StringWriter(histories.size() * 1024);
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(out)) {
+            gen.writeStartObject();
+            for (Map.Entry<String, PoolSampleHistory.Window> entry : histories.entrySet()) {
+                gen.writeFieldName(entry.getKey());
+                writeColumnar(gen, entry.getValue(), format == Format.SUMMARY ? points : Integer.MAX_VALUE);
+            }
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("序列化采样历史失败", e);
+        }
+        return out.toString();
+    }
+
+    // 列式编码：不变的列写入 constant，其余列降采样后写入 series；降采样时给出统计值。空窗口只写 samples=0
+    private static void writeColumnar(JsonGenerator gen, PoolSampleHistory.Window window, int maxPoints)
+            throws IOException {
+        int size = window.getSize();
+        if (size == 0) {
+            gen.writeStartObject();
+            gen.writeNumberField("samples", 0);
+            gen.writeEndObject();
+            return;
+        }
+        int last = window.last();
+        int points = Math.max(1, Math.min(size, maxPoints));
+        boolean downsampled = points < size;
+
+        gen.writeStartObject();
+        gen.writeObjectFieldStart("config");
+        gen.writeNumberField("min_core", window.getConfigMinCore()[last]);
+        gen.writeNumberField("max_core", window.getConfigMaxCore()[last]);
+        gen.writeNumberField("max_queue", window.getConfigMaxQueue()[last]);
+        gen.writeEndObject();
+        gen.writeStringField("end", formatTimestamp(window.getTimestamps()[last]));
+        gen.writeNumberField("samples", size);
+        long span = window.getTimestamps()[last] - window.getTimestamps()[0];
+        gen.writeNumberField("interval_s", size > 1 ? Math.round(span / 1000.0 / (points > 1 ? points - 1 : 1)) : 0);
+
+        gen.writeObjectFieldStart("constant");
+        for (int c = 0; c < BATCH_COLUMNS.length; c++) {
+            if (isConstant(window, c)) {
+                writeValue(gen, BATCH_COLUMNS[c], c, value(window, c, last));
+            }
+        }
+        gen.writeEndObject();
+
+        gen.writeObjectFieldStart("series");
+        for (int c = 0; c < BATCH_COLUMNS.length; c++) {
+            if (isConstant(window, c)) {
+                continue;
+            }
+            gen.writeArrayFieldStart(BATCH_COLUMNS[c]);
+            for (int p = 0; p < points; p++) {
+                int from = (int) ((long) p * size / points);
+                int to = (int) ((long) (p + 1) * size / points);
+                writeNumber(gen, c, aggregate(window, c, from, to));
+            }
+            gen.writeEndArray();
+        }
+        gen.writeEndObject();
+
+        if (downsampled) {
+            gen.writeObjectFieldStart("stats");
+            for (int c = 0; c < BATCH_COLUMNS.length; c++) {
+                if (isConstant(window, c)) {
+                    continue;
+                }
+                writeStats(gen, window, c);
+            }
+            gen.writeEndObject();
+        }
+        gen.writeEndObject();
+    }
+
+    // 最小值、均值、最大值，trend 为最小二乘斜率换算的整个窗口内的变化量
+    private static void writeStats(JsonGenerator gen, PoolSampleHistory.Window window, int column)
+            throws IOException {
+        int size = window.getSize();
+        double min = Double.MAX_VALUE;
+        double max = -Double.MAX_VALUE;
+        double sum = 0;
+        double xy = 0;
+        for (int i = 0; i < size; i++) {
+            double v = value(window, column, i);
+            min = Math.min(min, v);
+            max = Math.max(max, v);
+            sum += v;
+            xy += i * v;
+        }
+        double mean = sum / size;
+        double xMean = (size - 1) / 2.0;
+        double xx = size * (size * (double) size - 1) / 12.0; // Σ(i - xMean)²
+        double slope = xx > 0 ? (xy - size * xMean * mean) / xx : 0;
+        gen.writeObjectFieldStart(BATCH_COLUMNS[column]);
+        gen.writeNumberField("min", round4(min));
+        gen.writeNumberField("mean", round4(mean));
+        gen.writeNumberField("max", round4(max));
+        gen.writeNumberField("trend", round4(slope * (size - 1)));
+        gen.writeEndObject();
+    }
+
+    // 降采样：队列长度和p99取区间最大值保留尖峰，其余取均值
+    private static double aggregate(PoolSampleHistory.Window window, int column, int from, int to) {
+        boolean peak = column == COL_QUEUE_SIZE || column == COL_WAIT_P99 || column == COL_RUN_P99;
+        double result = peak ? -Double.MAX_VALUE : 0;
+        for (int i = from; i < to; i++) {
+            double v = value(window, column, i);
+            result = peak ? Math.max(result, v) : result + v;
+        }
+        return peak ? result : result / (to - from);
+    }
+
+    private static boolean isConstant(PoolSampleHistory.Window window, int column) {
+        double first = value(window, column, 0);
+        for (int i = 1; i < window.getSize(); i++) {
+            if (value(window, column, i) != first) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static double value(PoolSampleHistory.Window window, int column, int i) {
+        return switch (column) {
+            case 0 -> window.getCurrentCore()[i];
+            case 1 -> window.getCurrentMax()[i];
+            case 2 -> window.getActiveThreads()[i];
+            case 3 -> window.getQueueSize()[i];
+            case 4 -> window.getQueueCapacity()[i];
+            case 5 -> window.getQueueUtilization()[i];
+            case 6 -> window.getIdleRatio()[i];
+            case 7 -> window.getWaitP50Ms()[i];
+            case 8 -> window.getWaitP99Ms()[i];
+            case 9 -> window.getRunP50Ms()[i];
+            case 10 -> window.getRunP99Ms()[i];
+            default -> throw new IllegalArgumentException("未知列: " + column);
+        };
+    }
+
+    private static void writeValue(JsonGenerator gen, String name, int column, double value) throws IOException {
+        gen.writeFieldName(name);
+        writeNumber(gen, column, value);
+    }
+
+    // 整数列降采样后的均值保留1位小数
+    private static void writeNumber(JsonGenerator gen, int column, double value) throws IOException {
+        if (column < INT_COLUMNS && value == Math.rint(value)) {
+            gen.writeNumber((long) value);
+        } else if (column < INT_COLUMNS) {
+            gen.writeNumber(Math.round(value * 10) / 10.0);
+        } else {
+            gen.writeNumber(round4(value));
+        }
+    }
+
+    /**
+     * 每条采样一个JSON对象，字段与CSV表头一致，另加任务排队/执行时间百分位
+     */
+    static String toJsonRows(PoolSampleHistory.Window window) {
+        StringWriter out = new StringWriter(window.getSize() * 256);
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(out)) {
+            gen.writeStartArray();
+            for (int i = 0; i < window.getSize(); i++) {
+                gen.writeStartObject();
+                gen.writeStringField("timestamp", formatTimestamp(window.getTimestamps()[i]));
+                gen.writeNumberField("config_min_core", window.getConfigMinCore()[i]);
+                gen.writeNumberField("config_max_core", window.getConfigMaxCore()[i]);
+                gen.writeNumberField("config_max_queue", window.getConfigMaxQueue()[i]);
+                gen.writeNumberField("current_core", window.getCurrentCore()[i]);
+                gen.writeNumberField("current_max", window.getCurrentMax()[i]);
+                gen.writeNumberField("active_threads", window.getActiveThreads()[i]);
+                gen.writeNumberField("queue_size", window.getQueueSize()[i]);
+                gen.writeNumberField("queue_capacity", window.getQueueCapacity()[i]);
+                gen.writeNumberField("queue_utilization", round4(window.getQueueUtilization()[i]));
+                gen.writeNumberField("idle_ratio", round4(window.getIdleRatio()[i]));
+                gen.writeNumberField("wait_p50_ms", window.getWaitP50Ms()[i]);
+                gen.writeNumberField("wait_p99_ms", window.getWaitP99Ms()[i]);
+                gen.writeNumberField("run_p50_ms", window.getRunP50Ms()[i]);
+                gen.writeNumberField("run_p99_ms", window.getRunP99Ms()[i]);
+                gen.writeEndObject();
+            }
+            gen.writeEndArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException("序列化采样历史失败", e);
+        }
+        return out.toString();
+    }
+
+    /**
+     * 批量请求的紧凑编码：每个线程池的配置只写一次，采样按列名+二维数组给出，省略时间戳
+     */
+    static String toBatchJson(Map<String, PoolSampleHistory.Window> histories) {
+        StringWriter out = new StringWriter(histories.size() * 2048);
+        try (JsonGenerator gen = JSON_FACTORY.createGenerator(out)) {
+            gen.writeStartObject();
+            for (Map.Entry<String, PoolSampleHistory.Window> entry : histories.entrySet()) {
+                PoolSampleHistory.Window window = entry.getValue();
+                int last = window.last();
+                gen.writeObjectFieldStart(entry.getKey());
+
+                gen.writeObjectFieldStart("config");
+                gen.writeNumberField("min_core", window.getConfigMinCore()[last]);
+                gen.writeNumberField("max_core", window.getConfigMaxCore()[last]);
+                gen.writeNumberField("max_queue", window.getConfigMaxQueue()[last]);
+                gen.writeEndObject();
+
+                gen.writeArrayFieldStart("columns");
+                for (String column : BATCH_COLUMNS) {
+                    gen.writeString(column);
+                }
+                gen.writeEndArray();
+
+                gen.writeArrayFieldStart("rows");
+                for (int i = 0; i < window.getSize(); i++) {
+                    gen.writeStartArray();
+                    gen.writeNumber(window.getCurrentCore()[i]);
+                    gen.writeNumber(window.getCurrentMax()[i]);
+                    gen.writeNumber(window.getActiveThreads()[i]);
+                    gen.writeNumber(window.getQueueSize()[i]);
+                    gen.writeNumber(window.getQueueCapacity()[i]);
+                    gen.writeNumber(round4(window.getQueueUtilization()[i]));
+                    gen.writeNumber(round4(window.getIdleRatio()[i]));
+                    gen.writeNumber(window.getWaitP50Ms()[i]);
+                    gen.writeNumber(window.getWaitP99Ms()[i]);
+                    gen.writeNumber(window.getRunP50Ms()[i]);
+                    gen.writeNumber(window.getRunP99Ms()[i]);
+                    gen.writeEndArray();
+                }
+                gen.writeEndArray();
+
+                gen.writeEndObject();
+            }
+            gen.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException("序列化采样历史失败", e);
+        }
+        return out.toString();
+    }
+
+    // 与CSV保持一致，保留4位小数
+    private static double round4(double value) {
+        return Math.round(value * 10_000d) / 10_000d;
+    }
+
+    private static String formatTimestamp(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault())
+                .format(TIME_FORMAT);
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.llm.core;
+
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.TuningRecommendation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LLM规划缓存：以量化后的线程池近期状态为键，相同状态下直接复用上一次的规划而不再请求顾问
+ * <p>
+ * 键包含顾问、配置范围，以及最近若干采样的活跃线程数、队列使用率、排队p99的分桶值；
+ * 当前线程数不计入键：快速环会在护栏内持续调整它，规划只取决于负载。条目超过 TTL 后失效，容量满时按最近最少使用淘汰。
+ */
+public class RecommendationCache {
+    static final int RECENT_SAMPLES = 12; // 计算指纹时只看最近的采样（默认5秒一条，约1分钟）
+    private static final int ACTIVE_BUCKETS = 16; // 活跃线程数按配置最大线程数划分的桶数
+    private static final double UTILIZATION_BUCKET = 0.1;
+
+    private final int maxEntries;
+    private final long ttlMs;
+    private final Map<Key, Entry> entries;
+
+    public RecommendationCache(int maxEntries, long ttlMs) {
+        if (maxEntries <= 0 || ttlMs <= 0) {
+            throw new IllegalArgumentException("缓存容量和TTL必须大于0");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                return size() > RecommendationCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * 缓存键：近期状态的量化指纹
+     */
+    public record Key(String advisor, int minCore, int maxCore, int maxQueue,
+                      int activeBucket, int utilizationBucket, int waitBucket) {
+    }
+
+    private record Entry(TuningRecommendation plan, long expiresAt) {
+    }
+
+    public static Key key(String advisor, PoolSampleHistory.Window window) {
+        int last = window.last();
+        int from = Math.max(0, window.getSize() - RECENT_SAMPLES);
+        int maxCore = window.getConfigMaxCore()[last];
+        double active = 0;
+        double peakUtilization = 0;
+        double peakWait = 0;
+        for (int i = from; i <= last; i++) {
+            active += window.getActiveThreads()[i];
+            peakUtilization = Math.max(peakUtilization, window.getQueueUtilization()[i]);
+            peakWait = Math.max(peakWait, window.getWaitP99Ms()[i]);
+        }
+        active /= last - from + 1;
+        double activeWidth = Math.max(1.0, (double) maxCore / ACTIVE_BUCKETS);
+        return new Key(advisor, window.getConfigMinCore()[last], maxCore, window.getConfigMaxQueue()[last],
+                (int) Math.round(active / activeWidth),
+                (int) Math.round(peakUtilization / UTILIZATION_BUCKET),
+                waitBucket(peakWait));
+    }
+
+    // 排队时间按2的幂分桶：<1ms、1~2ms、2~4ms……
+    private static int waitBucket(double waitMs) {
+        return waitMs < 1 ? 0 : 1 + (int) (Math.log(waitMs) / Math.log(2));
+    }
+
+    /**
+     * 未命中或已过期时返回 null
+     */
+    public synchronized TuningRecommendation get(Key key, long nowMillis) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() <= nowMillis) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.plan();
+    }
+
+    public synchronized void put(Key key, TuningRecommendation plan, long nowMillis) {
+        entries.put(key, new Entry(plan, nowMillis + ttlMs));
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,189 @@
+package org.example.llm.core;
+
+import org.example.llm.entity.ThreadPoolDetail;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基于内存映射文件的定长环形缓冲区，每个槽位保存一条线程池采样
+ * <p>
+ * 文件布局：64字节头部（魔数、版本、槽位大小、槽位数、写游标）+ slotCount 个64字节槽位。
+ * 每次采样只做一次定位写入并推进游标，不回读、不重写整个文件。
+ */
+public class SampleRingBuffer implements Closeable {
+    private static final int MAGIC = 0x54505242; // "TPRB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+    static final int SLOT_SIZE = 64;
+
+    // 头部字段偏移
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_SLOT_SIZE = 8;
+    private static final int H_SLOT_COUNT = 12;
+    private static final int H_WRITE_SEQ = 16;
+
+    // 槽位字段偏移
+    private static final int S_TIMESTAMP = 0;
+    private static final int S_MIN_CORE = 8;
+    private static final int S_MAX_CORE = 12;
+    private static final int S_MAX_QUEUE = 16;
+    private static final int S_CURRENT_CORE = 20;
+    private static final int S_CURRENT_MAX = 24;
+    private static final int S_ACTIVE = 28;
+    private static final int S_QUEUE_SIZE = 32;
+    private static final int S_QUEUE_CAPACITY = 36;
+    private static final int S_QUEUE_UTILIZATION = 40;
+    private static final int S_IDLE_RATIO = 48;
+
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int slotCount;
+    private long writeSeq;
+
+    public SampleRingBuffer(Path file, int slotCount) throws IOException {
+        if (slotCount <= 0) {
+            throw new IllegalArgumentException("槽位数必须大于0: " + slotCount);
+        }
+        this.slotCount = slotCount;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        long size = HEADER_SIZE + (long) slotCount * SLOT_SIZE;
+        boolean compatible = channel.size() == size;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+        if (compatible && buffer.getInt(H_MAGIC) == MAGIC && buffer.getInt(H_VERSION) == VERSION
+                && buffer.getInt(H_SLOT_SIZE) == SLOT_SIZE && buffer.getInt(H_SLOT_COUNT) == slotCount) {
+            this.writeSeq = buffer.getLong(H_WRITE_SEQ);
+        } else {
+            // 新文件或布局不兼容：重新初始化头部
+            buffer.putInt(H_MAGIC, MAGIC);
+            buffer.putInt(H_VERSION, VERSION);
+            buffer.putInt(H_SLOT_SIZE, SLOT_SIZE);
+            buffer.putInt(H_SLOT_COUNT, slotCount);
+            buffer.putLong(H_WRITE_SEQ, 0L);
+            this.writeSeq = 0L;
+        }
+    }
+
+    /**
+     * 写入一条采样：定位写入当前槽位后推进游标
+     */
+    public synchronized void append(long epochMillis, ThreadPoolDetail detail) {
+        int base = HEADER_SIZE + (int) (writeSeq % slotCount) * SLOT_SIZE;
+        buffer.putLong(base + S_TIMESTAMP, epochMillis);
+        buffer.putInt(base + S_MIN_CORE, detail.getConfigMinCore());
+        buffer.putInt(base + S_MAX_CORE, detail.getConfigMaxCore());
+        buffer.putInt(base + S_MAX_QUEUE, detail.getConfigMaxQueue());
+        buffer.putInt(base + S_CURRENT_CORE, detail.getCurrentCore());
+        buffer.putInt(base + S_CURRENT_MAX, detail.getCurrentMax());
+        buffer.putInt(base + S_ACTIVE, detail.getActiveThreads());
+        buffer.putInt(base + S_QUEUE_SIZE, detail.getQueueSize());
+        buffer.putInt(base + S_QUEUE_CAPACITY, detail.getQueueCapacity());
+        buffer.putDouble(base + S_QUEUE_UTILIZATION, detail.getQueueUtilization());
+        buffer.putDouble(base + S_IDLE_RATIO, detail.getIdleRatio());
+        writeSeq++;
+        buffer.putLong(H_WRITE_SEQ, writeSeq);
+    }
+
+    /**
+     * 当前保存的有效记录数
+     */
+    public synchronized int size() {
+        return (int) Math.min(writeSeq, slotCount);
+    }
+
+    /**
+     * 按时间顺序返回最近 n 条记录，字段名与CSV表头一致
+     */
+    public synchronized List<Map<String, Object>> readLast(int n) {
+        int count = Math.min(n, size());
+        List<Map<String, Object>> data = new ArrayList<>(count);
+        for (long seq = writeSeq - count; seq < writeSeq; seq++) {
+            int base = HEADER_SIZE + (int) (seq % slotCount) * SLOT_SIZE;
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("timestamp", formatTimestamp(buffer.getLong(base + S_TIMESTAMP)));
+            point.put("config_min_core", buffer.getInt(base + S_MIN_CORE));
+            point.put("config_max_core", buffer.getInt(base + S_MAX_CORE));
+            point.put("config_max_queue", buffer.getInt(base + S_MAX_QUEUE));
+            point.put("current_core", buffer.getInt(base + S_CURRENT_CORE));
+            point.put("current_max", buffer.getInt(base + S_CURRENT_MAX));
+            point.put("active_threads", buffer.getInt(base + S_ACTIVE));
+            point.put("queue_size", buffer.getInt(base + S_QUEUE_SIZE));
+            point.put("queue_capacity", buffer.getInt(base + S_QUEUE_CAPACITY));
+            point.put("queue_utilization", buffer.getDouble(base + S_QUEUE_UTILIZATION));
+            point.put("idle_ratio", buffer.getDouble(base + S_IDLE_RATIO));
+            data.add(point);
+        }
+        return data;
+    }
+
+    /**
+     * 按时间顺序遍历最近 n 条记录的时间戳和线程需求（见 {@link ThreadPoolRegistry#threadDemand}），不创建中间对象
+     */
+    public synchronized void forEachThreadDemand(int n, LoadConsumer consumer) {
+        int count = Math.min(n, size());
+        for (long seq = writeSeq - count; seq < writeSeq; seq++) {
+            int base = HEADER_SIZE + (int) (seq % slotCount) * SLOT_SIZE;
+            consumer.accept(buffer.getLong(base + S_TIMESTAMP), ThreadPoolRegistry.threadDemand(
+                    buffer.getInt(base + S_ACTIVE), buffer.getDouble(base + S_QUEUE_UTILIZATION),
+                    buffer.getInt(base + S_CURRENT_MAX)));
+        }
+    }
+
+    @FunctionalInterface
+    public interface LoadConsumer {
+        void accept(long epochMillis, int load);
+    }
+
+    /**
+     * 导出最近 n 条记录为CSV行（不含表头），格式与旧版 *Detail.txt 一致
+     */
+    public synchronized List<String> toCsvLines(int n) {
+        int count = Math.min(n, size());
+        List<String> lines = new ArrayList<>(count);
+        for (long seq = writeSeq - count; seq < writeSeq; seq++) {
+            int base = HEADER_SIZE + (int) (seq % slotCount) * SLOT_SIZE;
+            lines.add(String.join(",",
+                    formatTimestamp(buffer.getLong(base + S_TIMESTAMP)),
+                    String.valueOf(buffer.getInt(base + S_MIN_CORE)),
+                    String.valueOf(buffer.getInt(base + S_MAX_CORE)),
+                    String.valueOf(buffer.getInt(base + S_MAX_QUEUE)),
+                    String.valueOf(buffer.getInt(base + S_CURRENT_CORE)),
+                    String.valueOf(buffer.getInt(base + S_CURRENT_MAX)),
+                    String.valueOf(buffer.getInt(base + S_ACTIVE)),
+                    String.valueOf(buffer.getInt(base + S_QUEUE_SIZE)),
+                    String.valueOf(buffer.getInt(base + S_QUEUE_CAPACITY)),
+                    String.format("%.4f", buffer.getDouble(base + S_QUEUE_UTILIZATION)),
+                    String.format("%.4f", buffer.getDouble(base + S_IDLE_RATIO))
+            ));
+        }
+        return lines;
+    }
+
+    private String formatTimestamp(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault())
+                .format(TIME_FORMAT);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
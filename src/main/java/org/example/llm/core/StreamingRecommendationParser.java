@@ -0,0 +1,151 @@
+package org.example.llm.core;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import org.example.llm.entity.TuningRecommendation;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 流式响应中模型输出的增量解析：逐段喂入模型生成的文本，顶层对象的 core、max、queue 一旦完整即可给出建议
+ * <p>
+ * 基于 Jackson 非阻塞解析器，数字只有在遇到分隔符后才会产出，不会把 "12" 误读为 "120" 的前缀；
+ * 字符串形式的数字（如 "core":"12"）与非流式解析一样按数字处理。
+ * 第一个 '{' 之前的文本（如推理模型的思考内容）被忽略；思考内容中的 '{' 不是合法JSON、
+ * 或其对象结束时仍缺少 core/max 时，从下一个 '{' 重新开始解析。
+ */
+public final class StreamingRecommendationParser {
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final StringBuilder content = new StringBuilder();
+    private JsonParser parser;
+    private ByteArrayFeeder feeder;
+    private int start = -1; // 当前候选对象的 '{' 在 content 中的下标，-1 表示尚未找到
+    private boolean finished;
+    private int depth;
+    private String field;
+    private Integer core;
+    private Integer max;
+    private Integer queue;
+
+    /**
+     * 喂入一段模型输出
+     *
+     * @return 建议是否已完整（core、max、queue 都已产出，或顶层对象已结束），此后无需继续读取
+     */
+    public boolean accept(String delta) {
+        if (finished || delta.isEmpty()) {
+            return finished;
+        }
+        int offset = content.length();
+        content.append(delta);
+        int from = start < 0 ? offset : start + 1;
+        boolean rejected = start < 0 || !feed(delta);
+        while (rejected) {
+            start = content.indexOf("{", from);
+            if (start < 0) {
+                break;
+            }
+            reset();
+            rejected = !feed(content.substring(start));
+            from = start + 1;
+        }
+        return finished;
+    }
+
+    // 喂给当前候选对象；候选对象不是合法JSON、或结束时缺少 core/max 时返回 false
+    private boolean feed(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        try {
+            feeder.feedInput(bytes, 0, bytes.length);
+            JsonToken token;
+            while (!finished && (token = parser.nextToken()) != JsonToken.NOT_AVAILABLE && token != null) {
+                if (!onToken(token)) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (JsonParseException e) {
+            return false;
+        } catch (IOException e) {
+            throw new RuntimeException("流式响应JSON解析失败: " + e.getMessage(), e);
+        }
+    }
+
+    private void reset() {
+        try {
+            parser = JSON_FACTORY.createNonBlockingByteArrayParser();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        depth = 0;
+        field = null;
+        core = null;
+        max = null;
+        queue = null;
+    }
+
+    private boolean onToken(JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT, START_ARRAY -> depth++;
+            case END_OBJECT, END_ARRAY -> {
+                if (--depth == 0) {
+                    if (core == null || max == null) {
+                        return false;
+                    }
+                    finished = true;
+                }
+            }
+            case FIELD_NAME -> field = depth == 1 ? parser.getCurrentName() : null;
+            case VALUE_NUMBER_INT, VALUE_NUMBER_FLOAT -> setField(parser.getValueAsInt());
+            case VALUE_STRING -> {
+                if (depth == 1 && ("core".equals(field) || "max".equals(field) || "queue".equals(field))) {
+                    try {
+                        setField((int) Double.parseDouble(parser.getText().trim()));
+                    } catch (NumberFormatException e) {
+                        // 非数字字符串按缺少该字段处理
+                    }
+                }
+            }
+            default -> {
+            }
+        }
+        return true;
+    }
+
+    private void setField(int value) {
+        if (depth != 1 || field == null) {
+            return;
+        }
+        switch (field) {
+            case "core" -> core = value;
+            case "max" -> max = value;
+            case "queue" -> queue = value;
+            default -> {
+            }
+        }
+        finished = core != null && max != null && queue != null;
+    }
+
+    /**
+     * 解析出的建议；缺少 core 或 max 时抛出异常
+     */
+    public TuningRecommendation result() {
+        if (core == null || max == null) {
+            throw new RuntimeException("content缺少必要字段: " + content);
+        }
+        return new TuningRecommendation(core, max, queue != null ? queue : -1);
+    }
+
+    /**
+     * 已接收的模型输出
+     */
+    public String content() {
+        return content.toString();
+    }
+}
@@ -0,0 +1,111 @@
+package org.example.llm.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 全局线程预算分配：加权注水（weighted max-min fairness）
+ * <p>
+ * 每个线程池先得到最小核心线程数；剩余预算按权重在需求未满足的线程池间注水，需求小于份额的线程池只拿需求，
+ * 多出的份额继续分给其他线程池；所有需求满足后仍有剩余时，再按同样方式向配置最大线程数注水，作为突发余量。
+ * 最小核心线程数之和超过预算时仍保证最小值（配置约束优先），此时没有可分配的余量。
+ */
+public final class ThreadBudgetAllocator {
+
+    private ThreadBudgetAllocator() {
+    }
+
+    /**
+     * @param minCore 下限（配置最小核心线程数）
+     * @param maxCore 上限（配置最大线程数）
+     * @param demand  当前需求（线程数），会被裁剪到 [minCore, maxCore]
+     * @param weight  优先级权重，大于0
+     */
+    public record Demand(String poolName, int minCore, int maxCore, int demand, double weight) {
+        public Demand {
+            if (weight <= 0 || minCore > maxCore) {
+                throw new IllegalArgumentException("线程池[" + poolName + "]预算参数无效");
+            }
+            demand = Math.max(minCore, Math.min(demand, maxCore));
+        }
+    }
+
+    /**
+     * @return 线程池名 → 分配的线程数上限（按输入顺序）
+     */
+    public static Map<String, Integer> allocate(int budget, List<Demand> demands) {
+        int n = demands.size();
+        int[] allocation = new int[n];
+        long remaining = budget;
+        for (int i = 0; i < n; i++) {
+            allocation[i] = demands.get(i).minCore();
+            remaining -= allocation[i];
+        }
+        if (remaining > 0) {
+            int[] wanted = new int[n];
+            for (int i = 0; i < n; i++) {
+                wanted[i] = demands.get(i).demand();
+            }
+            remaining = fill(demands, allocation, wanted, remaining);
+        }
+        if (remaining > 0) {
+            int[] ceiling = new int[n];
+            for (int i = 0; i < n; i++) {
+                ceiling[i] = demands.get(i).maxCore();
+            }
+            fill(demands, allocation, ceiling, remaining);
+        }
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (int i = 0; i < n; i++) {
+            result.put(demands.get(i).poolName(), allocation[i]);
+        }
+        return result;
+    }
+
+    // 按权重把 remaining 注入到 allocation，每个线程池不超过 target；返回未分出的余量
+    private static long fill(List<Demand> demands, int[] allocation, int[] target, long remaining) {
+        List<Integer> open = new ArrayList<>();
+        for (int i = 0; i < allocation.length; i++) {
+            if (allocation[i] < target[i]) {
+                open.add(i);
+            }
+        }
+        while (remaining > 0 && !open.isEmpty()) {
+            double totalWeight = 0;
+            for (int i : open) {
+                totalWeight += demands.get(i).weight();
+            }
+            long round = remaining;
+            boolean progressed = false;
+            List<Integer> stillOpen = new ArrayList<>();
+            for (int i : open) {
+                // 本轮份额向下取整；全部为0时（余量小于线程池数）按权重顺序逐个补1
+                int share = (int) Math.min(Integer.MAX_VALUE, (long) (round * demands.get(i).weight() / totalWeight));
+                int grant = (int) Math.min(Math.min(share, target[i] - allocation[i]), remaining);
+                if (grant > 0) {
+                    allocation[i] += grant;
+                    remaining -= grant;
+                    progressed = true;
+                }
+                if (allocation[i] < target[i]) {
+                    stillOpen.add(i);
+                }
+            }
+            if (!progressed) {
+                stillOpen.sort((a, b) -> Double.compare(demands.get(b).weight(), demands.get(a).weight()));
+                for (int i : stillOpen) {
+                    if (remaining == 0) {
+                        break;
+                    }
+                    allocation[i]++;
+                    remaining--;
+                }
+                stillOpen.removeIf(i -> allocation[i] >= target[i]);
+            }
+            open = stillOpen;
+        }
+        return remaining;
+    }
+}
@@ -1,10 +1,12 @@
 package org.example.llm.core;
 
-import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
 import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import lombok.RequiredArgsConstructor;
-import org.example.llm.entity.ResizableLinkedBlockingQueue;
+import org.example.llm.entity.LatencyHistogram;
+import org.example.llm.entity.PoolSnapshot;
 import org.example.llm.entity.ThreadPoolDetail;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,12 +15,10 @@ import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.util.Locale;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ThreadPoolExecutor;
-import java.util.concurrent.ThreadPoolExecutor.AbortPolicy;
+import java.util.concurrent.TimeUnit;
 import java.util.function.ToDoubleFunction;
 
 
@@ -69,11 +69,11 @@ public class ThreadPoolMetricsExporter {
         }
     }
 
-    // 核心指标注册逻辑
+    // 核心指标注册逻辑：全部读取采样器快照，抓取指标时不访问线程池本身
     private void registerMetrics(ThreadPoolDetail detail) {
         String poolName = detail.getPoolName();
-        ThreadPoolExecutor executor = registry.getExecutor(poolName);
-        BlockingQueue<?> queue = executor.getQueue();
+        ThreadPoolRegistry.PoolMetadata meta = registry.getPoolMetadata(poolName);
+        PoolSnapshot snapshot = meta.snapshot();
 
         // 核心线程指标
         /*
@@ -81,97 +81,88 @@ public class ThreadPoolMetricsExporter {
          * 2. active.threads: 活跃线程数
          * 3. max.size: 最大线程数
          */
-        registerGauge("core.size", executor, ThreadPoolExecutor::getCorePoolSize, poolName);
-        registerGauge("active.threads", executor, ThreadPoolExecutor::getActiveCount, poolName);
-        registerGauge("max.size", executor, ThreadPoolExecutor::getMaximumPoolSize, poolName);
+        registerGauge("core.size", snapshot, PoolSnapshot::getCorePoolSize, poolName);
+        registerGauge("active.threads", snapshot, PoolSnapshot::getActiveCount, poolName);
+        registerGauge("max.size", snapshot, PoolSnapshot::getMaximumPoolSize, poolName);
 
         // 队列指标
-        registerQueueMetrics(queue, poolName);
-
-        // 线程利用率指标
-        registerGauge("idle.ratio", executor,
-                e -> calculateIdleRatio(e.getPoolSize(), e.getActiveCount()),
-                poolName
-        );
-    }
-
-    // 通用Gauge注册方法
-    private <T> void registerGauge(String metricName, T obj, ToDoubleFunction<T> func, String poolName) {
-        Gauge.builder("threadpool." + metricName, obj, func)
-                .tag("pool", poolName)
-                .register(meterRegistry);
-    }
-
-    // 队列指标注册
-    private void registerQueueMetrics(BlockingQueue<?> queue, String poolName) {
-        // 队列指标
-        /**
+        /*
          * queue.size: 当前队列大小
          * queue.capacity: 队列容量
          * queue.utilization: 队列使用率
          */
-        registerGauge("queue.size", queue, BlockingQueue::size, poolName);
-        registerGauge("queue.capacity", queue, this::getSafeQueueCapacity, poolName);
-        registerGauge("queue.utilization", queue,
-                q -> calculateQueueUtilization(q.size(), getSafeQueueCapacity(q)),
-                poolName
-        );
-    }
+        registerGauge("queue.size", snapshot, PoolSnapshot::getQueueSize, poolName);
+        registerGauge("queue.capacity", snapshot, PoolSnapshot::getQueueCapacity, poolName);
+        registerGauge("queue.utilization", snapshot, PoolSnapshot::getQueueUtilization, poolName);
 
-    // 安全获取队列容量
-    int getSafeQueueCapacity(BlockingQueue<?> queue) {
-        try {
-            if (queue instanceof ResizableLinkedBlockingQueue) {
-                return (int) ((ResizableLinkedBlockingQueue<?>) queue).capacity();
-            } else if (queue instanceof LinkedBlockingQueue) {
-                return ((LinkedBlockingQueue<?>) queue).remainingCapacity() + queue.size();
-            }
-            return queue.remainingCapacity() + queue.size(); // 通用fallback
-        } catch (Exception e) {
-            logger.warn("Failed to get queue capacity for type: {}", queue.getClass().getSimpleName());
-            return Integer.MAX_VALUE;
+        // 线程利用率指标
+        registerGauge("idle.ratio", snapshot, PoolSnapshot::getIdleRatio, poolName);
+
+        // 全局线程预算分给该线程池的上限（未启用预算时为配置最大线程数）
+        registerGauge("budget.allocated", registry, r -> r.getBudgetCap(poolName), poolName);
+
+        // 任务耗时指标
+        if (meta.executor() instanceof InstrumentedThreadPoolExecutor) {
+            InstrumentedThreadPoolExecutor instrumented = (InstrumentedThreadPoolExecutor) meta.executor();
+            registerLatencyMetrics("task.wait", instrumented.getWaitHistogram(), poolName);
+            registerLatencyMetrics("task.run", instrumented.getRunHistogram(), poolName);
+            registerAdmissionMetrics(instrumented, poolName);
         }
-    }
 
-    // 计算队列使用率
-    double calculateQueueUtilization(int currentSize, int capacity) {
-        if (capacity <= 0) return 0.0;
-        return Math.min(1.0, (double) currentSize / capacity);
+        // 拒绝策略：按处理结果计数
+        if (meta.executor().getRejectedExecutionHandler() instanceof InstrumentedRejectionHandler) {
+            registerRejectionMetrics((InstrumentedRejectionHandler) meta.executor().getRejectedExecutionHandler(), poolName);
+        }
+
+        // 虚拟线程模式：core.size 即许可上限，另导出持有许可的任务数（原子计数，无锁）
+        if (meta.executor() instanceof VirtualThreadPoolExecutor) {
+            VirtualThreadPoolExecutor virtual = (VirtualThreadPoolExecutor) meta.executor();
+            registerGauge("permits.limit", virtual, VirtualThreadPoolExecutor::getLimit, poolName);
+            registerGauge("permits.inflight", virtual, VirtualThreadPoolExecutor::getInFlight, poolName);
+        }
     }
 
-    // 计算空闲率
-    double calculateIdleRatio(int poolSize, int activeCount) {
-        if (poolSize <= 0) return 0.0;
-        return (double) (poolSize - activeCount) / poolSize;
+    // 任务耗时：累计次数/总耗时导出为FunctionTimer，采样周期内的p50/p99导出为Gauge（毫秒）
+    private void registerLatencyMetrics(String metricName, LatencyHistogram histogram, String poolName) {
+        FunctionTimer.builder("threadpool." + metricName, histogram,
+                        LatencyHistogram::count, LatencyHistogram::totalNanos, TimeUnit.NANOSECONDS)
+                .tag("pool", poolName)
+                .register(meterRegistry);
+        registerGauge(metricName + ".p50", histogram, LatencyHistogram::p50Millis, poolName);
+        registerGauge(metricName + ".p99", histogram, LatencyHistogram::p99Millis, poolName);
     }
 
-    // 自动标签拒绝策略（与线程池配置强绑定）
-    public static class InstrumentedRejectionHandler extends AbortPolicy {
-        private final Counter counter;
+    // 准入控制：可在运行时挂载/移除，未启用时上限和在途数为0
+    private void registerAdmissionMetrics(InstrumentedThreadPoolExecutor executor, String poolName) {
+        registerGauge("admission.limit", executor,
+                e -> e.getAdmission() != null ? e.getAdmission().getLimit() : 0, poolName);
+        registerGauge("admission.inflight", executor,
+                e -> e.getAdmission() != null ? e.getAdmission().getInflight() : 0, poolName);
+        FunctionCounter.builder("threadpool.admission.shed", executor, InstrumentedThreadPoolExecutor::getShedCount)
+                .tag("pool", poolName)
+                .description("Tasks shed by admission control")
+                .register(meterRegistry);
+    }
 
-        public InstrumentedRejectionHandler(String poolName, MeterRegistry registry) {
-            this.counter = Counter.builder("threadpool.rejected.tasks")
+    private void registerRejectionMetrics(InstrumentedRejectionHandler handler, String poolName) {
+        for (InstrumentedRejectionHandler.Outcome outcome : InstrumentedRejectionHandler.Outcome.values()) {
+            FunctionCounter.builder("threadpool.rejected.tasks", handler, h -> h.getCount(outcome))
                     .tag("pool", poolName)
-                    .description("Total rejected tasks count")
-                    .register(registry);
-        }
-
-        @Override
-        public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
-            counter.increment();
-            logger.warn("[Rejection] Pool: {} - Active: {}/{} Queue: {}/{}",
-                    executor,
-                    executor.getActiveCount(), executor.getMaximumPoolSize(),
-                    executor.getQueue().size(), getQueueCapacity(executor.getQueue())
-            );
-            super.rejectedExecution(r, executor);
+                    .tag("policy", handler.getPolicy().name().toLowerCase(Locale.ROOT))
+                    .tag("outcome", outcome.name().toLowerCase(Locale.ROOT))
+                    .description("Rejected tasks by policy outcome")
+                    .register(meterRegistry);
         }
+        FunctionCounter.builder("threadpool.overflow.drained", handler, InstrumentedRejectionHandler::getDrainedCount)
+                .tag("pool", poolName)
+                .register(meterRegistry);
+        registerGauge("overflow.size", handler, InstrumentedRejectionHandler::getOverflowSize, poolName);
+    }
 
-        private int getQueueCapacity(BlockingQueue<?> queue) {
-            if (queue instanceof ResizableLinkedBlockingQueue) {
-                return (int) ((ResizableLinkedBlockingQueue<?>) queue).capacity();
-            }
-            return queue.size() + queue.remainingCapacity();
-        }
+    // 通用Gauge注册方法
+    private <T> void registerGauge(String metricName, T obj, ToDoubleFunction<T> func, String poolName) {
+        Gauge.builder("threadpool." + metricName, obj, func)
+                .tag("pool", poolName)
+                .register(meterRegistry);
     }
 }
\ No newline at end of file
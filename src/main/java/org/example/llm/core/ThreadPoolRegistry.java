@@ -1,96 +1,392 @@
 package org.example.llm.core;
 
-import org.example.llm.entity.ResizableLinkedBlockingQueue;
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.PoolSnapshot;
+import org.example.llm.entity.ResizableBlockingQueue;
 import org.example.llm.entity.ThreadPoolDetail;
+import org.example.llm.entity.TuningRecommendation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
 @Component
 public class ThreadPoolRegistry {
+    public static final int HISTORY_SIZE = 60; // 每个线程池在内存中保留的采样条数
     private final Map<String, PoolMetadata> registry = new ConcurrentHashMap<>();
     private static final Logger logger = LoggerFactory.getLogger(ThreadPoolRegistry.class);
-    private final DeepseekClient deepseekClient;
+    private final Map<String, TuningAdvisor> advisors = new ConcurrentHashMap<>();
+    private final Map<String, String> poolAdvisors = new ConcurrentHashMap<>(); // 线程池 → 顾问名称
+    private final Map<String, BudgetPolicy> budgetPolicies = new ConcurrentHashMap<>();
+    private final Map<String, Integer> budgetCaps = new ConcurrentHashMap<>(); // 全局预算分给各线程池的线程数上限
+    private final Map<String, Bounds> declaredBounds = new ConcurrentHashMap<>(); // 注册时（注解）声明的范围
+    private final Map<String, String> declaredAdvisors = new ConcurrentHashMap<>();
 
-    public ThreadPoolRegistry(DeepseekClient deepseekClient) {
-        this.deepseekClient = deepseekClient;
+    @Value("${threadpool.admission.aimd-latency-ms:500}")
+    private long aimdLatencyMs = 500;
+    @Value("${threadpool.budget.max-threads:0}")
+    private int budgetMaxThreads; // 节点线程总预算，0表示不限制
+    @Value("${threadpool.budget.slo-boost:1.5}")
+    private double sloBoost = 1.5; // 排队时间超出SLO时需求的放大倍数
+
+    public ThreadPoolRegistry(List<TuningAdvisor> advisors) {
+        advisors.forEach(advisor -> this.advisors.put(advisor.name(), advisor));
+        logger.info("可用调优顾问: {}", this.advisors.keySet());
+    }
+
+    public void register(String poolName, ThreadPoolExecutor executor,
+                         int minCore, int maxCore, int minQueue, int maxQueue) {
+        register(poolName, executor, minCore, maxCore, minQueue, maxQueue, DeepseekClient.NAME);
     }
 
     public void register(String poolName, ThreadPoolExecutor executor,
-                         int minCore, int maxCore, int maxQueue) {
-        logger.info("注册线程池: {}, 参数: minCore={}, maxCore={}, maxQueue={}",
-                poolName, minCore, maxCore, maxQueue);
-        registry.put(poolName, new PoolMetadata(executor, minCore, maxCore, maxQueue));
+                         int minCore, int maxCore, int minQueue, int maxQueue, String advisor) {
+        logger.info("注册线程池: {}, 参数: minCore={}, maxCore={}, minQueue={}, maxQueue={}, advisor={}",
+                poolName, minCore, maxCore, minQueue, maxQueue, advisor);
+        if (!advisors.containsKey(advisor)) {
+            throw new IllegalArgumentException("未找到调优顾问: " + advisor);
+        }
+        PoolMetadata meta = new PoolMetadata(executor, minCore, maxCore, minQueue, maxQueue,
+                new PoolSampleHistory(HISTORY_SIZE), new PoolSnapshot(), new AtomicLong());
+        // 注册时先采样一次，调优器和接口无需等待首个采样周期
+        long now = System.currentTimeMillis();
+        ThreadPoolSampler.capture(meta, now);
+        meta.history().add(now, buildDetail(poolName, meta));
+        registry.put(poolName, meta);
+        poolAdvisors.put(poolName, advisor);
+        declaredBounds.put(poolName, new Bounds(minCore, maxCore, minQueue, maxQueue));
+        declaredAdvisors.put(poolName, advisor);
+        budgetPolicies.putIfAbsent(poolName, BudgetPolicy.DEFAULT);
+    }
+
+    /**
+     * 注册时声明的范围（配置未覆盖时使用）
+     */
+    public Bounds getDeclaredBounds(String poolName) {
+        getPoolMetadata(poolName);
+        return declaredBounds.get(poolName);
+    }
+
+    public String getDeclaredAdvisor(String poolName) {
+        getPoolMetadata(poolName);
+        return declaredAdvisors.get(poolName);
+    }
+
+    /**
+     * 整体替换多个线程池的范围并按新范围重新裁剪当前参数
+     * <p>
+     * 先校验所有线程池都已注册，任一无效则全部不生效；替换和裁剪在注册中心锁内完成，
+     * 调优器不会看到部分线程池已更新、部分未更新的中间状态。范围未变化的线程池不做处理。
+     *
+     * @return 范围发生变化的线程池
+     */
+    public synchronized List<String> updateBounds(Map<String, Bounds> updates) {
+        for (String poolName : updates.keySet()) {
+            getPoolMetadata(poolName);
+        }
+        List<String> changed = new ArrayList<>();
+        updates.forEach((poolName, bounds) -> {
+            PoolMetadata meta = registry.get(poolName);
+            if (bounds.equals(new Bounds(meta.minCore(), meta.maxCore(), meta.minQueueSize(), meta.maxQueueSize()))) {
+                return;
+            }
+            registry.put(poolName, new PoolMetadata(meta.executor(), bounds.minCore(), bounds.maxCore(),
+                    bounds.minQueueSize(), bounds.maxQueueSize(), meta.history(), meta.snapshot(), meta.adjustments()));
+            changed.add(poolName);
+        });
+        for (String poolName : changed) {
+            ThreadPoolExecutor executor = registry.get(poolName).executor();
+            BlockingQueue<Runnable> queue = executor.getQueue();
+            int queueCapacity = queue instanceof ResizableBlockingQueue
+                    ? ((ResizableBlockingQueue<?>) queue).capacity()
+                    : -1;
+            adjust(poolName, executor.getCorePoolSize(), executor.getMaximumPoolSize(), queueCapacity);
+            Bounds bounds = updates.get(poolName);
+            logger.info("线程池[{}]范围已更新: minCore={}, maxCore={}, minQueue={}, maxQueue={}，当前core={}, max={}",
+                    poolName, bounds.minCore(), bounds.maxCore(), bounds.minQueueSize(), bounds.maxQueueSize(),
+                    executor.getCorePoolSize(), executor.getMaximumPoolSize());
+        }
+        return changed;
+    }
+
+    /**
+     * 设置线程池在全局预算中的权重和排队时间SLO（毫秒，0表示无SLO），下一次预算分配生效
+     */
+    public void setBudgetPolicy(String poolName, double weight, long waitSloMs) {
+        getPoolMetadata(poolName);
+        budgetPolicies.put(poolName, new BudgetPolicy(weight, waitSloMs));
+    }
+
+    /**
+     * 遍历所有已注册线程池（供采样器使用）
+     */
+    public void forEachPool(BiConsumer<String, PoolMetadata> action) {
+        registry.forEach(action);
+    }
+
+    /**
+     * 最近 n 条采样（按时间升序）
+     */
+    public PoolSampleHistory.Window getHistory(String poolName, int n) {
+        return getPoolMetadata(poolName).history().snapshot(n);
+    }
+
+    /**
+     * 按顾问需要准备调优输入：需要历史的取内存历史，只看最新状态的现场读取一次线程池状态
+     * <p>
+     * 快速环周期（默认500ms）短于采样周期，复用采样器的定时快照会让输入滞后最多一个采样周期；
+     * 现场读取写入独立的快照，不与采样线程争用同一个快照。
+     */
+    public PoolSampleHistory.Window getTuningInput(String poolName, TuningAdvisor advisor) {
+        PoolMetadata meta = getPoolMetadata(poolName);
+        if (advisor.historySize() <= 1) {
+            long now = System.currentTimeMillis();
+            PoolSnapshot fresh = new PoolSnapshot();
+            ThreadPoolSampler.capture(meta.executor(), fresh, now);
+            return PoolSampleHistory.single(now,
+                    fresh.toDetail(poolName, meta.minCore(), meta.maxCore(), meta.maxQueueSize()));
+        }
+        return meta.history().snapshot(advisor.historySize());
     }
 
     public List<ThreadPoolDetail> getAllPoolDetails() {
         return registry.entrySet().stream()
-                .map(entry -> {
-                    PoolMetadata meta = entry.getValue();
-                    ThreadPoolExecutor executor = meta.executor();
-                    BlockingQueue<?> queue = executor.getQueue();
-
-                    // 计算队列容量
-                    int queueCapacity = getQueueCapacity(queue);
-
-                    // 计算队列使用率（防除零）
-                    double queueUtilization = queueCapacity > 0 ?
-                            Math.min(1.0, (double) queue.size() / queueCapacity) : 0.0;
-
-                    // 计算线程空闲率
-                    int poolSize = executor.getPoolSize();
-                    double idleRatio = poolSize > 0 ?
-                            (double) (poolSize - executor.getActiveCount()) / poolSize : 0.0;
-
-                    return new ThreadPoolDetail(
-                            entry.getKey(),
-                            meta.minCore(),
-                            meta.maxCore(),
-                            meta.maxQueueSize(),
-                            executor.getCorePoolSize(),
-                            executor.getMaximumPoolSize(),
-                            executor.getActiveCount(),
-                            queue.size(),
-                            queueCapacity,
-                            queueUtilization,
-                            idleRatio
-                    );
-                })
+                .map(entry -> buildDetail(entry.getKey(), entry.getValue()))
                 .collect(Collectors.toList());
     }
 
-    private int getQueueCapacity(BlockingQueue<?> queue) {
-        if (queue instanceof ResizableLinkedBlockingQueue) {
-            return (int) ((ResizableLinkedBlockingQueue<?>) queue).capacity();
+    // 明细来自采样器的最新快照，不访问线程池本身
+    private ThreadPoolDetail buildDetail(String poolName, PoolMetadata meta) {
+        return meta.snapshot().toDetail(poolName, meta.minCore(), meta.maxCore(), meta.maxQueueSize());
+    }
+
+    public synchronized void adjust(String poolName, int newCore, int newMax) {
+        adjust(poolName, newCore, newMax, -1);
+    }
+
+    /**
+     * 调整核心线程数、最大线程数和队列容量（均按注解范围裁剪）
+     *
+     * @param newQueue 建议的队列容量，小于等于0表示不调整
+     */
+    public synchronized void adjust(String poolName, int newCore, int newMax, int newQueue) {
+        PoolMetadata meta = getPoolMetadata(poolName);
+        int upper = getBudgetCap(poolName);
+        int clampedCore = Math.max(meta.minCore, Math.min(newCore, upper));
+        int clampedMax = Math.max(clampedCore, Math.min(newMax, upper));
+
+        // 先扩大上限再调整核心数，避免出现 core > max 的中间状态
+        ThreadPoolExecutor executor = meta.executor;
+        boolean changed = executor.getCorePoolSize() != clampedCore || executor.getMaximumPoolSize() != clampedMax;
+        if (clampedMax >= executor.getCorePoolSize()) {
+            executor.setMaximumPoolSize(clampedMax);
+            executor.setCorePoolSize(clampedCore);
         } else {
-            // 通用队列容量 = 剩余容量 + 已使用容量
-            return queue.size() + queue.remainingCapacity();
+            executor.setCorePoolSize(clampedCore);
+            executor.setMaximumPoolSize(clampedMax);
+        }
+
+        if (newQueue > 0) {
+            changed |= adjustQueueCapacity(poolName, meta, newQueue);
+        }
+        if (changed) {
+            meta.adjustments().incrementAndGet();
         }
     }
 
-    public synchronized void adjust(String poolName, int newCore, int newMax) {
-        PoolMetadata meta = registry.get(poolName);
-        int clampedCore = Math.max(meta.minCore, Math.min(newCore, meta.maxCore));
-        int clampedMax = Math.max(clampedCore, Math.min(newMax, meta.maxCore));
+    // 返回容量是否发生变化
+    private boolean adjustQueueCapacity(String poolName, PoolMetadata meta, int newQueue) {
+        BlockingQueue<?> queue = meta.executor.getQueue();
+        if (!(queue instanceof ResizableBlockingQueue)) {
+            logger.warn("线程池[{}]队列类型{}不支持调整容量", poolName, queue.getClass().getSimpleName());
+            return false;
+        }
+        int clampedQueue = Math.max(meta.minQueueSize, Math.min(newQueue, meta.maxQueueSize));
+        ResizableBlockingQueue<?> resizable = (ResizableBlockingQueue<?>) queue;
+        if (resizable.capacity() == clampedQueue) {
+            return false;
+        }
+        resizable.setCapacity(clampedQueue);
+        return true;
+    }
 
-        meta.executor.setCorePoolSize(clampedCore);
-        meta.executor.setMaximumPoolSize(clampedMax);
+    /**
+     * 按各线程池的需求和权重重新分配节点线程总预算，并在同一把锁内一次性应用到所有线程池
+     * <p>
+     * 需求 = 活跃线程数 + 排队任务折算的线程数（队列使用率 × 当前最大线程数），排队时间p99超出SLO时再乘以放大倍数；
+     * 分配结果作为各线程池的线程数上限，此后所有调优建议（包括快速环）都按上限裁剪。
+     * 新上限的写入和超限线程池的收缩都在注册中心锁内完成，调整不会看到新旧混合的上限，某个线程池的扩容也不会挤占其他线程池已分到的份额。
+     * 虚拟线程模式的许可上限不占用平台线程，不参与分配。
+     *
+     * @return 线程池名 → 分配的线程数上限；未启用预算时为空
+     */
+    public synchronized Map<String, Integer> rebalanceBudget() {
+        if (budgetMaxThreads <= 0) {
+            return Map.of();
+        }
+        List<ThreadBudgetAllocator.Demand> demands = new ArrayList<>();
+        registry.forEach((poolName, meta) -> {
+            if (meta.executor() instanceof VirtualThreadPoolExecutor) {
+                return;
+            }
+            BudgetPolicy policy = budgetPolicies.getOrDefault(poolName, BudgetPolicy.DEFAULT);
+            demands.add(new ThreadBudgetAllocator.Demand(poolName, meta.minCore(), meta.maxCore(),
+                    demand(buildDetail(poolName, meta), policy), policy.weight()));
+        });
+        int floor = demands.stream().mapToInt(ThreadBudgetAllocator.Demand::minCore).sum();
+        if (floor > budgetMaxThreads) {
+            logger.warn("线程池最小核心线程数之和{}超过线程总预算{}，按最小值分配", floor, budgetMaxThreads);
+        }
+        Map<String, Integer> caps = ThreadBudgetAllocator.allocate(budgetMaxThreads, demands);
+        caps.forEach(budgetCaps::put);
+        // 超出新上限的线程池立即收缩；上限放宽的线程池由调优器在新上限内扩容
+        caps.forEach((poolName, cap) -> {
+            ThreadPoolExecutor executor = registry.get(poolName).executor();
+            if (executor.getMaximumPoolSize() > cap || executor.getCorePoolSize() > cap) {
+                adjust(poolName, executor.getCorePoolSize(), executor.getMaximumPoolSize());
+            }
+        });
+        logger.debug("线程总预算{}分配结果: {}", budgetMaxThreads, caps);
+        return caps;
     }
 
-    public synchronized void adjustByAi(String poolName) {
-        Map<String, Integer> recommendation = deepseekClient.getRecommendationByPool(poolName);
-        int newCore = recommendation.get("core");
-        int newMax = recommendation.get("max");
-        PoolMetadata meta = registry.get(poolName);
-        meta.executor.setCorePoolSize(newCore);
-        meta.executor.setMaximumPoolSize(newMax);
+    private int demand(ThreadPoolDetail detail, BudgetPolicy policy) {
+        double demand = threadDemand(detail.getActiveThreads(), detail.getQueueUtilization(), detail.getCurrentMax());
+        if (policy.waitSloMs() > 0 && detail.getWaitP99Ms() > policy.waitSloMs()) {
+            demand *= sloBoost;
+        }
+        return (int) Math.min(Integer.MAX_VALUE, Math.ceil(demand) + 1); // 留一个余量，避免需求为0时完全收缩
+    }
+
+    /**
+     * 线程需求：活跃线程数 + 积压折算的线程数（队列利用率 × 当前最大线程数，队列满时需求约为最大线程数的两倍）。
+     * 排队任务数不能直接当作线程数使用，否则队列较长的线程池会被要求成百上千个线程。
+     */
+    public static int threadDemand(int activeThreads, double queueUtilization, int currentMax) {
+        return activeThreads + (int) Math.ceil(Math.max(0, queueUtilization) * currentMax);
+    }
+
+    /**
+     * 线程池当前可用的线程数上限：启用全局预算时为分配结果，否则为配置最大线程数
+     */
+    public int getBudgetCap(String poolName) {
+        PoolMetadata meta = getPoolMetadata(poolName);
+        Integer cap = budgetCaps.get(poolName);
+        return cap == null ? meta.maxCore() : Math.max(meta.minCore(), Math.min(cap, meta.maxCore()));
+    }
+
+    /**
+     * 全局预算概况：总预算、各线程池的权重/SLO/分配上限/当前最大线程数
+     */
+    public Map<String, Object> getBudgetStatus() {
+        Map<String, Object> pools = new LinkedHashMap<>();
+        registry.forEach((poolName, meta) -> {
+            BudgetPolicy policy = budgetPolicies.getOrDefault(poolName, BudgetPolicy.DEFAULT);
+            pools.put(poolName, Map.of(
+                    "weight", policy.weight(),
+                    "waitSloMs", policy.waitSloMs(),
+                    "cap", getBudgetCap(poolName),
+                    "currentMax", meta.executor().getMaximumPoolSize()));
+        });
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("maxThreads", budgetMaxThreads);
+        result.put("pools", pools);
+        return result;
+    }
+
+    /**
+     * 注册以来参数实际发生变化的调整次数
+     */
+    public long getAdjustmentCount(String poolName) {
+        return getPoolMetadata(poolName).adjustments().get();
+    }
+
+    public void adjust(String poolName, TuningRecommendation recommendation) {
+        adjust(poolName, recommendation.core(), recommendation.max(), recommendation.queue());
+    }
+
+    /**
+     * 向线程池当前选择的顾问请求建议（异步）
+     */
+    public CompletableFuture<TuningRecommendation> recommend(String poolName) {
+        TuningAdvisor advisor = getAdvisor(poolName);
+        return advisor.recommend(poolName, getTuningInput(poolName, advisor));
+    }
+
+    // 等待顾问响应期间不持有注册中心锁，避免阻塞其他线程池的调整
+    public void adjustByAi(String poolName) {
+        adjust(poolName, recommend(poolName).join());
+    }
+
+    public TuningAdvisor getAdvisor(String poolName) {
+        String name = poolAdvisors.get(poolName);
+        if (name == null) {
+            throw new IllegalArgumentException("未找到线程池: " + poolName);
+        }
+        return advisors.get(name);
+    }
+
+    /**
+     * 切换线程池的调优顾问，下一个调优周期生效
+     */
+    public void setAdvisor(String poolName, String advisor) {
+        getPoolMetadata(poolName);
+        if (!advisors.containsKey(advisor)) {
+            throw new IllegalArgumentException("未找到调优顾问: " + advisor);
+        }
+        poolAdvisors.put(poolName, advisor);
+        logger.info("线程池[{}]调优顾问切换为: {}", poolName, advisor);
+    }
+
+    /**
+     * 为线程池挂载准入控制（NONE 表示移除）
+     * <p>
+     * 上限计的是在途任务（排队 + 执行），初始值为当前最大线程数 + 队列容量，不改变挂载前的行为；
+     * 范围为 [最小核心线程数, 配置最大线程数 + 配置最大队列容量]。
+     */
+    public void setAdmission(String poolName, AdmissionController.Algorithm algorithm) {
+        PoolMetadata meta = getPoolMetadata(poolName);
+        if (!(meta.executor() instanceof InstrumentedThreadPoolExecutor)) {
+            throw new IllegalArgumentException("线程池[" + poolName + "]未启用任务计时，不支持准入控制");
+        }
+        InstrumentedThreadPoolExecutor executor = (InstrumentedThreadPoolExecutor) meta.executor();
+        if (algorithm == AdmissionController.Algorithm.NONE) {
+            executor.setAdmission(null);
+            logger.info("线程池[{}]已移除准入控制", poolName);
+            return;
+        }
+        BlockingQueue<Runnable> queue = executor.getQueue();
+        int queueCapacity = ThreadPoolSampler.queueCapacity(queue, queue.size());
+        int maxLimit = (int) Math.min(Integer.MAX_VALUE, (long) meta.maxCore() + meta.maxQueueSize());
+        int initial = (int) Math.min(maxLimit, (long) executor.getMaximumPoolSize() + queueCapacity);
+        executor.setAdmission(AdmissionController.create(algorithm, initial, Math.max(1, meta.minCore()), maxLimit,
+                aimdLatencyMs));
+        logger.info("线程池[{}]启用准入控制: algorithm={}, 初始上限={}, 范围=[{}, {}]",
+                poolName, algorithm, initial, Math.max(1, meta.minCore()), maxLimit);
+    }
+
+    public AdmissionController getAdmission(String poolName) {
+        ThreadPoolExecutor executor = getExecutor(poolName);
+        return executor instanceof InstrumentedThreadPoolExecutor
+                ? ((InstrumentedThreadPoolExecutor) executor).getAdmission()
+                : null;
+    }
+
+    public Set<String> getAdvisorNames() {
+        return advisors.keySet();
     }
 
     public ThreadPoolExecutor getExecutor(String poolName) {
@@ -134,23 +430,7 @@ public class ThreadPoolRegistry {
     }
 
     public ThreadPoolDetail getPoolDetail(String poolName) {
-PoolMetadata meta = registry.get(poolName);
-        if (meta == null) {
-            throw new IllegalArgumentException("未找到线程池: " + poolName);
-        }
-        return new ThreadPoolDetail(
-                poolName,
-                meta.minCore(),
-                meta.maxCore(),
-                meta.maxQueueSize(),
-                meta.executor.getCorePoolSize(),
-                meta.executor.getMaximumPoolSize(),
-                meta.executor.getActiveCount(),
-                meta.executor.getQueue().size(),
-                getQueueCapacity(meta.executor.getQueue()),
-                (double) meta.executor.getQueue().size() / getQueueCapacity(meta.executor.getQueue()),
-                (double) (meta.executor.getPoolSize() - meta.executor.getActiveCount()) / meta.executor.getPoolSize()
-        );
+        return buildDetail(poolName, getPoolMetadata(poolName));
     }
 
     public PoolMetadata getPoolMetadata(String poolName) {
@@ -162,14 +442,43 @@ PoolMetadata meta = registry.get(poolName);
     }
 
 
+    /**
+     * 线程数和队列容量的调整范围
+     */
+    public record Bounds(int minCore, int maxCore, int minQueueSize, int maxQueueSize) {
+        public Bounds {
+            if (minCore < 0 || maxCore <= 0 || minCore > maxCore || minQueueSize < 0 || minQueueSize > maxQueueSize) {
+                throw new IllegalArgumentException("配置范围无效: core=[" + minCore + ", " + maxCore
+                        + "], queue=[" + minQueueSize + ", " + maxQueueSize + "]");
+            }
+        }
+    }
+
+    /**
+     * 线程池在全局预算中的优先级权重和排队时间SLO（毫秒，0表示无SLO）
+     */
+    public record BudgetPolicy(double weight, long waitSloMs) {
+        static final BudgetPolicy DEFAULT = new BudgetPolicy(1.0, 0);
+
+        public BudgetPolicy {
+            if (weight <= 0 || waitSloMs < 0) {
+                throw new IllegalArgumentException("预算权重必须大于0，SLO不能为负数");
+            }
+        }
+    }
+
     public record PoolMetadata(
             ThreadPoolExecutor executor,
             int minCore,
             int maxCore,
-            int maxQueueSize
+            int minQueueSize,
+            int maxQueueSize,
+            PoolSampleHistory history,
+            PoolSnapshot snapshot,
+            AtomicLong adjustments
     ) {
         public PoolMetadata {
-            if (minCore > maxCore) {
+            if (minCore > maxCore || minQueueSize > maxQueueSize) {
                 throw new IllegalArgumentException("配置范围无效");
             }
         }
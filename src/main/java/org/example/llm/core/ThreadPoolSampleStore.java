@@ -0,0 +1,125 @@
+package org.example.llm.core;
+
+import jakarta.annotation.PreDestroy;
+import org.example.llm.entity.ThreadPoolDetail;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 线程池采样存储：每个线程池对应一个内存映射环形文件（*Detail.ring）
+ */
+@Component
+public class ThreadPoolSampleStore {
+    static final int DEFAULT_SLOTS = 60; // 每个线程池保留的采样条数
+    static final String CSV_HEADER = "timestamp,config_min_core,config_max_core,config_max_queue," +
+            "current_core,current_max,active_threads,queue_size,queue_capacity,queue_utilization,idle_ratio";
+    private static final Logger logger = LoggerFactory.getLogger(ThreadPoolSampleStore.class);
+
+    private final Path logDir = Paths.get("logs/threadpool");
+    private final Map<String, SampleRingBuffer> buffers = new ConcurrentHashMap<>();
+
+    public void append(ThreadPoolDetail detail) {
+        append(System.currentTimeMillis(), detail);
+    }
+
+    public void append(long epochMillis, ThreadPoolDetail detail) {
+        bufferFor(detail.getPoolName()).append(epochMillis, detail);
+    }
+
+    /**
+     * 最近 n 条采样（按时间升序），结构与原CSV解析结果一致
+     */
+    public List<Map<String, Object>> readLast(String poolName, int n) {
+        SampleRingBuffer buffer = existingBuffer(poolName);
+        return buffer == null ? Collections.emptyList() : buffer.readLast(n);
+    }
+
+    /**
+     * 按时间顺序遍历最近 n 条采样的线程需求（活跃线程数 + 积压折算的线程数）
+     */
+    public void forEachThreadDemand(String poolName, int n, SampleRingBuffer.LoadConsumer consumer) {
+        SampleRingBuffer buffer = existingBuffer(poolName);
+        if (buffer != null) {
+            buffer.forEachThreadDemand(n, consumer);
+        }
+    }
+
+    /**
+     * 兼容旧格式：将最近 n 条采样导出为 *Detail.txt（先写临时文件再原子替换）
+     */
+    public Path exportCsv(String poolName, int n) throws IOException {
+        SampleRingBuffer buffer = existingBuffer(poolName);
+        Path target = logDir.resolve(sanitizeFileName(poolName) + "Detail.txt");
+        if (buffer == null) {
+            return target;
+        }
+        List<String> output = new ArrayList<>(n + 1);
+        output.add(CSV_HEADER);
+        output.addAll(buffer.toCsvLines(n));
+
+        Path tmp = logDir.resolve(sanitizeFileName(poolName) + "Detail.txt.tmp");
+        Files.write(tmp, output, StandardCharsets.UTF_8);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return target;
+    }
+
+    private SampleRingBuffer bufferFor(String poolName) {
+        return buffers.computeIfAbsent(poolName, this::openBuffer);
+    }
+
+    // 进程重启后磁盘上已有的环形文件仍可读取
+    private SampleRingBuffer existingBuffer(String poolName) {
+        SampleRingBuffer buffer = buffers.get(poolName);
+        if (buffer == null && Files.exists(ringFilePath(poolName))) {
+            buffer = bufferFor(poolName);
+        }
+        return buffer;
+    }
+
+    private SampleRingBuffer openBuffer(String poolName) {
+        try {
+            Files.createDirectories(logDir);
+            Path file = ringFilePath(poolName);
+            logger.info("打开线程池[{}]采样环形文件: {}", poolName, file);
+            return new SampleRingBuffer(file, DEFAULT_SLOTS);
+        } catch (IOException e) {
+            throw new UncheckedIOException("打开采样文件失败: " + poolName, e);
+        }
+    }
+
+    private Path ringFilePath(String poolName) {
+        return logDir.resolve(sanitizeFileName(poolName) + "Detail.ring");
+    }
+
+    private String sanitizeFileName(String input) {
+        return input.replaceAll("[^a-zA-Z0-9_.-]", "_")
+                .replaceAll("_+", "_") // 合并连续下划线
+                .replaceAll("^_|_$", ""); // 移除首尾下划线
+    }
+
+    @PreDestroy
+    public void close() {
+        buffers.forEach((poolName, buffer) -> {
+            try {
+                buffer.close();
+            } catch (IOException e) {
+                logger.warn("关闭线程池[{}]采样文件失败: {}", poolName, e.getMessage());
+            }
+        });
+        buffers.clear();
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.llm.core;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.llm.entity.LatencyHistogram;
+import org.example.llm.entity.PoolSnapshot;
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.example.llm.entity.ResizableLinkedBlockingQueue;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 共享采样器：每个周期对每个线程池只读取一次状态，写入可复用的 PoolSnapshot
+ * <p>
+ * 指标、落盘、REST接口和调优器都读取快照，不再各自调用 getActiveCount()/getPoolSize() 等需要 mainLock 的方法；
+ * 计时线程池的活跃数和线程数均为无锁计数，只有未启用计时的普通线程池仍在采样时加锁读取。
+ * 每 {@link #HISTORY_EVERY} 次采样向内存历史追加一条，计算一次任务耗时百分位，并重新分配全局线程预算。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ThreadPoolSampler {
+    public static final int HISTORY_EVERY = 5; // 默认1秒采样，历史仍为5秒一条
+    private final ThreadPoolRegistry registry;
+    private long tick;
+
+    @Scheduled(fixedRateString = "${threadpool.sampler.interval-ms:1000}")
+    public void sampleAll() {
+        long now = System.currentTimeMillis();
+        boolean historyTick = tick++ % HISTORY_EVERY == 0;
+        registry.forEachPool((poolName, meta) -> {
+            try {
+                if (historyTick && meta.executor() instanceof InstrumentedThreadPoolExecutor) {
+                    ((InstrumentedThreadPoolExecutor) meta.executor()).refreshHistograms();
+                }
+                // 未启用任务计时的线程池没有任务结束回调，由采样周期兜底转移溢出任务
+                if (meta.executor().getRejectedExecutionHandler() instanceof InstrumentedRejectionHandler) {
+                    ((InstrumentedRejectionHandler) meta.executor().getRejectedExecutionHandler()).drainTo(meta.executor());
+                }
+                capture(meta, now);
+                if (historyTick) {
+                    meta.history().add(now, registry.getPoolDetail(poolName));
+                }
+            } catch (Exception e) {
+                log.error("线程池[{}]采样失败: {}", poolName, e.getMessage());
+            }
+        });
+        if (historyTick) {
+            try {
+                registry.rebalanceBudget();
+            } catch (Exception e) {
+                log.error("线程总预算分配失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 读取一次线程池状态写入快照；活跃数和线程数优先使用计时线程池的无锁计数
+     */
+    static void capture(ThreadPoolRegistry.PoolMetadata meta, long now) {
+        capture(meta.executor(), meta.snapshot(), now);
+    }
+
+    /**
+     * 读取一次线程池状态写入指定快照（快照只能有一个写入线程，非采样线程应传入独立的快照）
+     */
+    static void capture(ThreadPoolExecutor executor, PoolSnapshot target, long now) {
+        BlockingQueue<?> queue = executor.getQueue();
+        int queueSize = queue.size();
+        int active;
+        int poolSize;
+        LatencyHistogram wait = null;
+        LatencyHistogram run = null;
+        if (executor instanceof InstrumentedThreadPoolExecutor) {
+            InstrumentedThreadPoolExecutor instrumented = (InstrumentedThreadPoolExecutor) executor;
+            active = instrumented.getRunningCount();
+            wait = instrumented.getWaitHistogram();
+            run = instrumented.getRunHistogram();
+            // 虚拟线程按需创建，空闲率按未使用的许可计算，调优器据此收缩许可上限
+            poolSize = executor instanceof VirtualThreadPoolExecutor
+                    ? ((VirtualThreadPoolExecutor) executor).getLimit()
+                    : instrumented.getThreadCount();
+        } else {
+            active = executor.getActiveCount();
+            poolSize = executor.getPoolSize();
+        }
+        target.write(now,
+                executor.getCorePoolSize(),
+                executor.getMaximumPoolSize(),
+                poolSize,
+                active,
+                queueSize,
+                queueCapacity(queue, queueSize),
+                wait != null ? wait.p50Millis() : 0.0,
+                wait != null ? wait.p99Millis() : 0.0,
+                run != null ? run.p50Millis() : 0.0,
+                run != null ? run.p99Millis() : 0.0);
+    }
+
+    // 仍兼容旧的 ResizableLinkedBlockingQueue（已废弃但可能被业务线程池直接使用），其剩余容量不反映调整后的容量
+    @SuppressWarnings("deprecation")
+    static int queueCapacity(BlockingQueue<?> queue, int queueSize) {
+        if (queue instanceof ResizableBlockingQueue) {
+            return ((ResizableBlockingQueue<?>) queue).capacity();
+        } else if (queue instanceof ResizableLinkedBlockingQueue) {
+            return (int) ((ResizableLinkedBlockingQueue<?>) queue).capacity();
+        }
+        // 通用队列容量 = 剩余容量 + 已使用容量
+        return (int) Math.min(Integer.MAX_VALUE, (long) queueSize + queue.remainingCapacity());
+    }
+}
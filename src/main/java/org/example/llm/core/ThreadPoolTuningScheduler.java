@@ -1,89 +1,578 @@
 package org.example.llm.core;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.TuningBand;
+import org.example.llm.entity.TuningRecommendation;
 import org.slf4j.Logger;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * 两级调优调度：
+ * <ul>
+ *     <li>快速环：亚秒级周期，用本地顾问（PID）在护栏内直接调整，突发流量下1秒内响应</li>
+ *     <li>慢速环：分钟级周期，由线程池选择的LLM顾问重新规划护栏和目标；上一次请求未返回时跳过本周期</li>
+ * </ul>
+ * 线程池选择的就是本地顾问时只运行快速环，护栏为整个配置范围。
+ * <p>
+ * 慢速环请求顾问前先做两级过滤：负载与上一次规划时相比稳定则沿用当前护栏；
+ * 近期状态的量化指纹命中缓存则直接应用缓存的规划。两者都不满足时才发出LLM请求。
+ * <p>
+ * 所有周期由一个时间轮线程驱动，到期后提交到有界的工作线程池 tuningWorkerPool（本身也是动态线程池）执行。
+ * 每个线程池的首次触发按名称哈希错开相位，之后每次触发叠加随机抖动，避免数千个线程池同时触发；
+ * 同一周期任务上一次尚未执行完时合并本次触发，慢调用不会堆积。
+ * <p>
+ * 启用集群调优时，慢速环只在线程池的主节点上请求顾问（输入为各副本聚合后的采样），规划发布后由所有副本应用。
+ */
 @Service
 public class ThreadPoolTuningScheduler {
-    private final DeepseekClient deepseekClient;
+    private static final int BATCH_MAX_POOLS = 20; // 单个批量请求最多包含的线程池数
+    private static final long LLM_TIMEOUT_MS = 10_000; // LLM请求超时上限
     private final ThreadPoolRegistry registry;
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4); // 独立调度线程池
-    private final Executor asyncExecutor = Executors.newFixedThreadPool(4); // 异步执行器
+    private final LlmCallMetrics metrics;
+    private final PidTuningAdvisor localAdvisor;
+    private static final long MAX_INITIAL_SPREAD_MS = 10_000; // 慢速环首次触发的最大错开时间
+    private final ThreadPoolExecutor worker;
+    private final MeterRegistry meterRegistry;
+    private final ClusterCoordinator cluster;
     private final Logger log = org.slf4j.LoggerFactory.getLogger(ThreadPoolTuningScheduler.class);
-    private final Map<String, ScheduledFuture<?>> tuningFutures = new ConcurrentHashMap<>();
+    private final Map<String, PeriodicTask> innerFutures = new ConcurrentHashMap<>();
+    private final Map<String, PeriodicTask> outerFutures = new ConcurrentHashMap<>();
+    private final Map<String, TuningBand> bands = new ConcurrentHashMap<>();
+    private final Set<String> outerInFlight = ConcurrentHashMap.newKeySet();
+    private final Map<String, CoreFloor> floors = new ConcurrentHashMap<>(); // 预扩容设置的核心线程数下限
+    private final Map<String, Cadence> cadences = new ConcurrentHashMap<>(); // 按线程池覆盖的调优周期
 
-    public ThreadPoolTuningScheduler(DeepseekClient deepseekClient, ThreadPoolRegistry registry) {
-        this.deepseekClient = deepseekClient;
+    @Value("${threadpool.tuning.inner-interval-ms:500}")
+    private long innerIntervalMs;
+    @Value("${threadpool.tuning.outer-interval-ms:60000}")
+    private long outerIntervalMs;
+    @Value("${threadpool.tuning.jitter:0.1}")
+    private double jitter; // 每次触发的随机抖动，占周期的比例
+    @Value("${threadpool.tuning.timer-tick-ms:10}")
+    private long timerTickMs;
+    private HashedWheelTimer timer;
+    private final Map<String, Counter> tickCounters = new ConcurrentHashMap<>();
+
+    // 批量模式：同一慢速周期内待规划的线程池合并为一次LLM请求
+    @Value("${threadpool.tuning.batch.enabled:false}")
+    private boolean batchEnabled;
+    private final Set<String> batchPools = ConcurrentHashMap.newKeySet();
+    private PeriodicTask batchFuture;
+
+    // 规划缓存与变化检测
+    @Value("${threadpool.tuning.cache.enabled:true}")
+    private boolean cacheEnabled;
+    @Value("${threadpool.tuning.cache.ttl-ms:900000}")
+    private long cacheTtlMs;
+    @Value("${threadpool.tuning.cache.max-entries:512}")
+    private int cacheMaxEntries;
+    @Value("${threadpool.tuning.skip.enabled:true}")
+    private boolean skipEnabled;
+    @Value("${threadpool.tuning.skip.utilization-tolerance:0.05}")
+    private double skipUtilizationTolerance;
+    @Value("${threadpool.tuning.skip.relative-tolerance:0.1}")
+    private double skipRelativeTolerance;
+    @Value("${threadpool.tuning.skip.max-skip-ms:900000}")
+    private long maxSkipMs;
+    private RecommendationCache cache;
+    private ChangeDetector changeDetector;
+
+    public ThreadPoolTuningScheduler(ThreadPoolRegistry registry, LlmCallMetrics metrics,
+                                     PidTuningAdvisor localAdvisor,
+                                     @Qualifier("tuningWorkerPool") ThreadPoolExecutor worker,
+                                     MeterRegistry meterRegistry, ClusterCoordinator cluster) {
         this.registry = registry;
+        this.metrics = metrics;
+        this.localAdvisor = localAdvisor;
+        this.worker = worker;
+        this.meterRegistry = meterRegistry;
+        this.cluster = cluster;
     }
 
-    // 启动5秒间隔的异步调优（针对单个线程池）
+    @PostConstruct
+    void init() {
+        cache = new RecommendationCache(cacheMaxEntries, cacheTtlMs);
+        changeDetector = new ChangeDetector(skipUtilizationTolerance, skipRelativeTolerance, maxSkipMs);
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("threadpool.tuning.jitter 必须在 [0, 1) 内");
+        }
+        // 一圈覆盖一个快速环周期以上，快速环任务不需要多圈计数
+        int wheelSize = (int) Math.max(64, Math.min(4096, innerIntervalMs * 2 / timerTickMs));
+        timer = new HashedWheelTimer("tuning-timer", timerTickMs, wheelSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        innerFutures.values().forEach(PeriodicTask::cancel);
+        outerFutures.values().forEach(PeriodicTask::cancel);
+        if (batchFuture != null) {
+            batchFuture.cancel();
+        }
+        timer.stop();
+    }
+
+    // 启动两级调优（针对单个线程池）
     public void startAutoTuning(String poolName) {
-        if (tuningFutures.containsKey(poolName)) return;
+        if (innerFutures.containsKey(poolName)) return;
+
+        ThreadPoolRegistry.PoolMetadata meta = registry.getPoolMetadata(poolName);
+        bands.putIfAbsent(poolName, TuningBand.full(meta.minCore(), meta.maxCore()));
+        long innerMs = innerInterval(poolName);
+        long outerMs = outerInterval(poolName);
+        innerFutures.put(poolName, new PeriodicTask("inner", () -> innerTune(poolName),
+                phase(poolName, innerMs), innerMs));
+
+        if (!registry.getAdvisor(poolName).remote()) {
+            log.info("启动线程池[{}]的本地调优（每{}毫秒一次）", poolName, innerMs);
+            return;
+        }
+        cluster.subscribe(poolName, plan -> applyPlan(poolName, plan));
+        if (batchEnabled) {
+            batchPools.add(poolName);
+            ensureBatchTask();
+        } else {
+            // 启动后尽快规划一次（按相位错开，最多10秒），之后按慢速周期执行
+            outerFutures.put(poolName, new PeriodicTask("outer", () -> outerTune(poolName),
+                    phase(poolName, Math.min(outerMs, MAX_INITIAL_SPREAD_MS)), outerMs));
+        }
+        log.info("启动线程池[{}]的两级调优（快速环{}毫秒，LLM规划{}毫秒{}）",
+                poolName, innerMs, batchEnabled ? outerIntervalMs : outerMs, batchEnabled ? "，批量" : "");
+    }
+
+    /**
+     * 覆盖线程池的快速环/慢速环周期（null 表示使用全局周期），调优已启动时立即按新周期重新调度
+     */
+    public void setCadence(String poolName, Long innerMs, Long outerMs) {
+        if (updateCadence(poolName, innerMs, outerMs)) {
+            onAdvisorChanged(poolName);
+        }
+    }
+
+    /**
+     * 只更新周期不重新调度，返回周期是否变化（供需要合并多项变化后只重启一次的调用方使用）
+     */
+    boolean updateCadence(String poolName, Long innerMs, Long outerMs) {
+        if ((innerMs != null && innerMs <= 0) || (outerMs != null && outerMs <= 0)) {
+            throw new IllegalArgumentException("调优周期必须大于0");
+        }
+        Cadence cadence = new Cadence(innerMs, outerMs);
+        Cadence previous = cadence.isDefault() ? cadences.remove(poolName) : cadences.put(poolName, cadence);
+        return !cadence.equals(previous == null ? Cadence.DEFAULT : previous);
+    }
+
+    /**
+     * 线程池范围变化后按新范围重置护栏，调优已启动时重新调度并尽快重新规划
+     */
+    public void onBoundsChanged(String poolName) {
+        resetBand(poolName);
+        onAdvisorChanged(poolName);
+    }
+
+    /**
+     * 按线程池当前范围重置护栏，不重新调度
+     */
+    void resetBand(String poolName) {
+        ThreadPoolRegistry.PoolMetadata meta = registry.getPoolMetadata(poolName);
+        bands.put(poolName, TuningBand.full(meta.minCore(), meta.maxCore()));
+    }
 
-        // 立即执行一次，之后每5秒执行
-        ScheduledFuture<?> future = scheduler.scheduleAtFixedRate(
-                () -> asyncTune(poolName), 0, 5, TimeUnit.SECONDS
-        );
-        tuningFutures.put(poolName, future);
-        log.info("启动线程池[{}]的异步调优（每5秒一次）", poolName);
+    private long innerInterval(String poolName) {
+        Cadence cadence = cadences.get(poolName);
+        return cadence != null && cadence.innerMs() != null ? cadence.innerMs() : innerIntervalMs;
     }
 
-    // 核心异步调优逻辑
-    @Async("tuningAsyncPool") // 自定义异步线程池（避免与调度线程共用）
-    public void asyncTune(String poolName) {
-        if (registry.getPoolDetail(poolName) == null) {
-            log.warn("线程池[{}]未注册，跳过调优", poolName);
+    private long outerInterval(String poolName) {
+        Cadence cadence = cadences.get(poolName);
+        return cadence != null && cadence.outerMs() != null ? cadence.outerMs() : outerIntervalMs;
+    }
+
+    /**
+     * 切换顾问后重新调度（调优未启动时不做处理）
+     */
+    public void onAdvisorChanged(String poolName) {
+        if (innerFutures.containsKey(poolName)) {
+            stopAutoTuning(poolName);
+            startAutoTuning(poolName);
+        }
+    }
+
+    public TuningBand getBand(String poolName) {
+        return bands.get(poolName);
+    }
+
+    /**
+     * 在 untilMillis 之前，两级调优都不把核心线程数调到 core 以下（供预测性预扩容使用）
+     */
+    public void holdFloor(String poolName, int core, long untilMillis) {
+        floors.put(poolName, new CoreFloor(core, untilMillis));
+    }
+
+    private int floor(String poolName) {
+        CoreFloor floor = floors.get(poolName);
+        if (floor == null) {
+            return 0;
+        }
+        if (floor.untilMillis() < System.currentTimeMillis()) {
+            floors.remove(poolName, floor);
+            return 0;
+        }
+        return floor.core();
+    }
+
+    // 快速环：本地顾问同步给出建议（微秒级），裁剪到护栏内后调整
+    void innerTune(String poolName) {
+        try {
+            TuningAdvisor advisor = registry.getAdvisor(poolName);
+            TuningAdvisor inner = advisor.remote() ? localAdvisor : advisor;
+            TuningRecommendation suggestion = inner.recommend(poolName, registry.getTuningInput(poolName, inner))
+                    .getNow(null);
+            if (suggestion == null) {
+                return; // 本地顾问应同步完成，未完成时跳过本周期，不阻塞调度线程
+            }
+            TuningBand band = bands.get(poolName);
+            int currentCore = registry.getCurrentCore(poolName);
+            int core = suggestion.core();
+            // 快速环无动作时向慢速环给出的目标逐步靠拢
+            if (core == currentCore && band.hasTarget() && core != band.targetCore()) {
+                core += Integer.signum(band.targetCore() - core);
+            }
+            core = Math.max(band.clampCore(core), floor(poolName));
+            int max = Math.max(band.clampMax(Math.max(suggestion.max(), core), core), core);
+            applySuggestion(poolName, new TuningRecommendation(core, max, suggestion.queue()), false);
+        } catch (Exception e) {
+            log.error("线程池[{}]快速调优失败：{}", poolName, e.getMessage(), e);
+        }
+    }
+
+    // 慢速环：请求异步发出，响应回调中重设护栏并应用规划，不阻塞调度线程
+    void outerTune(String poolName) {
+        if (!outerInFlight.add(poolName)) {
+            log.debug("线程池[{}]上一次LLM规划尚未返回，跳过本周期", poolName);
             return;
         }
+        TuningAdvisor advisor;
+        PoolSampleHistory.Window history;
         try {
-            // 1. 获取Deepseek建议
-            Map<String, Integer> suggestion = CompletableFuture.supplyAsync(
-                    () -> deepseekClient.getRecommendationByPool(poolName),
-                    asyncExecutor
-            ).get(10, TimeUnit.SECONDS); // 10秒超时保护
-
-            // 2. 校验建议合法性
-            int newCore = Math.max(
-                    registry.getMinCore(poolName),
-                    Math.min(suggestion.get("core"), registry.getMaxCore(poolName))
-            );
-            int newMax = Math.max(newCore,
-                    Math.min(suggestion.get("max"), registry.getMaxCore(poolName))
-            );
-
-            // 3. 调整线程池参数
-            registry.adjust(poolName, newCore, newMax);
-            log.info("线程池[{}]调优完成：core={}→{}，max={}→{}",
-                    poolName, registry.getCurrentCore(poolName), newCore,
-                    registry.getCurrentMax(poolName), newMax);
-
-        } catch (TimeoutException e) {
-            log.warn("Deepseek调用超时（pool={}），跳过本次调优", poolName, e);
+            advisor = registry.getAdvisor(poolName);
+            if (!cluster.isLeader(poolName)) {
+                metrics.recordSkipped(advisor.name(), "follower");
+                outerInFlight.remove(poolName);
+                return;
+            }
+            history = cluster.aggregate(poolName, registry.getTuningInput(poolName, advisor));
+            if (reuse(poolName, advisor, history)) {
+                outerInFlight.remove(poolName);
+                return;
+            }
+        } catch (RuntimeException e) {
+            outerInFlight.remove(poolName);
+            throw e;
+        }
+        advisor.recommend(poolName, history)
+                .orTimeout(Math.min(LLM_TIMEOUT_MS, outerInterval(poolName)), TimeUnit.MILLISECONDS)
+                .whenComplete((plan, e) -> {
+                    outerInFlight.remove(poolName);
+                    if (e != null) {
+                        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                        if (cause instanceof TimeoutException) {
+                            log.warn("顾问[{}]调用超时（pool={}），沿用当前护栏", advisor.name(), poolName);
+                        } else {
+                            log.error("线程池[{}]LLM规划失败：{}", poolName, cause.getMessage(), cause);
+                        }
+                        return;
+                    }
+                    remember(poolName, advisor, history, plan);
+                    applyPlan(poolName, plan);
+                    cluster.publish(poolName, plan);
+                });
+    }
+
+    /**
+     * 不请求顾问即可完成本次规划时返回 true：负载稳定则沿用当前护栏，指纹命中缓存则应用缓存的规划
+     */
+    private boolean reuse(String poolName, TuningAdvisor advisor, PoolSampleHistory.Window history) {
+        if (history.isEmpty()) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        if (skipEnabled && changeDetector.stable(poolName, history, now)) {
+            metrics.recordSkipped(advisor.name(), "stable");
+            log.debug("线程池[{}]负载稳定，跳过LLM规划", poolName);
+            return true;
+        }
+        if (!cacheEnabled) {
+            return false;
+        }
+        TuningRecommendation cached = cache.get(RecommendationCache.key(advisor.name(), history), now);
+        metrics.recordCacheLookup(advisor.name(), cached != null);
+        if (cached == null) {
+            return false;
+        }
+        metrics.recordSkipped(advisor.name(), "cached");
+        log.debug("线程池[{}]命中规划缓存：{}", poolName, cached);
+        changeDetector.markPlanned(poolName, history, now);
+        applyPlan(poolName, cached);
+        cluster.publish(poolName, cached);
+        return true;
+    }
+
+    // 记录顾问返回的规划及规划时的状态
+    private void remember(String poolName, TuningAdvisor advisor, PoolSampleHistory.Window history,
+                          TuningRecommendation plan) {
+        if (history.isEmpty() || advisor.degraded(poolName)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (cacheEnabled) {
+            cache.put(RecommendationCache.key(advisor.name(), history), plan, now);
+        }
+        changeDetector.markPlanned(poolName, history, now);
+    }
+
+    private synchronized void ensureBatchTask() {
+        if (batchFuture == null) {
+            batchFuture = new PeriodicTask("batch", this::batchTune, 0, outerIntervalMs);
+        }
+    }
+
+    // 按线程池名哈希得到 [0, period) 内的固定相位
+    private static long phase(String poolName, long periodMs) {
+        int hash = poolName.hashCode() * 0x9E3779B9; // 打散相近名称的哈希值
+        return Math.floorMod(hash, Math.max(1, periodMs));
+    }
+
+    private Counter tickCounter(String loop, String outcome) {
+        return tickCounters.computeIfAbsent(loop + ':' + outcome, k -> Counter.builder("threadpool.tuning.ticks")
+                .tag("loop", loop)
+                .tag("outcome", outcome)
+                .description("Tuning timer firings by outcome")
+                .register(meterRegistry));
+    }
+
+    /**
+     * 周期任务：由时间轮按名义周期逐次重新挂载（固定频率，不累积漂移），实际触发时间叠加 ±jitter 的随机抖动；
+     * 上一次执行未结束时合并本次触发，工作线程池拒绝时跳过本次
+     */
+    private final class PeriodicTask {
+        private final Runnable task;
+        private final long periodMs;
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final Counter runs;
+        private final Counter coalesced;
+        private final Counter rejected;
+        private volatile boolean cancelled;
+        private volatile HashedWheelTimer.Timeout timeout;
+        private long nominal; // 下一次名义触发时刻（毫秒，单调时钟），只由时间轮线程更新
+
+        PeriodicTask(String loop, Runnable task, long initialDelayMs, long periodMs) {
+            this.task = task;
+            this.runs = tickCounter(loop, "run");
+            this.coalesced = tickCounter(loop, "coalesced");
+            this.rejected = tickCounter(loop, "rejected");
+            this.periodMs = periodMs;
+            this.nominal = TimeUnit.NANOSECONDS.toMillis(System.nanoTime()) + initialDelayMs;
+            this.timeout = timer.newTimeout(this::fire, initialDelayMs);
+        }
+
+        private void fire() {
+            if (cancelled) {
+                return;
+            }
+            nominal += periodMs;
+            long spread = (long) (periodMs * jitter);
+            long offset = spread > 0 ? ThreadLocalRandom.current().nextLong(-spread, spread + 1) : 0;
+            long delay = Math.max(0, nominal + offset - TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+            timeout = timer.newTimeout(this::fire, delay);
+
+            if (!running.compareAndSet(false, true)) {
+                coalesced.increment();
+                return;
+            }
+            try {
+                worker.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        running.set(false);
+                    }
+                });
+                runs.increment();
+            } catch (RejectedExecutionException e) {
+                running.set(false);
+                rejected.increment();
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            timeout.cancel();
+        }
+
+        boolean isDone() {
+            return cancelled;
+        }
+    }
+
+    // 批量规划：收集本周期内所有待规划线程池，按顾问分组，再按BATCH_MAX_POOLS分块，每块一次请求
+    void batchTune() {
+        Map<TuningAdvisor, List<String>> byAdvisor = new LinkedHashMap<>();
+        for (String poolName : batchPools) {
+            if (outerInFlight.contains(poolName)) {
+                continue;
+            }
+            try {
+                byAdvisor.computeIfAbsent(registry.getAdvisor(poolName), a -> new ArrayList<>()).add(poolName);
+            } catch (IllegalArgumentException e) {
+                log.warn("线程池[{}]未注册，跳过调优", poolName);
+            }
+        }
+        if (byAdvisor.isEmpty()) {
+            return;
+        }
+        int calls = 0;
+        for (Map.Entry<TuningAdvisor, List<String>> entry : byAdvisor.entrySet()) {
+            calls += batchTune(entry.getKey(), entry.getValue());
+        }
+        metrics.recordCallsPerTick("batch", calls);
+    }
+
+    // 返回发出的LLM请求数
+    private int batchTune(TuningAdvisor advisor, List<String> due) {
+        int calls = 0;
+        for (int from = 0; from < due.size(); from += BATCH_MAX_POOLS) {
+            List<String> chunk = due.subList(from, Math.min(from + BATCH_MAX_POOLS, due.size()));
+            Map<String, PoolSampleHistory.Window> histories = new LinkedHashMap<>();
+            for (String poolName : chunk) {
+                try {
+                    if (!cluster.isLeader(poolName)) {
+                        metrics.recordSkipped(advisor.name(), "follower");
+                        continue;
+                    }
+                    PoolSampleHistory.Window history = cluster.aggregate(poolName,
+                            registry.getTuningInput(poolName, advisor));
+                    if (!reuse(poolName, advisor, history)) {
+                        histories.put(poolName, history);
+                    }
+                } catch (IllegalArgumentException e) {
+                    log.warn("线程池[{}]未注册，跳过调优", poolName);
+                }
+            }
+            if (histories.isEmpty()) {
+                continue;
+            }
+            metrics.recordBatchSize(histories.size());
+            calls++;
+            outerInFlight.addAll(histories.keySet());
+            advisor.recommendBatch(histories)
+                    .orTimeout(Math.min(LLM_TIMEOUT_MS, outerIntervalMs), TimeUnit.MILLISECONDS)
+                    .whenComplete((plans, e) -> {
+                        outerInFlight.removeAll(histories.keySet());
+                        if (e != null) {
+                            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                            log.warn("批量规划失败（pools={}）：{}", histories.keySet(), cause.toString());
+                            return;
+                        }
+                        plans.forEach((poolName, plan) -> {
+                            PoolSampleHistory.Window history = histories.get(poolName);
+                            if (history != null) {
+                                remember(poolName, advisor, history, plan);
+                            }
+                            applyPlan(poolName, plan);
+                            cluster.publish(poolName, plan);
+                        });
+                    });
+        }
+        return calls;
+    }
+
+    // LLM规划：以建议为中心重设护栏，并直接应用建议（含队列容量）
+    private void applyPlan(String poolName, TuningRecommendation plan) {
+        int floor = floor(poolName);
+        if (plan.core() < floor) {
+            plan = new TuningRecommendation(floor, Math.max(plan.max(), floor), plan.queue());
+        }
+        ThreadPoolRegistry.PoolMetadata meta = registry.getPoolMetadata(poolName);
+        TuningBand band = TuningBand.around(plan, meta.minCore(), meta.maxCore());
+        bands.put(poolName, band);
+        log.info("线程池[{}]护栏已更新：core∈[{}, {}]，max≤{}，目标core={}",
+                poolName, band.lowerCore(), band.upperCore(), band.upperMax(), band.targetCore());
+        applySuggestion(poolName, plan, true);
+    }
+
+    // 调整线程池参数（registry内部按注解范围裁剪）
+    private void applySuggestion(String poolName, TuningRecommendation suggestion, boolean fromPlan) {
+        try {
+            int oldCore = registry.getCurrentCore(poolName);
+            int oldMax = registry.getCurrentMax(poolName);
+            registry.adjust(poolName, suggestion);
+            int newCore = registry.getCurrentCore(poolName);
+            int newMax = registry.getCurrentMax(poolName);
+            // 快速环高频运行，参数未变化时不打印
+            if (newCore == oldCore && newMax == oldMax && !suggestion.hasQueue()) {
+                return;
+            }
+            if (fromPlan) {
+                log.info("线程池[{}]按LLM规划调整：core={}→{}，max={}→{}，queue={}",
+                        poolName, oldCore, newCore, oldMax, newMax,
+                        currentQueueCapacity(poolName));
+            } else {
+                log.debug("线程池[{}]快速调整：core={}→{}，max={}→{}", poolName, oldCore, newCore, oldMax, newMax);
+            }
         } catch (Exception e) {
             log.error("线程池[{}]调优失败：{}", poolName, e.getMessage(), e);
         }
     }
 
+    // 快照最多滞后一个采样周期，刚调整过的队列容量直接从队列读取
+    private int currentQueueCapacity(String poolName) {
+        BlockingQueue<Runnable> queue = registry.getExecutor(poolName).getQueue();
+        return ThreadPoolSampler.queueCapacity(queue, queue.size());
+    }
+
     // 停止调优
     public void stopAutoTuning(String poolName) {
-        ScheduledFuture<?> future = tuningFutures.remove(poolName);
-        if (future != null && !future.isDone()) {
-            future.cancel(true); // 中断未完成的调优任务
+        batchPools.remove(poolName);
+        changeDetector.forget(poolName); // 重新启动（如切换顾问）后立即规划一次
+        for (Map<String, PeriodicTask> futures : List.of(innerFutures, outerFutures)) {
+            PeriodicTask future = futures.remove(poolName);
+            if (future != null) {
+                future.cancel(); // 已提交的本次调优仍会执行完，之后不再触发
+            }
         }
         log.info("停止线程池[{}]的异步调优", poolName);
     }
 
+    private record CoreFloor(int core, long untilMillis) {
+    }
+
+    private record Cadence(Long innerMs, Long outerMs) {
+        static final Cadence DEFAULT = new Cadence(null, null);
+
+        boolean isDefault() {
+            return innerMs == null && outerMs == null;
+        }
+    }
+
     public Serializable isTuningActive(String poolName) {
-        ScheduledFuture<?> future = tuningFutures.get(poolName);
+        PeriodicTask future = innerFutures.get(poolName);
         if (future != null && !future.isDone()) {
             return true; // 调优任务正在进行
         }
         return false; // 调优任务未启动或已完成
     }
-}
\ No newline at end of file
+}
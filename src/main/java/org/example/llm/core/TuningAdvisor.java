@@ -0,0 +1,64 @@
+package org.example.llm.core;
+
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.TuningRecommendation;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 调优顾问SPI：根据线程池最近的采样历史给出参数建议
+ * <p>
+ * 实现类注册为Spring Bean即可被 ThreadPoolRegistry 发现，并可按线程池单独选择（@DyThreadPool.advisor）。
+ * 返回的建议由注册中心统一按注解范围裁剪后生效。
+ */
+public interface TuningAdvisor {
+
+    /**
+     * 顾问名称（线程池按此名称选择顾问）
+     */
+    String name();
+
+    CompletableFuture<TuningRecommendation> recommend(String poolName, PoolSampleHistory.Window history);
+
+    /**
+     * 批量建议；默认逐个调用 {@link #recommend}，LLM类实现可合并为一次请求
+     */
+    default CompletableFuture<Map<String, TuningRecommendation>> recommendBatch(
+            Map<String, PoolSampleHistory.Window> histories) {
+        Map<String, TuningRecommendation> result = new LinkedHashMap<>();
+        CompletableFuture<?>[] futures = histories.entrySet().stream()
+                .map(e -> recommend(e.getKey(), e.getValue())
+                        .thenAccept(r -> {
+                            synchronized (result) {
+                                result.put(e.getKey(), r);
+                            }
+                        })
+                        .exceptionally(ex -> null))
+                .toArray(CompletableFuture[]::new);
+        return CompletableFuture.allOf(futures).thenApply(v -> result);
+    }
+
+    /**
+     * 是否为远程/慢速顾问（LLM）：是则在两级调度中只负责慢速规划，快速环交给本地顾问
+     */
+    default boolean remote() {
+        return false;
+    }
+
+    /**
+     * 该线程池最近一次建议是否为降级结果（如远程顾问不可用时的本地规划）；降级结果不进入规划缓存，也不抑制下一次规划
+     */
+    default boolean degraded(String poolName) {
+        return false;
+    }
+
+    /**
+     * 需要的历史采样条数；返回1时注册中心在调用时现场读取一次线程池状态（任务耗时百分位仍为最近一个历史周期的值），
+     * 而不是复用采样器最近一次定时快照
+     */
+    default int historySize() {
+        return ThreadPoolRegistry.HISTORY_SIZE;
+    }
+}
@@ -0,0 +1,66 @@
+package org.example.llm.core;
+
+/**
+ * Vegas风格上限：以观察到的最小延迟为无排队基线，估算排队任务数 limit × (1 - 基线/当前延迟)，
+ * 排队少于 alpha 时增长、多于 beta 时收缩，阈值随上限按 log10 缩放
+ * <p>
+ * 基线每 {@link #PROBE_MULTIPLIER} × limit 个样本重置一次，避免负载特征变化后一直沿用过小的基线。
+ */
+public class VegasLimit implements ConcurrencyLimit {
+    static final int PROBE_MULTIPLIER = 30;
+    private static final int ALPHA_FACTOR = 3;
+    private static final int BETA_FACTOR = 6;
+    private final int minLimit;
+    private final int maxLimit;
+    private volatile double estimatedLimit;
+    private long rttNoLoad;
+    private long probeCountdown;
+
+    public VegasLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.max(minLimit, Math.min(initialLimit, maxLimit));
+        this.probeCountdown = nextProbe();
+    }
+
+    @Override
+    public int getLimit() {
+        return (int) estimatedLimit;
+    }
+
+    @Override
+    public synchronized void onSample(long latencyNanos, int inflight, boolean dropped) {
+        long rtt = Math.max(1, latencyNanos);
+        if (--probeCountdown <= 0) {
+            rttNoLoad = rtt;
+            probeCountdown = nextProbe();
+            return;
+        }
+        if (rttNoLoad == 0 || rtt < rttNoLoad) {
+            rttNoLoad = rtt;
+            return;
+        }
+        double limit = estimatedLimit;
+        double log = Math.max(1, Math.log10(limit));
+        double queued = Math.ceil(limit * (1 - (double) rttNoLoad / rtt));
+        double newLimit;
+        if (dropped) {
+            newLimit = limit - log;
+        } else if (inflight * 2 < limit) {
+            return; // 负载不足以用满上限时不调整
+        } else if (queued <= log) {
+            newLimit = limit + BETA_FACTOR * log;
+        } else if (queued < ALPHA_FACTOR * log) {
+            newLimit = limit + log;
+        } else if (queued > BETA_FACTOR * log) {
+            newLimit = limit - log;
+        } else {
+            return;
+        }
+        estimatedLimit = Math.max(minLimit, Math.min(newLimit, maxLimit));
+    }
+
+    private long nextProbe() {
+        return (long) PROBE_MULTIPLIER * Math.max(1, (int) estimatedLimit);
+    }
+}
@@ -0,0 +1,314 @@
+package org.example.llm.core;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 虚拟线程执行器：每个任务在虚拟线程上运行，并发数由可动态调整的许可上限控制，而不是核心/最大线程数
+ * <p>
+ * 为了让注册中心、采样器和调优器无需区分线程池类型，仍以 ThreadPoolExecutor 的接口对外：
+ * setCorePoolSize 设置许可上限，maximumPoolSize 只作为上限的边界记录；许可用尽时任务进入有界队列，
+ * 队列满时交给拒绝策略。任务结束的虚拟线程会继续取队列中的任务，直到队列为空才归还许可。
+ * <p>
+ * 虚拟线程需要 JDK 21 运行时；在更低版本上运行时退化为使用传入的平台线程工厂，行为相同但每个许可对应一个平台线程。
+ */
+@Slf4j
+public class VirtualThreadPoolExecutor extends InstrumentedThreadPoolExecutor {
+    private static final boolean VIRTUAL_SUPPORTED = virtualThreadFactory("probe-") != null;
+
+    private final BlockingQueue<Runnable> workQueue;
+    private final ThreadFactory factory;
+    private final AtomicInteger inFlight = new AtomicInteger(); // 已持有许可的工作线程数
+    private final LongAdder completed = new LongAdder();
+    private final Set<Thread> workers = ConcurrentHashMap.newKeySet();
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private volatile int limit;
+    private volatile int maximumLimit;
+    private volatile boolean shutdown;
+
+    /**
+     * @param namePrefix      虚拟线程名前缀
+     * @param fallbackFactory 不支持虚拟线程时使用的平台线程工厂
+     */
+    public VirtualThreadPoolExecutor(String namePrefix, int limit, int maximumLimit, BlockingQueue<Runnable> workQueue,
+                                     ThreadFactory fallbackFactory, RejectedExecutionHandler handler) {
+        // 父类只承载拒绝策略等配置，不创建任何线程
+        super(0, 1, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(), fallbackFactory, handler);
+        if (limit <= 0 || maximumLimit < limit) {
+            throw new IllegalArgumentException();
+        }
+        this.workQueue = workQueue;
+        this.limit = limit;
+        this.maximumLimit = maximumLimit;
+        ThreadFactory virtual = virtualThreadFactory(namePrefix);
+        this.factory = virtual != null ? virtual : fallbackFactory;
+        if (virtual == null) {
+            log.warn("当前JDK不支持虚拟线程（需要21+），使用平台线程执行");
+        }
+    }
+
+    /**
+     * 当前运行时是否支持虚拟线程
+     */
+    public static boolean virtualThreadsSupported() {
+        return VIRTUAL_SUPPORTED;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        if (command == null) {
+            throw new NullPointerException();
+        }
+        TimedTask task = admit(command);
+        if (task == null) {
+            return;
+        }
+        if (shutdown) {
+            rejectTask(task);
+            return;
+        }
+        if (tryAcquire()) {
+            startWorker(task);
+            return;
+        }
+        if (!workQueue.offer(task)) {
+            rejectTask(task);
+            return;
+        }
+        // 入队期间可能有工作线程恰好退出，重新检查避免任务滞留在队列中
+        drainIfIdle();
+    }
+
+    private boolean tryAcquire() {
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    // 返回是否启动了新的工作线程
+    private boolean drainIfIdle() {
+        boolean started = false;
+        while (!workQueue.isEmpty() && tryAcquire()) {
+            Runnable next = workQueue.poll();
+            if (next == null) {
+                release();
+                continue;
+            }
+            startWorker(next);
+            started = true;
+        }
+        return started;
+    }
+
+    private void startWorker(Runnable first) {
+        try {
+            factory.newThread(() -> runWorker(first)).start();
+        } catch (Throwable e) {
+            release();
+            throw new RejectedExecutionException("无法创建工作线程", e);
+        }
+    }
+
+    private void runWorker(Runnable first) {
+        Thread current = Thread.currentThread();
+        workers.add(current);
+        try {
+            Runnable task = first;
+            // 许可上限被调低时，多出的工作线程执行完当前任务即退出
+            while (task != null) {
+                runTask(current, task);
+                task = inFlight.get() <= limit ? workQueue.poll() : null;
+            }
+        } finally {
+            workers.remove(current);
+            release();
+        }
+        drainIfIdle();
+    }
+
+    private void runTask(Thread thread, Runnable task) {
+        Throwable thrown = null;
+        beforeExecute(thread, task);
+        try {
+            task.run();
+        } catch (Throwable e) {
+            thrown = e;
+        } finally {
+            afterExecute(task, thrown);
+            completed.increment();
+        }
+        if (thrown != null) {
+            log.error("虚拟线程任务执行失败: {}", thrown.toString(), thrown);
+        }
+    }
+
+    private void release() {
+        if (inFlight.decrementAndGet() == 0 && shutdown && workQueue.isEmpty()) {
+            terminated.countDown();
+        }
+    }
+
+    /**
+     * 许可上限（即最大并发任务数）
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * 已持有许可的工作线程数
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    @Override
+    public void setCorePoolSize(int corePoolSize) {
+        if (corePoolSize <= 0 || corePoolSize > maximumLimit) {
+            throw new IllegalArgumentException();
+        }
+        int old = limit;
+        limit = corePoolSize;
+        if (corePoolSize > old) {
+            drainIfIdle();
+        }
+    }
+
+    @Override
+    public int getCorePoolSize() {
+        return limit;
+    }
+
+    @Override
+    public void setMaximumPoolSize(int maximumPoolSize) {
+        if (maximumPoolSize <= 0 || maximumPoolSize < limit) {
+            throw new IllegalArgumentException();
+        }
+        maximumLimit = maximumPoolSize;
+    }
+
+    @Override
+    public int getMaximumPoolSize() {
+        return maximumLimit;
+    }
+
+    @Override
+    public int getPoolSize() {
+        return inFlight.get();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return getRunningCount();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return completed.sum();
+    }
+
+    @Override
+    public long getTaskCount() {
+        return completed.sum() + getRunningCount() + workQueue.size();
+    }
+
+    @Override
+    public BlockingQueue<Runnable> getQueue() {
+        return workQueue;
+    }
+
+    @Override
+    public boolean prestartCoreThread() {
+        // 虚拟线程按需创建，不预启动；只为绕过 execute() 直接入队的任务分配许可
+        return drainIfIdle();
+    }
+
+    @Override
+    public int prestartAllCoreThreads() {
+        return 0;
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        super.shutdown();
+        if (inFlight.get() == 0) {
+            drainIfIdle();
+            if (inFlight.get() == 0) {
+                terminated.countDown();
+            }
+        }
+    }
+
+    // 先取走队列中的任务再中断工作线程；不调用 shutdown()，否则其中的 drainIfIdle 会把排队任务启动而不是返回
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> pending = new ArrayList<>();
+        workQueue.drainTo(pending);
+        super.shutdownNow();
+        workers.forEach(Thread::interrupt);
+        if (inFlight.get() == 0) {
+            terminated.countDown();
+        }
+        return unwrap(pending);
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminating() {
+        return shutdown && terminated.getCount() > 0;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminated.getCount() == 0;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminated.await(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "@" + Integer.toHexString(hashCode())
+                + "[" + (shutdown ? "Shutdown" : "Running") + ", virtual=" + VIRTUAL_SUPPORTED + ", limit=" + limit
+                + ", inFlight=" + inFlight.get() + ", queued=" + workQueue.size() + "]";
+    }
+
+    // 项目按 Java 17 编译，通过反射调用 Thread.ofVirtual()，在 JDK 21+ 上运行时启用虚拟线程
+    private static ThreadFactory virtualThreadFactory(String namePrefix) {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package org.example.llm.core;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 热启动：定期（及关闭时）把每个线程池最后生效的参数和按小时的负载画像写入本地二进制文件，
+ * 注册线程池时读取并恢复，预启动核心线程、预设队列容量，新实例启动即接近调优后的状态
+ * <p>
+ * 恢复的核心线程数取保存值与当前小时线程需求画像中的较大者（重启发生在高峰时不会按低谷时保存的值启动），
+ * 均按注册范围裁剪；负载预测模型由 {@link PredictiveScaler} 单独保存。超过 max-age-ms 的记录不再使用。文件先写临时文件再原子替换，损坏时忽略并按注解参数启动。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WarmStartStore {
+    private static final int MAGIC = 0x54505753; // "TPWS"
+    private static final int VERSION = 2; // 2：画像由“活跃 + 排队任务数”改为线程需求，旧文件不再使用
+    public static final int HOURS = 24;
+    private static final double PROFILE_SMOOTHING = 0.2; // 同一小时线程需求画像的指数平均系数
+    private static final int PROFILE_WINDOW = 12; // 更新画像时取最近的采样条数
+
+    private final ThreadPoolRegistry registry;
+    private final Map<String, PoolState> states = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    @Value("${threadpool.warm-start.enabled:true}")
+    private boolean enabled;
+    @Value("${threadpool.warm-start.file:logs/threadpool/warm-start.bin}")
+    private String file;
+    @Value("${threadpool.warm-start.max-age-ms:604800000}")
+    private long maxAgeMs;
+
+    /**
+     * 一个线程池保存的状态
+     *
+     * @param profile 按小时（本地时区 0-23 点）的平均线程需求（见 {@link ThreadPoolRegistry#threadDemand}），0表示尚无数据
+     */
+    public record PoolState(String poolName, long savedAt, int core, int max, int queue, float[] profile) {
+        public PoolState {
+            if (profile.length != HOURS) {
+                throw new IllegalArgumentException("负载画像长度必须为" + HOURS);
+            }
+        }
+    }
+
+    /**
+     * 按保存的状态恢复线程池参数并预启动核心线程
+     *
+     * @return 是否已恢复
+     */
+    public boolean restore(String poolName) {
+        if (!enabled) {
+            return false;
+        }
+        PoolState state = load().get(poolName);
+        long now = System.currentTimeMillis();
+        if (state == null || now - state.savedAt() > maxAgeMs) {
+            return false;
+        }
+        int core = Math.max(state.core(), (int) Math.ceil(state.profile()[hourOf(now)]));
+        registry.adjust(poolName, core, Math.max(state.max(), core), state.queue());
+        ThreadPoolExecutor executor = registry.getExecutor(poolName);
+        int started = executor instanceof VirtualThreadPoolExecutor ? 0 : executor.prestartAllCoreThreads();
+        log.info("线程池[{}]按{}保存的状态热启动：core={}，max={}，queue={}，预启动线程{}个",
+                poolName, Instant.ofEpochMilli(state.savedAt()), executor.getCorePoolSize(),
+                executor.getMaximumPoolSize(), queueCapacity(executor), started);
+        return true;
+    }
+
+    /**
+     * 记录所有线程池当前参数、更新当前小时的线程需求画像并写入文件；本次未注册的线程池保留原记录
+     */
+    @Scheduled(fixedRateString = "${threadpool.warm-start.save-ms:60000}", initialDelayString = "${threadpool.warm-start.save-ms:60000}")
+    public void save() {
+        if (!enabled) {
+            return;
+        }
+        load();
+        long now = System.currentTimeMillis();
+        int hour = hourOf(now);
+        registry.forEachPool((poolName, meta) -> {
+            ThreadPoolExecutor executor = meta.executor();
+            PoolState previous = states.get(poolName);
+            float[] profile = previous != null ? previous.profile().clone() : new float[HOURS];
+            double load = recentThreadDemand(meta.history().snapshot(PROFILE_WINDOW));
+            profile[hour] = profile[hour] == 0 ? (float) load
+                    : (float) (profile[hour] + PROFILE_SMOOTHING * (load - profile[hour]));
+            states.put(poolName, new PoolState(poolName, now, executor.getCorePoolSize(),
+                    executor.getMaximumPoolSize(), queueCapacity(executor), profile));
+        });
+        try {
+            write(Paths.get(file), states.values());
+        } catch (IOException e) {
+            log.error("热启动状态保存失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void saveOnShutdown() {
+        save();
+    }
+
+    public static void write(Path path, Collection<PoolState> states) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, path.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(states.size());
+            for (PoolState state : states) {
+                out.writeUTF(state.poolName());
+                out.writeLong(state.savedAt());
+                out.writeInt(state.core());
+                out.writeInt(state.max());
+                out.writeInt(state.queue());
+                for (float load : state.profile()) {
+                    out.writeFloat(load);
+                }
+            }
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 读取状态文件；文件不存在时返回空
+     *
+     * @throws IOException 文件损坏或版本不符
+     */
+    public static Map<String, PoolState> read(Path path) throws IOException {
+        Map<String, PoolState> result = new LinkedHashMap<>();
+        if (!Files.exists(path)) {
+            return result;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("热启动文件格式不符: " + path);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String poolName = in.readUTF();
+                long savedAt = in.readLong();
+                int core = in.readInt();
+                int max = in.readInt();
+                int queue = in.readInt();
+                float[] profile = new float[HOURS];
+                for (int h = 0; h < HOURS; h++) {
+                    profile[h] = in.readFloat();
+                }
+                result.put(poolName, new PoolState(poolName, savedAt, core, max, queue, profile));
+            }
+        }
+        return result;
+    }
+
+    // 首次使用时读取一次，之后以内存中的状态为准
+    private Map<String, PoolState> load() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    try {
+                        states.putAll(read(Paths.get(file)));
+                    } catch (IOException e) {
+                        log.warn("热启动文件读取失败，按注解参数启动: {}", e.getMessage());
+                    }
+                    loaded = true;
+                }
+            }
+        }
+        return states;
+    }
+
+    // 排队任务数按队列利用率折算为线程数，画像可以直接作为核心线程数使用
+    private static double recentThreadDemand(PoolSampleHistory.Window window) {
+        if (window.isEmpty()) {
+            return 0;
+        }
+        double sum = 0;
+        for (int i = 0; i < window.getSize(); i++) {
+            sum += ThreadPoolRegistry.threadDemand(window.getActiveThreads()[i], window.getQueueUtilization()[i],
+                    window.getCurrentMax()[i]);
+        }
+        return sum / window.getSize();
+    }
+
+    private static int queueCapacity(ThreadPoolExecutor executor) {
+        BlockingQueue<Runnable> queue = executor.getQueue();
+        return queue instanceof ResizableBlockingQueue ? ((ResizableBlockingQueue<?>) queue).capacity() : -1;
+    }
+
+    private static int hourOf(long epochMillis) {
+        return Instant.ofEpochMilli(epochMillis).atZone(ZoneId.systemDefault()).getHour();
+    }
+}
@@ -0,0 +1,238 @@
+package org.example.llm.core;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.llm.entity.LatencyHistogram;
+import org.example.llm.entity.ReplayReport;
+import org.example.llm.entity.WorkloadTrace;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 负载回放：按轨迹的到达时间向线程池提交任务，在相同负载下对比不同调优策略
+ * <p>
+ * 策略：static（停止调优并固定核心线程数）、heuristic（本地PID）、llm（指定的远程顾问，默认模拟LLM）。
+ * 回放结束后恢复线程池原有的顾问、调优状态和线程数，结果追加到 &lt;threadpool.replay.dir&gt;/report.csv。
+ * 录制的轨迹只能从 &lt;threadpool.replay.dir&gt;/traces 下按名称读取。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WorkloadReplayer {
+    public static final String STATIC = "static";
+    public static final String HEURISTIC = "heuristic";
+    public static final String LLM = "llm";
+    private static final long THREAD_SAMPLE_MS = 100; // 线程数积分的采样间隔
+
+    @Value("${threadpool.replay.dir:logs/replay}")
+    private String replayDir;
+
+    private final ThreadPoolRegistry registry;
+    private final ThreadPoolTuningScheduler tuningScheduler;
+    private final Set<String> running = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 异步回放轨迹
+     *
+     * @param fixedCore static 策略的固定核心线程数
+     * @param advisor   llm 策略使用的顾问，为空时使用模拟LLM
+     * @param speedup   加速比，大于1时按比例压缩到达间隔和服务时间
+     */
+    public CompletableFuture<ReplayReport> replay(String poolName, WorkloadTrace trace, String strategy,
+                                                  int fixedCore, String advisor, double speedup, long seed) {
+        ThreadPoolExecutor executor = registry.getExecutor(poolName);
+        if (speedup <= 0) {
+            throw new IllegalArgumentException("加速比必须大于0");
+        }
+        if (!running.add(poolName)) {
+            throw new IllegalStateException("线程池[" + poolName + "]正在回放");
+        }
+        String previousAdvisor = registry.getAdvisor(poolName).name();
+        boolean previousTuning = (boolean) tuningScheduler.isTuningActive(poolName);
+        int previousCore = executor.getCorePoolSize();
+        int previousMax = executor.getMaximumPoolSize();
+        try {
+            applyStrategy(poolName, strategy, fixedCore, advisor);
+        } catch (RuntimeException e) {
+            running.remove(poolName);
+            restore(poolName, previousAdvisor, previousTuning, previousCore, previousMax);
+            throw e;
+        }
+
+        CompletableFuture<ReplayReport> result = new CompletableFuture<>();
+        // 先恢复原参数再完成结果，调用方拿到报告时线程池已回到回放前的状态
+        Thread driver = new Thread(() -> {
+            ReplayReport report = null;
+            Throwable failure = null;
+            try {
+                report = run(poolName, executor, trace, speedup);
+                report.setStrategy(strategy);
+                report.setSeed(seed);
+                appendReport(report);
+            } catch (Throwable e) {
+                failure = e;
+            } finally {
+                restore(poolName, previousAdvisor, previousTuning, previousCore, previousMax);
+                running.remove(poolName);
+            }
+            if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(report);
+            }
+        }, "replay-" + poolName);
+        driver.setDaemon(true);
+        driver.start();
+        return result;
+    }
+
+    /**
+     * 按名称读取轨迹目录下录制的轨迹（不允许引用目录外的文件）
+     */
+    public WorkloadTrace loadTrace(String name) throws IOException {
+        Path file = WorkloadTraces.resolve(Paths.get(replayDir, "traces"), name);
+        if (!Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("轨迹不存在: " + name);
+        }
+        return WorkloadTraces.parse("file-" + file.getFileName(), Files.readAllLines(file));
+    }
+
+    private void applyStrategy(String poolName, String strategy, int fixedCore, String advisor) {
+        switch (strategy) {
+            case STATIC -> {
+                tuningScheduler.stopAutoTuning(poolName);
+                ThreadPoolRegistry.PoolMetadata meta = registry.getPoolMetadata(poolName);
+                int core = Math.max(meta.minCore(), Math.min(fixedCore, meta.maxCore()));
+                registry.adjust(poolName, core, core);
+            }
+            case HEURISTIC -> switchAdvisor(poolName, PidTuningAdvisor.NAME);
+            case LLM -> switchAdvisor(poolName,
+                    advisor == null || advisor.isBlank() ? LlmStubAdvisor.NAME : advisor);
+            default -> throw new IllegalArgumentException("未知的回放策略: " + strategy);
+        }
+    }
+
+    private void switchAdvisor(String poolName, String advisor) {
+        tuningScheduler.stopAutoTuning(poolName);
+        registry.setAdvisor(poolName, advisor);
+        tuningScheduler.startAutoTuning(poolName);
+    }
+
+    private ReplayReport run(String poolName, ThreadPoolExecutor executor, WorkloadTrace trace, double speedup)
+            throws InterruptedException {
+        LatencyHistogram wait = new LatencyHistogram();
+        AtomicLong maxWait = new AtomicLong();
+        AtomicLong completed = new AtomicLong();
+        long rejected = 0;
+        long adjustmentsBefore = registry.getAdjustmentCount(poolName);
+        CountDownLatch done = new CountDownLatch(trace.size());
+
+        // 线程数对时间积分，按加速比换算回轨迹时间
+        AtomicLong threadMillis = new AtomicLong();
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "replay-sampler-" + poolName);
+            t.setDaemon(true);
+            return t;
+        });
+        sampler.scheduleAtFixedRate(() -> threadMillis.addAndGet(executor.getPoolSize() * THREAD_SAMPLE_MS),
+                0, THREAD_SAMPLE_MS, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < trace.size(); i++) {
+                long due = start + (long) (trace.arrivalNanos()[i] / speedup);
+                long delay;
+                while ((delay = due - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(delay);
+                }
+                long service = (long) (trace.serviceNanos()[i] / speedup);
+                long submitted = System.nanoTime();
+                try {
+                    executor.execute(() -> {
+                        long waited = (long) ((System.nanoTime() - submitted) * speedup);
+                        wait.record(waited);
+                        maxWait.accumulateAndGet(waited, Math::max);
+                        try {
+                            long end = System.nanoTime() + service;
+                            long remaining;
+                            while ((remaining = end - System.nanoTime()) > 0) {
+                                LockSupport.parkNanos(remaining);
+                            }
+                            completed.incrementAndGet();
+                        } finally {
+                            done.countDown();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    rejected++;
+                    done.countDown();
+                }
+            }
+            done.await();
+        } finally {
+            sampler.shutdownNow();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+
+        wait.refresh();
+        ReplayReport report = new ReplayReport();
+        report.setPoolName(poolName);
+        report.setTrace(trace.name());
+        report.setTasks(trace.size());
+        report.setCompleted(completed.get());
+        report.setRejected(rejected);
+        report.setWaitP50Ms(wait.p50Millis());
+        report.setWaitP99Ms(wait.p99Millis());
+        report.setWaitMaxMs(maxWait.get() / 1e6);
+        report.setThreadSeconds(threadMillis.get() * speedup / 1000.0);
+        report.setAdjustments(registry.getAdjustmentCount(poolName) - adjustmentsBefore);
+        report.setDurationMs(TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        log.info("线程池[{}]回放完成: {}", poolName, report.toCsvLine());
+        return report;
+    }
+
+    private void restore(String poolName, String advisor, boolean tuning, int core, int max) {
+        try {
+            tuningScheduler.stopAutoTuning(poolName);
+            registry.setAdvisor(poolName, advisor);
+            registry.adjust(poolName, core, max);
+            if (tuning) {
+                tuningScheduler.startAutoTuning(poolName);
+            }
+        } catch (Exception e) {
+            log.error("线程池[{}]回放后恢复配置失败: {}", poolName, e.getMessage(), e);
+        }
+    }
+
+    private synchronized void appendReport(ReplayReport report) {
+        Path reportFile = Paths.get(replayDir, "report.csv");
+        try {
+            Files.createDirectories(reportFile.getParent());
+            if (!Files.exists(reportFile)) {
+                Files.writeString(reportFile, ReplayReport.CSV_HEADER + System.lineSeparator(), StandardCharsets.UTF_8);
+            }
+            Files.writeString(reportFile, report.toCsvLine() + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            log.warn("写入回放报告失败: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package org.example.llm.core;
+
+import org.example.llm.entity.WorkloadTrace;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * 负载轨迹生成：合成轨迹由种子决定，同一参数和种子总是生成相同的序列
+ */
+public final class WorkloadTraces {
+    private static final double PARETO_ALPHA = 1.5; // 重尾服务时间的形状参数（方差无穷）
+    private static final int MAX_TASKS = 2_000_000;
+
+    /**
+     * 到达过程形状
+     */
+    public enum Shape {
+        /** 恒定速率泊松到达 */
+        POISSON,
+        /** 昼夜曲线：一个周期内速率按余弦在 rate 与 peakRate 之间变化 */
+        DIURNAL,
+        /** 突发：每10秒出现2秒 peakRate 的突发，其余时间为 rate */
+        BURST
+    }
+
+    /**
+     * 服务时间分布
+     */
+    public enum Service {
+        CONSTANT,
+        EXPONENTIAL,
+        /** 帕累托分布（重尾），均值为 meanServiceMs */
+        PARETO
+    }
+
+    private WorkloadTraces() {
+    }
+
+    /**
+     * 生成合成轨迹
+     *
+     * @param rate          基础到达速率（任务/秒）
+     * @param peakRate      峰值到达速率（任务/秒），POISSON 忽略
+     * @param durationSec   轨迹时长（秒）
+     * @param meanServiceMs 平均服务时间（毫秒）
+     */
+    public static WorkloadTrace generate(Shape shape, double rate, double peakRate, int durationSec,
+                                         double meanServiceMs, Service service, long seed) {
+        if (rate <= 0 || durationSec <= 0 || meanServiceMs < 0) {
+            throw new IllegalArgumentException("轨迹参数无效");
+        }
+        double peak = Math.max(rate, peakRate);
+        DoubleUnaryOperator rateAt = switch (shape) {
+            case POISSON -> t -> rate;
+            case DIURNAL -> t -> rate + (peak - rate) * (1 - Math.cos(2 * Math.PI * t / durationSec)) / 2;
+            case BURST -> t -> (t % 10.0) < 2.0 ? peak : rate;
+        };
+        double maxRate = shape == Shape.POISSON ? rate : peak;
+
+        SplittableRandom random = new SplittableRandom(seed);
+        long[] arrivals = new long[(int) Math.min(MAX_TASKS, maxRate * durationSec * 1.2 + 16)];
+        long[] services = new long[arrivals.length];
+        int n = 0;
+        // 非齐次泊松过程：按最大速率生成候选点，再以 rate(t)/maxRate 的概率保留（thinning）
+        double t = 0;
+        while (n < arrivals.length) {
+            t += -Math.log(1 - random.nextDouble()) / maxRate;
+            if (t >= durationSec) {
+                break;
+            }
+            if (random.nextDouble() * maxRate > rateAt.applyAsDouble(t)) {
+                continue;
+            }
+            arrivals[n] = (long) (t * 1e9);
+            services[n] = TimeUnit.MICROSECONDS.toNanos(Math.round(sampleService(service, meanServiceMs, random) * 1000));
+            n++;
+        }
+        String name = String.format(Locale.ROOT, "%s-%s-%.0f/%.0f-%ds",
+                shape.name().toLowerCase(Locale.ROOT), service.name().toLowerCase(Locale.ROOT), rate, peak, durationSec);
+        return new WorkloadTrace(name, Arrays.copyOf(arrivals, n), Arrays.copyOf(services, n));
+    }
+
+    /**
+     * 在轨迹目录下按名称定位轨迹文件：名称按相对路径解析并规范化，结果必须仍在目录内
+     *
+     * @throws IllegalArgumentException 名称为空、为绝对路径或逃逸出目录
+     */
+    public static Path resolve(Path dir, String name) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("轨迹名称不能为空");
+        }
+        Path base = dir.toAbsolutePath().normalize();
+        Path candidate = Paths.get(name);
+        Path resolved = base.resolve(candidate).normalize();
+        if (candidate.isAbsolute() || !resolved.startsWith(base) || resolved.equals(base)) {
+            throw new IllegalArgumentException("轨迹名称无效: 只能引用轨迹目录内的文件");
+        }
+        return resolved;
+    }
+
+    /**
+     * 从文件读取录制的轨迹，格式见 {@link #parse(String, List)}
+     */
+    public static WorkloadTrace fromFile(Path file) throws IOException {
+        return parse("file-" + file.getFileName(), Files.readAllLines(file));
+    }
+
+    /**
+     * 解析录制的轨迹：每行 "到达偏移毫秒,服务时间毫秒"，忽略空行、#注释和非数字表头。
+     * 错误信息只包含行号，不回显行内容
+     */
+    public static WorkloadTrace parse(String name, List<String> lines) {
+        long[] arrivals = new long[lines.size()];
+        long[] services = new long[lines.size()];
+        int n = 0;
+        long last = 0;
+        for (int i = 0; i < lines.size(); i++) {
+            String trimmed = lines.get(i).trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#") || !Character.isDigit(trimmed.charAt(0))) {
+                continue;
+            }
+            String[] parts = trimmed.split(",");
+            long arrival;
+            long service;
+            try {
+                if (parts.length < 2) {
+                    throw new NumberFormatException();
+                }
+                arrival = (long) (Double.parseDouble(parts[0].trim()) * 1e6);
+                service = (long) (Double.parseDouble(parts[1].trim()) * 1e6);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("轨迹格式错误: 第" + (i + 1) + "行");
+            }
+            if (arrival < last) {
+                throw new IllegalArgumentException("轨迹到达时间必须升序: 第" + (i + 1) + "行");
+            }
+            arrivals[n] = arrival;
+            services[n] = service;
+            last = arrival;
+            n++;
+        }
+        return new WorkloadTrace(name, Arrays.copyOf(arrivals, n), Arrays.copyOf(services, n));
+    }
+
+    private static double sampleService(Service service, double mean, SplittableRandom random) {
+        return switch (service) {
+            case CONSTANT -> mean;
+            case EXPONENTIAL -> -Math.log(1 - random.nextDouble()) * mean;
+            case PARETO -> {
+                double scale = mean * (PARETO_ALPHA - 1) / PARETO_ALPHA;
+                yield scale / Math.pow(1 - random.nextDouble(), 1 / PARETO_ALPHA);
+            }
+        };
+    }
+}
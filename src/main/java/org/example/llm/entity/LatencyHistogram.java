@@ -0,0 +1,122 @@
+package org.example.llm.entity;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 无分配的对数-线性延迟直方图（HDR风格）
+ * <p>
+ * 每个2的幂区间再等分为16个子桶，相对误差约6%；记录只做一次数组原子自增，不分配对象。
+ * 百分位按刷新周期计算（本周期计数 = 当前累计 - 上次刷新时的累计），结果缓存供读取方无锁获取。
+ */
+public class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_COUNT = 1 << SUB_BITS; // 每个2的幂区间的子桶数
+    private static final int BUCKETS = SUB_COUNT + (63 - SUB_BITS) * SUB_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    // 以下只由刷新线程写入
+    private final long[] lastCounts = new long[BUCKETS];
+    private final long[] interval = new long[BUCKETS];
+    private volatile long intervalCount;
+    private volatile double p50Millis;
+    private volatile double p99Millis;
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucketOf(nanos));
+        totalCount.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+    }
+
+    /**
+     * 累计记录数（用于 FunctionTimer）
+     */
+    public long count() {
+        return totalCount.get();
+    }
+
+    /**
+     * 累计耗时（纳秒）
+     */
+    public long totalNanos() {
+        return totalNanos.get();
+    }
+
+    public double totalMillis() {
+        return totalNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * 计算上次刷新以来的p50/p99并缓存；本周期无记录时保留上次结果
+     */
+    public synchronized void refresh() {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long current = counts.get(i);
+            interval[i] = current - lastCounts[i];
+            lastCounts[i] = current;
+            total += interval[i];
+        }
+        intervalCount = total;
+        if (total == 0) {
+            return;
+        }
+        p50Millis = toMillis(percentile(interval, total, 0.50));
+        p99Millis = toMillis(percentile(interval, total, 0.99));
+    }
+
+    public long intervalCount() {
+        return intervalCount;
+    }
+
+    public double p50Millis() {
+        return p50Millis;
+    }
+
+    public double p99Millis() {
+        return p99Millis;
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_COUNT) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int mantissa = (int) (nanos >>> (exponent - SUB_BITS)); // [16, 32)
+        return SUB_COUNT + (exponent - SUB_BITS) * SUB_COUNT + (mantissa - SUB_COUNT);
+    }
+
+    // 桶的代表值：区间中点
+    static long valueOf(int bucket) {
+        if (bucket < SUB_COUNT) {
+            return bucket;
+        }
+        int shift = (bucket - SUB_COUNT) / SUB_COUNT;
+        long mantissa = SUB_COUNT + (bucket - SUB_COUNT) % SUB_COUNT;
+        long lower = mantissa << shift;
+        return lower + ((1L << shift) >> 1);
+    }
+
+    private static long percentile(long[] interval, long total, double quantile) {
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < interval.length; i++) {
+            seen += interval[i];
+            if (seen >= rank) {
+                return valueOf(i);
+            }
+        }
+        return valueOf(interval.length - 1);
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
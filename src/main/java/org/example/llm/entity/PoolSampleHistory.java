@@ -0,0 +1,223 @@
+package org.example.llm.entity;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 线程池采样历史：按列存储的定长环形数组（原始类型，无装箱）
+ * <p>
+ * 写入方为采样任务，读取方通过 {@link #snapshot(int)} 获得按时间升序排列的独立副本。
+ */
+public class PoolSampleHistory {
+    private final int capacity;
+    private final long[] timestamps;
+    private final int[] configMinCore;
+    private final int[] configMaxCore;
+    private final int[] configMaxQueue;
+    private final int[] currentCore;
+    private final int[] currentMax;
+    private final int[] activeThreads;
+    private final int[] queueSize;
+    private final int[] queueCapacity;
+    private final double[] queueUtilization;
+    private final double[] idleRatio;
+    private final double[] waitP50Ms;
+    private final double[] waitP99Ms;
+    private final double[] runP50Ms;
+    private final double[] runP99Ms;
+    private long writeSeq;
+
+    public PoolSampleHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("历史容量必须大于0: " + capacity);
+        }
+        this.capacity = capacity;
+        this.timestamps = new long[capacity];
+        this.configMinCore = new int[capacity];
+        this.configMaxCore = new int[capacity];
+        this.configMaxQueue = new int[capacity];
+        this.currentCore = new int[capacity];
+        this.currentMax = new int[capacity];
+        this.activeThreads = new int[capacity];
+        this.queueSize = new int[capacity];
+        this.queueCapacity = new int[capacity];
+        this.queueUtilization = new double[capacity];
+        this.idleRatio = new double[capacity];
+        this.waitP50Ms = new double[capacity];
+        this.waitP99Ms = new double[capacity];
+        this.runP50Ms = new double[capacity];
+        this.runP99Ms = new double[capacity];
+    }
+
+    public synchronized void add(long epochMillis, ThreadPoolDetail detail) {
+        int i = (int) (writeSeq % capacity);
+        timestamps[i] = epochMillis;
+        configMinCore[i] = detail.getConfigMinCore();
+        configMaxCore[i] = detail.getConfigMaxCore();
+        configMaxQueue[i] = detail.getConfigMaxQueue();
+        currentCore[i] = detail.getCurrentCore();
+        currentMax[i] = detail.getCurrentMax();
+        activeThreads[i] = detail.getActiveThreads();
+        queueSize[i] = detail.getQueueSize();
+        queueCapacity[i] = detail.getQueueCapacity();
+        queueUtilization[i] = detail.getQueueUtilization();
+        idleRatio[i] = detail.getIdleRatio();
+        waitP50Ms[i] = detail.getWaitP50Ms();
+        waitP99Ms[i] = detail.getWaitP99Ms();
+        runP50Ms[i] = detail.getRunP50Ms();
+        runP99Ms[i] = detail.getRunP99Ms();
+        writeSeq++;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(writeSeq, capacity);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 只包含一条采样的窗口（实时采样，不写入历史）
+     */
+    public static Window single(long epochMillis, ThreadPoolDetail detail) {
+        PoolSampleHistory history = new PoolSampleHistory(1);
+        history.add(epochMillis, detail);
+        return history.snapshot(1);
+    }
+
+    /**
+     * 复制最近 n 条采样（按时间升序）
+     */
+    public synchronized Window snapshot(int n) {
+        int count = Math.min(n, size());
+        Window window = new Window(count);
+        long start = writeSeq - count;
+        for (int k = 0; k < count; k++) {
+            int i = (int) ((start + k) % capacity);
+            window.timestamps[k] = timestamps[i];
+            window.configMinCore[k] = configMinCore[i];
+            window.configMaxCore[k] = configMaxCore[i];
+            window.configMaxQueue[k] = configMaxQueue[i];
+            window.currentCore[k] = currentCore[i];
+            window.currentMax[k] = currentMax[i];
+            window.activeThreads[k] = activeThreads[i];
+            window.queueSize[k] = queueSize[i];
+            window.queueCapacity[k] = queueCapacity[i];
+            window.queueUtilization[k] = queueUtilization[i];
+            window.idleRatio[k] = idleRatio[i];
+            window.waitP50Ms[k] = waitP50Ms[i];
+            window.waitP99Ms[k] = waitP99Ms[i];
+            window.runP50Ms[k] = runP50Ms[i];
+            window.runP99Ms[k] = runP99Ms[i];
+        }
+        return window;
+    }
+
+    /**
+     * 按实例聚合多个窗口（如集群内各副本同一线程池的采样），按最新一条对齐，长度取最短窗口
+     * <p>
+     * 负载类指标（活跃线程、队列、空闲率、p50）取各实例平均值，即单个副本的平均负载；p99取最大值，
+     * 避免个别副本的长尾被平均掉；配置与当前参数取第一个窗口（通常为本实例）的值。
+     */
+    public static Window aggregate(List<Window> windows) {
+        if (windows.isEmpty()) {
+            throw new IllegalArgumentException("没有可聚合的采样窗口");
+        }
+        Window first = windows.get(0);
+        if (windows.size() == 1) {
+            return first;
+        }
+        int size = windows.stream().mapToInt(Window::getSize).min().orElse(0);
+        int n = windows.size();
+        Window merged = new Window(size);
+        for (int k = 0; k < size; k++) {
+            int f = first.size - size + k;
+            merged.timestamps[k] = first.timestamps[f];
+            merged.configMinCore[k] = first.configMinCore[f];
+            merged.configMaxCore[k] = first.configMaxCore[f];
+            merged.configMaxQueue[k] = first.configMaxQueue[f];
+            merged.currentCore[k] = first.currentCore[f];
+            merged.currentMax[k] = first.currentMax[f];
+            merged.queueCapacity[k] = first.queueCapacity[f];
+            double active = 0, queued = 0;
+            for (Window w : windows) {
+                int i = w.size - size + k;
+                active += w.activeThreads[i];
+                queued += w.queueSize[i];
+                merged.queueUtilization[k] += w.queueUtilization[i] / n;
+                merged.idleRatio[k] += w.idleRatio[i] / n;
+                merged.waitP50Ms[k] += w.waitP50Ms[i] / n;
+                merged.runP50Ms[k] += w.runP50Ms[i] / n;
+                merged.waitP99Ms[k] = Math.max(merged.waitP99Ms[k], w.waitP99Ms[i]);
+                merged.runP99Ms[k] = Math.max(merged.runP99Ms[k], w.runP99Ms[i]);
+            }
+            merged.activeThreads[k] = (int) Math.round(active / n);
+            merged.queueSize[k] = (int) Math.round(queued / n);
+        }
+        return merged;
+    }
+
+    /**
+     * 历史窗口：各列下标一一对应，下标越大越新
+     */
+    @Getter
+    public static class Window {
+        private final int size;
+        private final long[] timestamps;
+        private final int[] configMinCore;
+        private final int[] configMaxCore;
+        private final int[] configMaxQueue;
+        private final int[] currentCore;
+        private final int[] currentMax;
+        private final int[] activeThreads;
+        private final int[] queueSize;
+        private final int[] queueCapacity;
+        private final double[] queueUtilization;
+        private final double[] idleRatio;
+        private final double[] waitP50Ms;
+        private final double[] waitP99Ms;
+        private final double[] runP50Ms;
+        private final double[] runP99Ms;
+
+        Window(int size) {
+            this.size = size;
+            this.timestamps = new long[size];
+            this.configMinCore = new int[size];
+            this.configMaxCore = new int[size];
+            this.configMaxQueue = new int[size];
+            this.currentCore = new int[size];
+            this.currentMax = new int[size];
+            this.activeThreads = new int[size];
+            this.queueSize = new int[size];
+            this.queueCapacity = new int[size];
+            this.queueUtilization = new double[size];
+            this.idleRatio = new double[size];
+            this.waitP50Ms = new double[size];
+            this.waitP99Ms = new double[size];
+            this.runP50Ms = new double[size];
+            this.runP99Ms = new double[size];
+        }
+
+        public boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * 最新一条采样的下标
+         */
+        public int last() {
+            return size - 1;
+        }
+
+        /**
+         * 第 i 条采样还原为明细（用于跨实例传输）
+         */
+        public ThreadPoolDetail detail(String poolName, int i) {
+            return new ThreadPoolDetail(poolName, configMinCore[i], configMaxCore[i], configMaxQueue[i],
+                    currentCore[i], currentMax[i], activeThreads[i], queueSize[i], queueCapacity[i],
+                    queueUtilization[i], idleRatio[i], waitP50Ms[i], waitP99Ms[i], runP50Ms[i], runP99Ms[i]);
+        }
+    }
+}
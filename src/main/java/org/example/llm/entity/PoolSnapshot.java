@@ -0,0 +1,148 @@
+package org.example.llm.entity;
+
+import java.lang.invoke.VarHandle;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+/**
+ * 线程池状态快照：由采样器单线程周期性覆盖写入，原始类型字段、可复用，读取方不触碰业务线程池的锁
+ * <p>
+ * 采用顺序锁（seqlock）：写入前后各递增一次版本号，读取方在版本号为偶数且前后一致时得到一致的视图。
+ */
+public class PoolSnapshot {
+    private volatile long seq;
+
+    private long timestamp;
+    private int corePoolSize;
+    private int maximumPoolSize;
+    private int poolSize;
+    private int activeCount;
+    private int queueSize;
+    private int queueCapacity;
+    private double waitP50Ms;
+    private double waitP99Ms;
+    private double runP50Ms;
+    private double runP99Ms;
+
+    /**
+     * 覆盖写入（仅限单个写入线程）
+     */
+    public void write(long timestamp, int corePoolSize, int maximumPoolSize, int poolSize, int activeCount,
+                      int queueSize, int queueCapacity,
+                      double waitP50Ms, double waitP99Ms, double runP50Ms, double runP99Ms) {
+        long s = seq;
+        seq = s + 1; // 奇数：写入中
+        VarHandle.storeStoreFence();
+        this.timestamp = timestamp;
+        this.corePoolSize = corePoolSize;
+        this.maximumPoolSize = maximumPoolSize;
+        this.poolSize = poolSize;
+        this.activeCount = activeCount;
+        this.queueSize = queueSize;
+        this.queueCapacity = queueCapacity;
+        this.waitP50Ms = waitP50Ms;
+        this.waitP99Ms = waitP99Ms;
+        this.runP50Ms = runP50Ms;
+        this.runP99Ms = runP99Ms;
+        seq = s + 2; // volatile写发布本次写入
+    }
+
+    /**
+     * 一致地读取全部字段并转换为明细
+     */
+    public ThreadPoolDetail toDetail(String poolName, int configMinCore, int configMaxCore, int configMaxQueue) {
+        for (;;) {
+            long s = seq;
+            if ((s & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int core = corePoolSize;
+            int max = maximumPoolSize;
+            int size = poolSize;
+            int active = activeCount;
+            int queued = queueSize;
+            int capacity = queueCapacity;
+            double waitP50 = waitP50Ms;
+            double waitP99 = waitP99Ms;
+            double runP50 = runP50Ms;
+            double runP99 = runP99Ms;
+            VarHandle.loadLoadFence();
+            if (seq != s) {
+                continue;
+            }
+            return new ThreadPoolDetail(poolName, configMinCore, configMaxCore, configMaxQueue,
+                    core, max, active, queued, capacity,
+                    utilization(queued, capacity), idleRatio(size, active),
+                    waitP50, waitP99, runP50, runP99);
+        }
+    }
+
+    /**
+     * 最近一次写入的时间戳（毫秒），尚未写入时为0
+     */
+    public long getTimestamp() {
+        return read(() -> timestamp);
+    }
+
+    public int getCorePoolSize() {
+        return (int) read(() -> corePoolSize);
+    }
+
+    public int getMaximumPoolSize() {
+        return (int) read(() -> maximumPoolSize);
+    }
+
+    public int getActiveCount() {
+        return (int) read(() -> activeCount);
+    }
+
+    public int getQueueSize() {
+        return (int) read(() -> queueSize);
+    }
+
+    public int getQueueCapacity() {
+        return (int) read(() -> queueCapacity);
+    }
+
+    public double getQueueUtilization() {
+        return readDouble(() -> utilization(queueSize, queueCapacity));
+    }
+
+    public double getIdleRatio() {
+        return readDouble(() -> idleRatio(poolSize, activeCount));
+    }
+
+    private long read(LongSupplier field) {
+        for (;;) {
+            long s = seq;
+            long value = field.getAsLong();
+            VarHandle.loadLoadFence();
+            if ((s & 1) == 0 && seq == s) {
+                return value;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private double readDouble(DoubleSupplier field) {
+        for (;;) {
+            long s = seq;
+            double value = field.getAsDouble();
+            VarHandle.loadLoadFence();
+            if ((s & 1) == 0 && seq == s) {
+                return value;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    // 防除零
+    private static double utilization(int queueSize, int queueCapacity) {
+        return queueCapacity > 0 ? Math.min(1.0, (double) queueSize / queueCapacity) : 0.0;
+    }
+
+    private static double idleRatio(int poolSize, int activeCount) {
+        return poolSize > 0 ? Math.max(0.0, (double) (poolSize - activeCount) / poolSize) : 0.0;
+    }
+}
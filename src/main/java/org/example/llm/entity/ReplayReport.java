@@ -0,0 +1,34 @@
+package org.example.llm.entity;
+
+import lombok.Data;
+
+import java.util.Locale;
+
+/**
+ * 负载回放报告，用于对比不同调优策略
+ */
+@Data
+public class ReplayReport {
+    public static final String CSV_HEADER = "pool,strategy,trace,seed,tasks,completed,rejected,"
+            + "wait_p50_ms,wait_p99_ms,wait_max_ms,thread_seconds,adjustments,duration_ms";
+
+    private String poolName;
+    private String strategy;
+    private String trace;
+    private long seed;
+    private int tasks;
+    private long completed;
+    private long rejected;
+    private double waitP50Ms;
+    private double waitP99Ms;
+    private double waitMaxMs;
+    private double threadSeconds; // 线程数对时间的积分（已按加速比换算回轨迹时间）
+    private long adjustments; // 回放期间参数实际变化的次数
+    private long durationMs;
+
+    public String toCsvLine() {
+        return String.format(Locale.ROOT, "%s,%s,%s,%d,%d,%d,%d,%.3f,%.3f,%.3f,%.2f,%d,%d",
+                poolName, strategy, trace, seed, tasks, completed, rejected,
+                waitP50Ms, waitP99Ms, waitMaxMs, threadSeconds, adjustments, durationMs);
+    }
+}
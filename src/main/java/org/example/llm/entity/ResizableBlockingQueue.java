@@ -0,0 +1,315 @@
+package org.example.llm.entity;
+
+import java.util.AbstractQueue;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 可动态调整容量的有界阻塞队列（供 ThreadPoolExecutor 使用）
+ * <p>
+ * 快路径：无锁链表（ConcurrentLinkedQueue）存储元素，容量通过对计数器的CAS预占来原子保证，
+ * offer/poll 不加锁。慢路径：只有真正需要阻塞的 put/take/超时调用才进入锁并在条件上等待，
+ * 且仅当存在等待者时才加锁唤醒；扩容时唤醒所有阻塞的生产者。
+ */
+public class ResizableBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    private final ConcurrentLinkedQueue<E> items = new ConcurrentLinkedQueue<>();
+    // 已预占的槽位数（含正在入队的元素），始终不超过capacity
+    private final AtomicInteger count = new AtomicInteger();
+    private volatile int capacity;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    // 等待者计数只在持锁时修改，volatile保证无锁路径能及时看到
+    private volatile int takeWaiters;
+    private volatile int putWaiters;
+
+    public ResizableBlockingQueue(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("队列容量必须大于0: " + initialCapacity);
+        }
+        this.capacity = initialCapacity;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 调整容量：扩容时立即唤醒阻塞的生产者；缩容不丢弃已有元素，只阻止新元素进入直至低于新容量
+     */
+    public void setCapacity(int newCapacity) {
+        if (newCapacity <= 0) {
+            throw new IllegalArgumentException("队列容量必须大于0: " + newCapacity);
+        }
+        int old = this.capacity;
+        this.capacity = newCapacity;
+        if (newCapacity > old && putWaiters > 0) {
+            lock.lock();
+            try {
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // 原子预占一个槽位
+    private boolean tryReserve() {
+        for (;;) {
+            int c = count.get();
+            if (c >= capacity) {
+                return false;
+            }
+            if (count.compareAndSet(c, c + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private void enqueueReserved(E e) {
+        items.offer(e);
+        if (takeWaiters > 0) {
+            lock.lock();
+            try {
+                notEmpty.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private E dequeue() {
+        E e = items.poll();
+        if (e != null) {
+            releaseSlot();
+        }
+        return e;
+    }
+
+    private void releaseSlot() {
+        count.decrementAndGet();
+        if (putWaiters > 0) {
+            lock.lock();
+            try {
+                notFull.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        Objects.requireNonNull(e);
+        if (!tryReserve()) {
+            return false;
+        }
+        enqueueReserved(e);
+        return true;
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        Objects.requireNonNull(e);
+        if (!tryReserve()) {
+            lock.lockInterruptibly();
+            try {
+                putWaiters++;
+                try {
+                    while (!tryReserve()) {
+                        notFull.await();
+                    }
+                } finally {
+                    putWaiters--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        enqueueReserved(e);
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        Objects.requireNonNull(e);
+        if (!tryReserve()) {
+            long nanos = unit.toNanos(timeout);
+            lock.lockInterruptibly();
+            try {
+                putWaiters++;
+                try {
+                    while (!tryReserve()) {
+                        if (nanos <= 0L) {
+                            return false;
+                        }
+                        nanos = notFull.awaitNanos(nanos);
+                    }
+                } finally {
+                    putWaiters--;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        enqueueReserved(e);
+        return true;
+    }
+
+    @Override
+    public E poll() {
+        return dequeue();
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e = dequeue();
+        if (e != null) {
+            return e;
+        }
+        lock.lockInterruptibly();
+        try {
+            takeWaiters++;
+            try {
+                while ((e = dequeue()) == null) {
+                    notEmpty.await();
+                }
+            } finally {
+                takeWaiters--;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = dequeue();
+        if (e != null) {
+            return e;
+        }
+        long nanos = unit.toNanos(timeout);
+        lock.lockInterruptibly();
+        try {
+            takeWaiters++;
+            try {
+                while ((e = dequeue()) == null) {
+                    if (nanos <= 0L) {
+                        return null;
+                    }
+                    nanos = notEmpty.awaitNanos(nanos);
+                }
+            } finally {
+                takeWaiters--;
+            }
+        } finally {
+            lock.unlock();
+        }
+        return e;
+    }
+
+    @Override
+    public E peek() {
+        return items.peek();
+    }
+
+    @Override
+    public int size() {
+        return count.get();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return items.isEmpty();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return Math.max(0, capacity - count.get());
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o != null && items.remove(o)) {
+            releaseSlot();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o != null && items.contains(o);
+    }
+
+    @Override
+    public Object[] toArray() {
+        return items.toArray();
+    }
+
+    @Override
+    public <T> T[] toArray(T[] a) {
+        return items.toArray(a);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this) {
+            throw new IllegalArgumentException();
+        }
+        int n = 0;
+        E e;
+        while (n < maxElements && (e = dequeue()) != null) {
+            c.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 弱一致迭代器；remove 通过队列的 remove(Object) 完成，保证计数正确
+     */
+    @Override
+    public Iterator<E> iterator() {
+        Iterator<E> it = items.iterator();
+        return new Iterator<>() {
+            private E lastRet;
+
+            @Override
+            public boolean hasNext() {
+                return it.hasNext();
+            }
+
+            @Override
+            public E next() {
+                E e = it.next();
+                lastRet = e;
+                return e;
+            }
+
+            @Override
+            public void remove() {
+                if (lastRet == null) {
+                    throw new IllegalStateException();
+                }
+                ResizableBlockingQueue.this.remove(lastRet);
+                lastRet = null;
+            }
+        };
+    }
+
+}
@@ -2,6 +2,11 @@ package org.example.llm.entity;
 
 import java.util.concurrent.LinkedBlockingQueue;
 
+/**
+ * 旧版可调整队列：容量检查与入队不是原子操作，且扩容不会唤醒阻塞的 put 调用方。
+ * 仅保留用于基准对比，新代码请使用 {@link ResizableBlockingQueue}
+ */
+@Deprecated
 public class ResizableLinkedBlockingQueue<E> extends LinkedBlockingQueue<E> {
     private volatile int capacity;
 
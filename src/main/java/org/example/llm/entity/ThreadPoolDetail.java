@@ -2,9 +2,11 @@ package org.example.llm.entity;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
 @AllArgsConstructor
+@NoArgsConstructor
 public class ThreadPoolDetail {
     private String poolName;
 
@@ -20,4 +22,10 @@ public class ThreadPoolDetail {
     private int queueCapacity;
     private double queueUtilization;
     private double idleRatio;
+
+    // 最近一个采样周期内任务排队时间/执行时间的百分位（毫秒），未启用任务计时的线程池为0
+    private double waitP50Ms;
+    private double waitP99Ms;
+    private double runP50Ms;
+    private double runP99Ms;
 }
\ No newline at end of file
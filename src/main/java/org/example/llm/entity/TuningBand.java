@@ -0,0 +1,47 @@
+package org.example.llm.entity;
+
+/**
+ * 快速调优环的护栏：核心线程数只能在 [lowerCore, upperCore] 内调整，最大线程数不超过 upperMax
+ *
+ * @param targetCore 慢速环（LLM）给出的目标核心线程数；快速环无动作时向其逐步靠拢，小于等于0表示无目标
+ */
+public record TuningBand(int lowerCore, int upperCore, int upperMax, int targetCore) {
+    public static final double BAND_RATIO = 0.25; // 护栏相对目标核心线程数的宽度
+
+    public TuningBand {
+        if (lowerCore > upperCore || upperCore > upperMax) {
+            throw new IllegalArgumentException("护栏范围无效");
+        }
+    }
+
+    /**
+     * 未收到LLM规划前的护栏：整个配置范围，无目标
+     */
+    public static TuningBand full(int minCore, int maxCore) {
+        return new TuningBand(minCore, maxCore, maxCore, -1);
+    }
+
+    /**
+     * 以LLM建议为中心构建护栏，并限制在配置范围内
+     */
+    public static TuningBand around(TuningRecommendation plan, int minCore, int maxCore) {
+        int target = Math.max(minCore, Math.min(plan.core(), maxCore));
+        int span = Math.max(1, (int) Math.round(target * BAND_RATIO));
+        int lower = Math.max(minCore, target - span);
+        int upper = Math.min(maxCore, target + span);
+        int upperMax = Math.min(maxCore, Math.max(upper, plan.max() + span));
+        return new TuningBand(lower, upper, upperMax, target);
+    }
+
+    public int clampCore(int core) {
+        return Math.max(lowerCore, Math.min(core, upperCore));
+    }
+
+    public int clampMax(int max, int core) {
+        return Math.max(core, Math.min(max, upperMax));
+    }
+
+    public boolean hasTarget() {
+        return targetCore > 0;
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.llm.entity;
+
+/**
+ * 调优建议
+ *
+ * @param core  建议的核心线程数
+ * @param max   建议的最大线程数
+ * @param queue 建议的队列容量，小于等于0表示不调整
+ */
+public record TuningRecommendation(int core, int max, int queue) {
+
+    public static TuningRecommendation of(int core, int max) {
+        return new TuningRecommendation(core, max, -1);
+    }
+
+    public boolean hasQueue() {
+        return queue > 0;
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.llm.entity;
+
+/**
+ * 负载轨迹：按到达时间升序的任务序列，每个任务有到达偏移和服务时间（纳秒）
+ */
+public record WorkloadTrace(String name, long[] arrivalNanos, long[] serviceNanos) {
+
+    public WorkloadTrace {
+        if (arrivalNanos.length != serviceNanos.length) {
+            throw new IllegalArgumentException("到达时间与服务时间数量不一致");
+        }
+    }
+
+    public int size() {
+        return arrivalNanos.length;
+    }
+
+    /**
+     * 最后一个任务的到达偏移
+     */
+    public long durationNanos() {
+        return arrivalNanos.length == 0 ? 0 : arrivalNanos[arrivalNanos.length - 1];
+    }
+}
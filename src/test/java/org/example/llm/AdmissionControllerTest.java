@@ -0,0 +1,163 @@
+package org.example.llm;
+
+import org.example.llm.core.AdmissionController;
+import org.example.llm.core.AimdLimit;
+import org.example.llm.core.ConcurrencyLimit;
+import org.example.llm.core.Gradient2Limit;
+import org.example.llm.core.InstrumentedRejectionHandler;
+import org.example.llm.core.InstrumentedThreadPoolExecutor;
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionControllerTest {
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void aimdBacksOffOnSlowSamplesAndGrowsWhenBusy() {
+        AimdLimit limit = new AimdLimit(20, 2, 40, 100 * MS);
+        limit.onSample(500 * MS, 20, false);
+        assertEquals(18, limit.getLimit());
+        limit.onSample(10 * MS, 18, false);
+        assertEquals(19, limit.getLimit());
+        limit.onSample(10 * MS, 2, false); // 负载不足，不增长
+        assertEquals(19, limit.getLimit());
+        for (int i = 0; i < 100; i++) {
+            limit.onSample(0, 19, true);
+        }
+        assertEquals(2, limit.getLimit());
+    }
+
+    @Test
+    void gradientShrinksWhenLatencyInflates() {
+        Gradient2Limit limit = new Gradient2Limit(50, 1, 100);
+        for (int i = 0; i < 200; i++) {
+            limit.onSample(10 * MS, 50, false);
+        }
+        int steady = limit.getLimit();
+        assertTrue(steady >= 50);
+        for (int i = 0; i < 20; i++) {
+            limit.onSample(100 * MS, limit.getLimit(), false);
+        }
+        assertTrue(limit.getLimit() < steady);
+    }
+
+    @Test
+    void executorShedsTasksBeyondLimit() throws Exception {
+        InstrumentedThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ResizableBlockingQueue<>(10), Executors.defaultThreadFactory());
+        executor.setAdmission(new AdmissionController(AdmissionController.Algorithm.AIMD,
+                new AimdLimit(2, 1, 2, TimeUnit.SECONDS.toNanos(10))));
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        executor.execute(blocking);
+        executor.execute(blocking);
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(blocking));
+        assertEquals(1, executor.getShedCount());
+        assertEquals(2, executor.getAdmission().getInflight());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, executor.getAdmission().getInflight());
+        assertTrue(executor.getRejectedExecutionHandler() instanceof ThreadPoolExecutor.AbortPolicy);
+    }
+
+    @Test
+    void spilledTasksKeepTheirPermitAndOnlyRealDropsSignalOverload() throws Exception {
+        AtomicInteger samples = new AtomicInteger();
+        AtomicInteger drops = new AtomicInteger();
+        ConcurrencyLimit limit = new ConcurrencyLimit() {
+            @Override
+            public int getLimit() {
+                return 10;
+            }
+
+            @Override
+            public void onSample(long latencyNanos, int inflight, boolean dropped) {
+                samples.incrementAndGet();
+                if (dropped) {
+                    drops.incrementAndGet();
+                }
+            }
+        };
+        InstrumentedThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ResizableBlockingQueue<>(1), Executors.defaultThreadFactory(),
+                new InstrumentedRejectionHandler("test", InstrumentedRejectionHandler.Policy.SPILL, 0, 0, 1));
+        executor.setAdmission(new AdmissionController(AdmissionController.Algorithm.AIMD, limit));
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        Runnable blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            completed.incrementAndGet();
+        };
+        executor.execute(blocking); // 执行中
+        executor.execute(blocking); // 工作队列
+        executor.execute(blocking); // 溢出队列，仍持有许可
+        assertEquals(3, executor.getAdmission().getInflight());
+        assertEquals(0, drops.get());
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(blocking));
+        assertEquals(1, drops.get());
+        assertEquals(3, executor.getAdmission().getInflight());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(3, completed.get());
+        assertEquals(4, samples.get());
+        assertEquals(1, drops.get());
+        assertEquals(0, executor.getAdmission().getInflight());
+    }
+
+    @Test
+    void callerRunsReleasesThePermitAsACompletedTask() throws Exception {
+        AimdLimit limit = new AimdLimit(10, 1, 10, TimeUnit.SECONDS.toNanos(10));
+        InstrumentedThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ResizableBlockingQueue<>(1), Executors.defaultThreadFactory(),
+                new InstrumentedRejectionHandler("test", InstrumentedRejectionHandler.Policy.CALLER_RUNS, 10, 0, 0));
+        executor.setAdmission(new AdmissionController(AdmissionController.Algorithm.AIMD, limit));
+        CountDownLatch release = new CountDownLatch(1);
+        Runnable blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        executor.execute(blocking);
+        executor.execute(blocking);
+        AtomicInteger ranOnCaller = new AtomicInteger();
+        Thread caller = Thread.currentThread();
+        executor.execute(() -> {
+            if (Thread.currentThread() == caller) {
+                ranOnCaller.incrementAndGet();
+            }
+        });
+        assertEquals(1, ranOnCaller.get());
+        assertEquals(2, executor.getAdmission().getInflight());
+        assertEquals(10, limit.getLimit(), "调用方执行的任务不应作为拒绝样本");
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, executor.getAdmission().getInflight());
+    }
+}
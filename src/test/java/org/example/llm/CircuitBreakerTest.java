@@ -0,0 +1,40 @@
+package org.example.llm;
+
+import org.example.llm.core.CircuitBreaker;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailuresAndProbesOnce() {
+        CircuitBreaker breaker = new CircuitBreaker(3, 1_000);
+        for (int i = 0; i < 2; i++) {
+            assertTrue(breaker.tryAcquire(0));
+            breaker.onFailure(0);
+        }
+        // 成功一次清零连续失败计数
+        assertTrue(breaker.tryAcquire(0));
+        breaker.onSuccess();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire(10));
+            breaker.onFailure(10);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(500));
+
+        // 打开时长结束后只放行一个探测请求
+        assertTrue(breaker.tryAcquire(1_010));
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(1_020));
+        breaker.onFailure(1_030);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(2_000));
+
+        assertTrue(breaker.tryAcquire(2_030));
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire(2_040));
+    }
+}
@@ -0,0 +1,181 @@
+package org.example.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.llm.core.ClusterBackend;
+import org.example.llm.core.ClusterCoordinator;
+import org.example.llm.core.FileClusterBackend;
+import org.example.llm.core.ThreadPoolRegistry;
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.ThreadPoolDetail;
+import org.example.llm.entity.TuningRecommendation;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class FileClusterBackendTest {
+
+    @Test
+    void oneLeaderPerPoolAndPlansReachFollowers() throws Exception {
+        Path dir = Files.createTempDirectory("cluster");
+        try (FileClusterBackend a = new FileClusterBackend(dir, "a", 30_000, 50);
+             FileClusterBackend b = new FileClusterBackend(dir, "b", 30_000, 50)) {
+            assertTrue(a.isLeader("orders"));
+            assertFalse(b.isLeader("orders"));
+            assertTrue(a.isLeader("orders"));
+
+            CompletableFuture<ClusterBackend.Plan> received = new CompletableFuture<>();
+            b.subscribe("orders", received::complete);
+            a.publishPlan(new ClusterBackend.Plan("orders", 8, 16, 200, 1L, "a"));
+            ClusterBackend.Plan plan = received.get(2, TimeUnit.SECONDS);
+            assertEquals(8, plan.core());
+            assertEquals(16, plan.max());
+            assertEquals(200, plan.queue());
+
+            // 主节点关闭后锁释放，其他实例接任
+            a.close();
+            assertTrue(b.isLeader("orders"));
+        }
+    }
+
+    @Test
+    void planVersionsIncreaseAcrossLeadersAndOwnPlansAreNotReapplied() throws Exception {
+        Path dir = Files.createTempDirectory("cluster");
+        ClusterCoordinator a = coordinator(dir, "a");
+        ClusterCoordinator b = coordinator(dir, "b");
+        try (FileClusterBackend observer = new FileClusterBackend(dir, "observer", 30_000, 50)) {
+            BlockingQueue<TuningRecommendation> appliedByA = new LinkedBlockingQueue<>();
+            BlockingQueue<TuningRecommendation> appliedByB = new LinkedBlockingQueue<>();
+            BlockingQueue<ClusterBackend.Plan> published = new LinkedBlockingQueue<>();
+            a.subscribe("orders", appliedByA::add);
+            b.subscribe("orders", appliedByB::add);
+            observer.subscribe("orders", published::add);
+
+            a.publish("orders", new TuningRecommendation(8, 16, 200));
+            assertEquals(1, published.poll(2, TimeUnit.SECONDS).version());
+            assertEquals(new TuningRecommendation(8, 16, 200), appliedByB.poll(2, TimeUnit.SECONDS));
+
+            // 主节点换成 b：版本号接着 b 见过的最高版本递增，与 b 的时钟无关
+            b.publish("orders", new TuningRecommendation(4, 8, 100));
+            assertEquals(2, published.poll(2, TimeUnit.SECONDS).version());
+            assertEquals(new TuningRecommendation(4, 8, 100), appliedByA.poll(2, TimeUnit.SECONDS));
+
+            // a 再次发布时也越过 b 的版本；各实例都不会应用自己发布的规划
+            a.publish("orders", new TuningRecommendation(6, 12, 150));
+            assertEquals(3, published.poll(2, TimeUnit.SECONDS).version());
+            assertEquals(new TuningRecommendation(6, 12, 150), appliedByB.poll(2, TimeUnit.SECONDS));
+            Thread.sleep(200);
+            assertTrue(appliedByA.isEmpty());
+            assertTrue(appliedByB.isEmpty());
+        } finally {
+            a.close();
+            b.close();
+        }
+    }
+
+    @Test
+    void reportPublishesOffTheSchedulerThreadAndSkipsWhileBusy() throws Exception {
+        ClusterCoordinator coordinator = coordinator(Path.of("unused"), "a");
+        ClusterBackend backend = mock(ClusterBackend.class);
+        when(backend.instanceId()).thenReturn("a");
+        CountDownLatch publishing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            publishing.countDown();
+            release.await();
+            return null;
+        }).doNothing().when(backend).publishReport(any());
+        ReflectionTestUtils.setField(coordinator, "backend", backend);
+        try {
+            long start = System.nanoTime();
+            coordinator.report();
+            assertTrue(publishing.await(2, TimeUnit.SECONDS));
+            coordinator.report(); // 上一次发布仍阻塞：跳过
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000);
+            verify(backend, times(1)).publishReport(any());
+
+            release.countDown();
+            verify(backend, timeout(2_000).times(1)).publishReport(any());
+            Thread.sleep(50); // 等待发布线程清除进行中标记
+            coordinator.report();
+            verify(backend, timeout(2_000).times(2)).publishReport(any());
+        } finally {
+            release.countDown();
+            coordinator.close();
+        }
+    }
+
+    @Test
+    void nacosModeRejectsCustomInstanceId() {
+        ClusterCoordinator coordinator = coordinator(Path.of("unused"), "custom");
+        ReflectionTestUtils.setField(coordinator, "mode", "nacos");
+        assertThrows(IllegalStateException.class, () -> ReflectionTestUtils.invokeMethod(coordinator, "validate"));
+    }
+
+    @Test
+    void peerReportsAggregateToFleetAverage() throws Exception {
+        Path dir = Files.createTempDirectory("cluster");
+        try (FileClusterBackend a = new FileClusterBackend(dir, "a", 30_000, 50);
+             FileClusterBackend b = new FileClusterBackend(dir, "b", 30_000, 50)) {
+            b.publishReport(new ClusterBackend.Report("b", System.currentTimeMillis(),
+                    Map.of("orders", ClusterBackend.Rows.of("orders", window(10, 0.8, 40)))));
+            List<ClusterBackend.Report> peers = a.peerReports();
+            assertEquals(1, peers.size());
+
+            PoolSampleHistory.Window merged = PoolSampleHistory.aggregate(List.of(
+                    window(2, 0.2, 10), peers.get(0).pools().get("orders").toWindow()));
+            assertEquals(6, merged.getActiveThreads()[merged.last()]);
+            assertEquals(0.5, merged.getQueueUtilization()[merged.last()], 1e-9);
+            assertEquals(40, merged.getWaitP99Ms()[merged.last()], 1e-9); // p99取最大值
+            assertEquals(4, merged.getCurrentCore()[merged.last()]); // 当前参数取本实例
+        }
+    }
+
+    @Test
+    void rendezvousIsStableWhenUnrelatedMembersLeave() {
+        Set<String> members = Set.of("10.0.0.1:8080", "10.0.0.2:8080", "10.0.0.3:8080");
+        for (int i = 0; i < 50; i++) {
+            String pool = "pool-" + i;
+            String leader = ClusterBackend.rendezvous(pool, members);
+            String other = members.stream().filter(m -> !m.equals(leader)).findFirst().orElseThrow();
+            Set<String> remaining = Set.copyOf(members.stream().filter(m -> !m.equals(other)).toList());
+            assertEquals(leader, ClusterBackend.rendezvous(pool, remaining));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ClusterCoordinator coordinator(Path dir, String instanceId) {
+        ClusterCoordinator coordinator = new ClusterCoordinator(new ThreadPoolRegistry(List.of()),
+                new SimpleMeterRegistry(), mock(ObjectProvider.class), mock(ObjectProvider.class),
+                mock(ObjectProvider.class));
+        ReflectionTestUtils.setField(coordinator, "mode", "file");
+        ReflectionTestUtils.setField(coordinator, "dir", dir.toString());
+        ReflectionTestUtils.setField(coordinator, "instanceId", instanceId);
+        ReflectionTestUtils.setField(coordinator, "staleMs", 30_000L);
+        ReflectionTestUtils.setField(coordinator, "pollMs", 50L);
+        ReflectionTestUtils.invokeMethod(coordinator, "validate");
+        return coordinator;
+    }
+
+    private static PoolSampleHistory.Window window(int active, double queueUtilization, double waitP99) {
+        PoolSampleHistory history = new PoolSampleHistory(4);
+        for (int i = 0; i < 3; i++) {
+            history.add(1_000L * i, new ThreadPoolDetail("orders", 1, 32, 100, 4, 8, active,
+                    (int) (queueUtilization * 100), 100, queueUtilization, 0.1, 1, waitP99, 2, 5));
+        }
+        return history.snapshot(3);
+    }
+}
@@ -0,0 +1,55 @@
+package org.example.llm;
+
+import org.example.llm.core.HashedWheelTimer;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashedWheelTimerTest {
+
+    @Test
+    void firesAfterDelayIncludingMultipleRounds() throws InterruptedException {
+        // 16个槽位 × 10ms：300ms 的延迟需要绕多圈
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, 16);
+        try {
+            CountDownLatch fired = new CountDownLatch(2);
+            long start = System.nanoTime();
+            long[] elapsed = new long[2];
+            timer.newTimeout(() -> {
+                elapsed[0] = System.nanoTime() - start;
+                fired.countDown();
+            }, 50);
+            timer.newTimeout(() -> {
+                elapsed[1] = System.nanoTime() - start;
+                fired.countDown();
+            }, 300);
+            assertTrue(fired.await(2, TimeUnit.SECONDS));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(elapsed[0]) >= 40);
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(elapsed[1]) >= 290);
+            assertTrue(elapsed[1] > elapsed[0]);
+        } finally {
+            timer.stop();
+        }
+    }
+
+    @Test
+    void cancelledTimeoutDoesNotFire() throws InterruptedException {
+        HashedWheelTimer timer = new HashedWheelTimer("test-timer", 10, 16);
+        try {
+            AtomicInteger count = new AtomicInteger();
+            HashedWheelTimer.Timeout timeout = timer.newTimeout(count::incrementAndGet, 100);
+            CountDownLatch later = new CountDownLatch(1);
+            timer.newTimeout(later::countDown, 200);
+            timeout.cancel();
+            assertTrue(later.await(2, TimeUnit.SECONDS));
+            assertEquals(0, count.get());
+            assertTrue(timeout.isCancelled());
+        } finally {
+            timer.stop();
+        }
+    }
+}
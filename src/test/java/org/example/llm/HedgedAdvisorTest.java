@@ -0,0 +1,132 @@
+package org.example.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.llm.core.CircuitBreaker;
+import org.example.llm.core.DeepseekClient;
+import org.example.llm.core.HedgedAdvisor;
+import org.example.llm.core.OllamaDeepseek;
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.ThreadPoolDetail;
+import org.example.llm.entity.TuningRecommendation;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class HedgedAdvisorTest {
+    private static final TuningRecommendation PRIMARY = new TuningRecommendation(8, 16, 200);
+    private static final TuningRecommendation SECONDARY = new TuningRecommendation(6, 12, 100);
+
+    private final DeepseekClient primary = mock(DeepseekClient.class);
+    private final OllamaDeepseek secondary = mock(OllamaDeepseek.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void slowPrimaryIsHedgedAfterDelay() throws Exception {
+        HedgedAdvisor advisor = advisor(200, 3_000, 10_000);
+        when(primary.recommend(anyString(), any())).thenReturn(CompletableFuture.supplyAsync(() -> PRIMARY,
+                CompletableFuture.delayedExecutor(2_000, TimeUnit.MILLISECONDS)));
+        when(secondary.recommend(anyString(), any())).thenReturn(CompletableFuture.completedFuture(SECONDARY));
+
+        long start = System.nanoTime();
+        assertEquals(SECONDARY, advisor.recommend("orders", window()).get(2, TimeUnit.SECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMs >= 150 && elapsedMs < 1_500, "应在对冲延迟后改用备选，实际耗时 " + elapsedMs + "ms");
+        assertFalse(advisor.degraded("orders"));
+        assertEquals(1, meterRegistry.get("threadpool.advisor.decision")
+                .tag("provider", OllamaDeepseek.NAME).tag("hedged", "true").counter().count());
+    }
+
+    @Test
+    void fastPrimaryIsNotHedged() throws Exception {
+        HedgedAdvisor advisor = advisor(500, 3_000, 10_000);
+        when(primary.recommend(anyString(), any())).thenReturn(CompletableFuture.completedFuture(PRIMARY));
+
+        assertEquals(PRIMARY, advisor.recommend("orders", window()).get(1, TimeUnit.SECONDS));
+        Thread.sleep(700);
+        verify(secondary, never()).recommend(anyString(), any());
+    }
+
+    @Test
+    void fallsBackToHeuristicWhenAllProvidersFail() throws Exception {
+        HedgedAdvisor advisor = advisor(500, 3_000, 10_000);
+        when(primary.recommend(anyString(), any())).thenReturn(CompletableFuture.failedFuture(new RuntimeException("503")));
+        when(secondary.recommend(anyString(), any())).thenReturn(CompletableFuture.completedFuture(new TuningRecommendation(0, 0, -1)));
+
+        TuningRecommendation plan = advisor.recommend("orders", window()).get(1, TimeUnit.SECONDS);
+        assertTrue(plan.core() > 0 && plan.max() >= plan.core(), "本地规划应有效: " + plan);
+        assertTrue(advisor.degraded("orders"));
+
+        // 之后远程顾问恢复，降级标记随之清除
+        when(primary.recommend(anyString(), any())).thenReturn(CompletableFuture.completedFuture(PRIMARY));
+        assertEquals(PRIMARY, advisor.recommend("orders", window()).get(1, TimeUnit.SECONDS));
+        assertFalse(advisor.degraded("orders"));
+    }
+
+    @Test
+    void answersWithinBudgetWhenProvidersHang() throws Exception {
+        HedgedAdvisor advisor = advisor(100, 400, 10_000);
+        when(primary.recommend(anyString(), any())).thenReturn(new CompletableFuture<>());
+        when(secondary.recommend(anyString(), any())).thenReturn(new CompletableFuture<>());
+
+        long start = System.nanoTime();
+        TuningRecommendation plan = advisor.recommend("orders", window()).get(2, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertNotNull(plan);
+        assertTrue(advisor.degraded("orders"));
+        assertTrue(elapsedMs >= 350 && elapsedMs < 1_500, "应在时间预算到期时降级，实际耗时 " + elapsedMs + "ms");
+    }
+
+    @Test
+    void hungHalfOpenProbeTimesOutAndReopensTheBreaker() throws Exception {
+        HedgedAdvisor advisor = advisor(500, 1_000, 200, 1, 50);
+        when(primary.recommend(anyString(), any())).thenReturn(CompletableFuture.failedFuture(new RuntimeException("503")));
+        when(secondary.recommend(anyString(), any())).thenReturn(CompletableFuture.completedFuture(SECONDARY));
+        advisor.recommend("orders", window()).get(1, TimeUnit.SECONDS);
+        assertEquals(CircuitBreaker.State.OPEN, advisor.getBreakerState(DeepseekClient.NAME));
+
+        // 打开时长结束后的探测请求挂起：超过 call-timeout-ms 按失败处理，熔断器重新打开而不是一直半开
+        Thread.sleep(80);
+        when(primary.recommend(anyString(), any())).thenReturn(new CompletableFuture<>());
+        CompletableFuture<TuningRecommendation> probe = advisor.recommend("orders", window());
+        Thread.sleep(50);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, advisor.getBreakerState(DeepseekClient.NAME));
+        // 探测超时后立即改用备选，不必等到对冲延迟
+        assertEquals(SECONDARY, probe.get(400, TimeUnit.MILLISECONDS));
+        assertEquals(CircuitBreaker.State.OPEN, advisor.getBreakerState(DeepseekClient.NAME));
+    }
+
+    private HedgedAdvisor advisor(long delayMs, long budgetMs, long callTimeoutMs) {
+        return advisor(delayMs, budgetMs, callTimeoutMs, 3, 60_000);
+    }
+
+    private HedgedAdvisor advisor(long delayMs, long budgetMs, long callTimeoutMs, int failureThreshold, long openMs) {
+        when(primary.name()).thenReturn(DeepseekClient.NAME);
+        when(secondary.name()).thenReturn(OllamaDeepseek.NAME);
+        HedgedAdvisor advisor = new HedgedAdvisor(primary, secondary, meterRegistry);
+        ReflectionTestUtils.setField(advisor, "hedgePercentile", 0.9);
+        ReflectionTestUtils.setField(advisor, "defaultDelayMs", delayMs);
+        ReflectionTestUtils.setField(advisor, "minDelayMs", delayMs);
+        ReflectionTestUtils.setField(advisor, "budgetMs", budgetMs);
+        ReflectionTestUtils.setField(advisor, "callTimeoutMs", callTimeoutMs);
+        ReflectionTestUtils.setField(advisor, "failureThreshold", failureThreshold);
+        ReflectionTestUtils.setField(advisor, "openMs", openMs);
+        ReflectionTestUtils.invokeMethod(advisor, "init");
+        return advisor;
+    }
+
+    private static PoolSampleHistory.Window window() {
+        PoolSampleHistory history = new PoolSampleHistory(3);
+        for (int i = 0; i < 3; i++) {
+            history.add(i * 5_000L, new ThreadPoolDetail("orders", 2, 32, 500, 8, 16, 8, 100 * i, 500,
+                    i / 5.0, 0, 5, 40, 20, 60));
+        }
+        return history.snapshot(3);
+    }
+}
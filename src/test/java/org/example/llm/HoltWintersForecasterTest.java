@@ -0,0 +1,50 @@
+package org.example.llm;
+
+import org.example.llm.core.HoltWintersForecaster;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HoltWintersForecasterTest {
+
+    @Test
+    void learnsSeasonalPeakAheadOfTime() {
+        int season = 24;
+        HoltWintersForecaster model = new HoltWintersForecaster(season, 0.3, 0.05, 0.2);
+        long bucket = 1000;
+        for (int i = 0; i < season * 10; i++, bucket++) {
+            model.update(bucket, load(bucket, season));
+        }
+        assertTrue(model.seasonLearned());
+        // 预测下一个周期的峰值位置和大小
+        for (long b = bucket; b < bucket + season; b++) {
+            assertEquals(load(b, season), model.forecast(b), 3.0);
+        }
+        double peak = model.peak(bucket, season);
+        assertEquals(50.0, peak, 3.0);
+    }
+
+    @Test
+    void restoredStateForecastsLikeTheOriginal() {
+        int season = 24;
+        HoltWintersForecaster model = new HoltWintersForecaster(season, 0.3, 0.05, 0.2);
+        long bucket = 1000;
+        for (int i = 0; i < season * 3; i++, bucket++) {
+            model.update(bucket, load(bucket, season));
+        }
+        HoltWintersForecaster restored = new HoltWintersForecaster(season, 0.3, 0.05, 0.2);
+        restored.restore(model.exportState());
+        assertTrue(restored.seasonLearned());
+        assertEquals(model.getLastBucket(), restored.getLastBucket());
+        for (long b = bucket; b < bucket + season; b++) {
+            assertEquals(model.forecast(b), restored.forecast(b), 1e-9);
+        }
+        HoltWintersForecaster other = new HoltWintersForecaster(season * 2, 0.3, 0.05, 0.2);
+        assertThrows(IllegalArgumentException.class, () -> other.restore(model.exportState()));
+    }
+
+    private static double load(long bucket, int season) {
+        // 日内曲线：10 ~ 50
+        return 30 + 20 * Math.sin(2 * Math.PI * Math.floorMod(bucket, (long) season) / season);
+    }
+}
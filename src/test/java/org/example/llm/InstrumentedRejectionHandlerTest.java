@@ -0,0 +1,92 @@
+package org.example.llm;
+
+import org.example.llm.core.InstrumentedRejectionHandler;
+import org.example.llm.core.InstrumentedRejectionHandler.Outcome;
+import org.example.llm.core.InstrumentedThreadPoolExecutor;
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstrumentedRejectionHandlerTest {
+
+    @Test
+    void spilledTasksDrainBackWhenCapacityFrees() throws Exception {
+        InstrumentedRejectionHandler handler = new InstrumentedRejectionHandler("test",
+                InstrumentedRejectionHandler.Policy.SPILL, 0, 0, 1);
+        InstrumentedThreadPoolExecutor executor = newExecutor(handler);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        Runnable blocking = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            completed.incrementAndGet();
+        };
+        executor.execute(blocking); // 执行中
+        executor.execute(blocking); // 工作队列
+        executor.execute(blocking); // 溢出队列
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(blocking));
+        assertEquals(1, handler.getCount(Outcome.SPILLED));
+        assertEquals(1, handler.getCount(Outcome.ABORTED));
+        assertEquals(1, handler.getOverflowSize());
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(3, completed.get());
+        assertEquals(1, handler.getDrainedCount());
+        assertEquals(0, handler.getOverflowSize());
+    }
+
+    @Test
+    void callerRunsIsRateCapped() throws Exception {
+        InstrumentedRejectionHandler handler = new InstrumentedRejectionHandler("test",
+                InstrumentedRejectionHandler.Policy.CALLER_RUNS, 1, 0, 0);
+        InstrumentedThreadPoolExecutor executor = newExecutor(handler);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(() -> { });
+        Thread caller = Thread.currentThread();
+        AtomicInteger ranInCaller = new AtomicInteger();
+        Runnable task = () -> {
+            if (Thread.currentThread() == caller) {
+                ranInCaller.incrementAndGet();
+            }
+        };
+        // 同一秒内只有一个任务由调用方执行（跨秒边界时可能两个都执行）
+        int aborted = 0;
+        for (int i = 0; i < 2; i++) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                aborted++;
+            }
+        }
+        assertEquals(2, ranInCaller.get() + aborted);
+        assertTrue(ranInCaller.get() >= 1);
+        assertEquals(ranInCaller.get(), handler.getCount(Outcome.CALLER_RAN));
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    private static InstrumentedThreadPoolExecutor newExecutor(InstrumentedRejectionHandler handler) {
+        return new InstrumentedThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ResizableBlockingQueue<>(1), Executors.defaultThreadFactory(), handler);
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.llm;
+
+import org.example.llm.core.AdmissionController;
+import org.example.llm.core.AimdLimit;
+import org.example.llm.core.InstrumentedThreadPoolExecutor;
+import org.example.llm.entity.LatencyHistogram;
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InstrumentedThreadPoolExecutorTest {
+
+    @Test
+    void histogramPercentilesWithinBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        histogram.refresh();
+        assertEquals(1000, histogram.intervalCount());
+        assertEquals(500, histogram.p50Millis(), 500 * 0.07);
+        assertEquals(990, histogram.p99Millis(), 990 * 0.07);
+
+        // 下一个周期只统计新记录
+        histogram.record(TimeUnit.MILLISECONDS.toNanos(2));
+        histogram.refresh();
+        assertEquals(1, histogram.intervalCount());
+        assertEquals(2, histogram.p99Millis(), 2 * 0.07);
+        assertEquals(1001, histogram.count());
+    }
+
+    @Test
+    void recordsQueueWaitAndRunTime() throws Exception {
+        InstrumentedThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ResizableBlockingQueue<>(10), Executors.defaultThreadFactory());
+        try {
+            CountDownLatch done = new CountDownLatch(2);
+            for (int i = 0; i < 2; i++) {
+                executor.execute(() -> {
+                    try {
+                        Thread.sleep(50);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+            executor.refreshHistograms();
+            assertEquals(2, executor.getRunHistogram().count());
+            assertTrue(executor.getRunHistogram().p50Millis() >= 45);
+            // 第二个任务在队列中等待第一个任务执行完毕
+            assertTrue(executor.getWaitHistogram().p99Millis() >= 40);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void removeFindsSubmittedTaskAndReleasesPermit() throws Exception {
+        InstrumentedThreadPoolExecutor executor = blockedExecutor();
+        try {
+            Runnable queued = () -> { };
+            executor.execute(queued);
+            assertEquals(2, executor.getAdmission().getInflight());
+
+            assertTrue(executor.remove(queued));
+            assertFalse(executor.remove(queued));
+            assertEquals(0, executor.getQueue().size());
+            assertEquals(1, executor.getAdmission().getInflight());
+
+            Future<?> cancelled = executor.submit(() -> { });
+            cancelled.cancel(false);
+            executor.purge();
+            assertEquals(0, executor.getQueue().size());
+            assertEquals(1, executor.getAdmission().getInflight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shutdownNowReturnsSubmittedTasksAndReleasesPermits() throws Exception {
+        InstrumentedThreadPoolExecutor executor = blockedExecutor();
+        Future<?> first = executor.submit(() -> { });
+        Future<?> second = executor.submit(() -> { });
+        assertEquals(3, executor.getAdmission().getInflight());
+
+        List<Runnable> pending = executor.shutdownNow();
+        assertEquals(List.of(first, second), pending);
+        for (Runnable task : pending) {
+            ((Future<?>) task).cancel(false);
+        }
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        // 被中断的阻塞任务经 afterExecute 归还许可，未执行的任务在 shutdownNow 时归还
+        assertEquals(0, executor.getAdmission().getInflight());
+    }
+
+    @Test
+    void threadCountFollowsWorkersWithoutTheMainLock() throws Exception {
+        InstrumentedThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor(2, 4, 20, TimeUnit.MILLISECONDS,
+                new ResizableBlockingQueue<>(10), Executors.defaultThreadFactory());
+        try {
+            executor.prestartAllCoreThreads();
+            awaitThreadCount(executor, 2);
+            assertEquals(executor.getPoolSize(), executor.getThreadCount());
+
+            executor.allowCoreThreadTimeOut(true);
+            awaitThreadCount(executor, 0);
+            assertEquals(0, executor.getPoolSize());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 复制线程工厂到新线程池时不会叠加计数
+        InstrumentedThreadPoolExecutor copy = new InstrumentedThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ResizableBlockingQueue<>(10), executor.getThreadFactory());
+        try {
+            copy.prestartAllCoreThreads();
+            awaitThreadCount(copy, 1);
+            assertEquals(0, executor.getThreadCount());
+        } finally {
+            copy.shutdownNow();
+        }
+    }
+
+    private static void awaitThreadCount(InstrumentedThreadPoolExecutor executor, int expected) throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (executor.getThreadCount() != expected && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(expected, executor.getThreadCount());
+    }
+
+    // 单线程被阻塞任务占住，后续任务只能排队
+    private static InstrumentedThreadPoolExecutor blockedExecutor() throws InterruptedException {
+        InstrumentedThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new ResizableBlockingQueue<>(10), Executors.defaultThreadFactory());
+        executor.setAdmission(new AdmissionController(AdmissionController.Algorithm.AIMD,
+                new AimdLimit(10, 1, 10, TimeUnit.SECONDS.toNanos(10))));
+        CountDownLatch started = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        return executor;
+    }
+}
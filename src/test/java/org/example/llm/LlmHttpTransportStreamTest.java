@@ -0,0 +1,180 @@
+package org.example.llm;
+
+import com.sun.net.httpserver.HttpServer;
+import org.example.llm.core.LlmHttpTransport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LlmHttpTransportStreamTest {
+    private HttpServer server;
+    private ExecutorService handlers;
+    private String url;
+    private final AtomicInteger holdRequests = new AtomicInteger();
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        handlers = Executors.newCachedThreadPool();
+        server.setExecutor(handlers); // 默认单线程处理，慢请求会互相阻塞
+        // 每200毫秒输出一行，共20行（约4秒）
+        server.createContext("/stream", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/x-ndjson");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int i = 0; i < 20; i++) {
+                    out.write(("{\"n\":" + i + "}\n").getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    Thread.sleep(200);
+                }
+            } catch (IOException | InterruptedException e) {
+                // 客户端取消后写入失败
+            }
+        });
+        // 发出响应头和一行后停止输出
+        server.createContext("/stall", exchange -> {
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write("{\"n\":0}\n".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                Thread.sleep(5_000);
+            } catch (IOException | InterruptedException e) {
+                // 客户端取消后写入失败
+            }
+        });
+        // 5秒后才返回
+        server.createContext("/hold", exchange -> {
+            holdRequests.incrementAndGet();
+            try {
+                Thread.sleep(5_000);
+                exchange.sendResponseHeaders(200, -1);
+            } catch (IOException | InterruptedException e) {
+                // 客户端取消或测试结束
+            } finally {
+                exchange.close();
+            }
+        });
+        server.createContext("/ok", exchange -> {
+            byte[] body = "{}".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.createContext("/error", exchange -> {
+            byte[] body = "bad request".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(400, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        handlers.shutdownNow();
+    }
+
+    @Test
+    void stopsReadingWhenListenerIsSatisfied() throws Exception {
+        LlmHttpTransport transport = new LlmHttpTransport();
+        List<String> lines = new CopyOnWriteArrayList<>();
+        long start = System.nanoTime();
+        boolean stopped = transport.postJsonStream(url + "/stream", Map.of(), "{}", line -> {
+            lines.add(line);
+            return lines.size() == 2;
+        }).get(3, TimeUnit.SECONDS);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(stopped);
+        assertEquals(List.of("{\"n\":0}", "{\"n\":1}"), lines);
+        assertTrue(elapsedMs < 2_000, "应在第二行后立即返回，实际耗时 " + elapsedMs + "ms");
+        // 许可已归还，后续请求不受影响
+        assertEquals(0, transport.pendingRequests());
+    }
+
+    @Test
+    void failsWhenStreamStallsAfterHeaders() {
+        LlmHttpTransport transport = new LlmHttpTransport();
+        transport.setStreamIdleTimeoutMs(300);
+        List<String> lines = new CopyOnWriteArrayList<>();
+        long start = System.nanoTime();
+        ExecutionException e = assertThrows(ExecutionException.class, () ->
+                transport.postJsonStream(url + "/stall", Map.of(), "{}", line -> {
+                    lines.add(line);
+                    return false;
+                }).get(3, TimeUnit.SECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        assertEquals(List.of("{\"n\":0}"), lines);
+        assertTrue(elapsedMs < 2_000, "应在空闲超时后结束，实际耗时 " + elapsedMs + "ms");
+        assertEquals(0, transport.pendingRequests());
+    }
+
+    @Test
+    void failsOnErrorStatus() {
+        LlmHttpTransport transport = new LlmHttpTransport();
+        Exception e = assertThrows(Exception.class, () ->
+                transport.postJsonStream(url + "/error", Map.of(), "{}", line -> false).get(3, TimeUnit.SECONDS));
+        assertTrue(e.getCause().getMessage().contains("400"));
+    }
+
+    @Test
+    void callerTimeoutAbortsSentRequestsAndSkipsQueuedOnes() throws Exception {
+        LlmHttpTransport transport = new LlmHttpTransport();
+        // 占满每个主机的16个许可
+        List<CompletableFuture<String>> sent = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            sent.add(transport.postJson(url + "/hold", Map.of(), "{}", Duration.ofMillis(500)));
+        }
+        CompletableFuture<String> queued = transport.postJson(url + "/hold", Map.of(), "{}", Duration.ofMillis(100));
+        ExecutionException e = assertThrows(ExecutionException.class, () -> queued.get(3, TimeUnit.SECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        for (CompletableFuture<String> future : sent) {
+            e = assertThrows(ExecutionException.class, () -> future.get(3, TimeUnit.SECONDS));
+            assertInstanceOf(TimeoutException.class, e.getCause());
+        }
+        assertEquals(0, transport.pendingRequests(), "超时的排队请求应移出队列");
+
+        // 超时后立即归还许可，不必等到服务端返回
+        long start = System.nanoTime();
+        assertEquals("{}", transport.postJson(url + "/ok", Map.of(), "{}").get(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1_000);
+        assertEquals(16, holdRequests.get(), "排队期间已超时的请求不应再发出");
+    }
+
+    @Test
+    void cancellingTheResultReleasesThePermit() throws Exception {
+        LlmHttpTransport transport = new LlmHttpTransport();
+        List<CompletableFuture<String>> sent = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            sent.add(transport.postJson(url + "/hold", Map.of(), "{}"));
+        }
+        CompletableFuture<String> next = transport.postJson(url + "/ok", Map.of(), "{}");
+        assertEquals(1, transport.pendingRequests());
+        sent.get(0).cancel(false);
+        assertEquals("{}", next.get(2, TimeUnit.SECONDS));
+        sent.forEach(future -> future.cancel(false));
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.llm;
+
+import org.example.llm.core.InstrumentedThreadPoolExecutor;
+import org.example.llm.core.PidTuningAdvisor;
+import org.example.llm.core.ThreadPoolRegistry;
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.example.llm.entity.ThreadPoolDetail;
+import org.example.llm.entity.TuningRecommendation;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PidTuningAdvisorTest {
+
+    private PoolSampleHistory.Window sample(long ts, int core, double queueUtilization, double idleRatio) {
+        return PoolSampleHistory.single(ts, new ThreadPoolDetail("orderServicePool", 8, 32, 500,
+                core, core, core, (int) (queueUtilization * 500), 500, queueUtilization, idleRatio, 0, 0, 0, 0));
+    }
+
+    @Test
+    void growsUnderQueuePressureAndShrinksWhenIdle() {
+        PidTuningAdvisor advisor = new PidTuningAdvisor();
+
+        TuningRecommendation grow = advisor.recommend("orderServicePool", sample(1_000, 8, 0.9, 0.0)).join();
+        assertTrue(grow.core() > 8);
+        assertTrue(grow.max() >= grow.core() && grow.max() <= 32);
+        assertFalse(grow.hasQueue());
+
+        TuningRecommendation shrink = advisor.recommend("orderServicePool", sample(2_000, 20, 0.0, 0.9)).join();
+        assertTrue(shrink.core() < 20);
+        assertTrue(shrink.core() >= 8);
+    }
+
+    @Test
+    void holdsInsideDeadband() {
+        PidTuningAdvisor advisor = new PidTuningAdvisor();
+        // 队列未积压且线程基本繁忙：不调整
+        TuningRecommendation hold = advisor.recommend("paymentServicePool", sample(1_000, 12, 0.1, 0.1)).join();
+        assertEquals(12, hold.core());
+    }
+
+    @Test
+    void tuningInputReadsThePoolAtCallTime() throws Exception {
+        ThreadPoolRegistry registry = new ThreadPoolRegistry(List.of(new PidTuningAdvisor()));
+        InstrumentedThreadPoolExecutor executor = new InstrumentedThreadPoolExecutor(2, 2, 60, TimeUnit.SECONDS,
+                new ResizableBlockingQueue<>(10), Executors.defaultThreadFactory());
+        registry.register("orders", executor, 1, 4, 10, 20, PidTuningAdvisor.NAME);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // 注册后未经过采样周期，定时快照仍是空闲状态
+            for (int i = 0; i < 3; i++) {
+                executor.execute(() -> {
+                    started.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            long before = System.currentTimeMillis();
+            PoolSampleHistory.Window input = registry.getTuningInput("orders", new PidTuningAdvisor());
+            assertEquals(1, input.getSize());
+            assertTrue(input.getTimestamps()[0] >= before);
+            assertEquals(2, input.getActiveThreads()[0]);
+            assertEquals(1, input.getQueueSize()[0]);
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.llm.core.ClusterCoordinator;
+import org.example.llm.core.LlmCallMetrics;
+import org.example.llm.core.PidTuningAdvisor;
+import org.example.llm.core.PoolConfigRefresher;
+import org.example.llm.core.ThreadPoolRegistry;
+import org.example.llm.core.ThreadPoolTuningScheduler;
+import org.example.llm.core.TuningAdvisor;
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PoolConfigRefresherTest {
+
+    @Test
+    void oneRefreshRestartsEachPoolAtMostOnce() {
+        TuningAdvisor other = mock(TuningAdvisor.class);
+        when(other.name()).thenReturn("other");
+        ThreadPoolRegistry registry = new ThreadPoolRegistry(List.of(new PidTuningAdvisor(), other));
+        ThreadPoolExecutor orders = new ThreadPoolExecutor(4, 8, 60, TimeUnit.SECONDS,
+                new ResizableBlockingQueue<>(100));
+        ThreadPoolExecutor payments = new ThreadPoolExecutor(4, 8, 60, TimeUnit.SECONDS,
+                new ResizableBlockingQueue<>(100));
+        registry.register("orders", orders, 2, 16, 10, 200, PidTuningAdvisor.NAME);
+        registry.register("payments", payments, 2, 16, 10, 200, PidTuningAdvisor.NAME);
+        ThreadPoolTuningScheduler scheduler = spy(scheduler(registry));
+        MockEnvironment environment = new MockEnvironment();
+        PoolConfigRefresher refresher = new PoolConfigRefresher(registry, scheduler, environment);
+        try {
+            scheduler.startAutoTuning("orders");
+            scheduler.startAutoTuning("payments");
+            assertTrue(refresher.refresh());
+            verify(scheduler, never()).stopAutoTuning(anyString());
+
+            // 同一次推送同时改变范围、顾问和周期
+            environment.setProperty("threadpool.pools.orders.max-core", "12");
+            environment.setProperty("threadpool.pools.orders.advisor", "other");
+            environment.setProperty("threadpool.pools.orders.inner-interval-ms", "250");
+            assertTrue(refresher.refresh());
+
+            verify(scheduler, times(1)).stopAutoTuning("orders");
+            verify(scheduler, never()).stopAutoTuning("payments");
+            assertEquals("other", registry.getAdvisor("orders").name());
+            assertEquals(12, scheduler.getBand("orders").upperCore());
+
+            // 配置未变化时不重启
+            assertTrue(refresher.refresh());
+            verify(scheduler, times(1)).stopAutoTuning("orders");
+        } finally {
+            scheduler.shutdown();
+            orders.shutdownNow();
+            payments.shutdownNow();
+        }
+    }
+
+    private static ThreadPoolTuningScheduler scheduler(ThreadPoolRegistry registry) {
+        ThreadPoolTuningScheduler scheduler = new ThreadPoolTuningScheduler(registry,
+                new LlmCallMetrics(new SimpleMeterRegistry()), new PidTuningAdvisor(),
+                new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS, new ResizableBlockingQueue<>(10)),
+                new SimpleMeterRegistry(), mock(ClusterCoordinator.class));
+        ReflectionTestUtils.setField(scheduler, "innerIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(scheduler, "outerIntervalMs", 60_000L);
+        ReflectionTestUtils.setField(scheduler, "timerTickMs", 10L);
+        ReflectionTestUtils.setField(scheduler, "cacheMaxEntries", 16);
+        ReflectionTestUtils.setField(scheduler, "cacheTtlMs", 60_000L);
+        ReflectionTestUtils.invokeMethod(scheduler, "init");
+        return scheduler;
+    }
+}
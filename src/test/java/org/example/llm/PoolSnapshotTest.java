@@ -0,0 +1,39 @@
+package org.example.llm;
+
+import org.example.llm.entity.PoolSnapshot;
+import org.example.llm.entity.ThreadPoolDetail;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PoolSnapshotTest {
+
+    @Test
+    void readersNeverSeeTornWrites() throws Exception {
+        PoolSnapshot snapshot = new PoolSnapshot();
+        snapshot.write(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int i = 1; !stop.get(); i++) {
+                snapshot.write(i, i, i, i, i, i, i, i, i, i, i);
+            }
+        });
+        writer.start();
+        try {
+            for (int n = 0; n < 200_000; n++) {
+                ThreadPoolDetail d = snapshot.toDetail("orderServicePool", 8, 32, 500);
+                int v = d.getCurrentCore();
+                assertEquals(v, d.getCurrentMax());
+                assertEquals(v, d.getActiveThreads());
+                assertEquals(v, d.getQueueSize());
+                assertEquals(v, d.getQueueCapacity());
+                assertEquals(v, d.getRunP99Ms(), 0.0);
+            }
+        } finally {
+            stop.set(true);
+            writer.join();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package org.example.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.example.llm.core.HoltWintersForecaster;
+import org.example.llm.core.PidTuningAdvisor;
+import org.example.llm.core.PredictiveScaler;
+import org.example.llm.core.ThreadPoolRegistry;
+import org.example.llm.core.ThreadPoolSampleStore;
+import org.example.llm.core.ThreadPoolTuningScheduler;
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class PredictiveScalerTest {
+
+    @Test
+    void restoredModelPreScalesInThreadsWithoutRelearningTheSeason() throws Exception {
+        ThreadPoolTuningScheduler scheduler = mock(ThreadPoolTuningScheduler.class);
+        when(scheduler.isTuningActive("orders")).thenReturn(true);
+        ThreadPoolExecutor orders = new ThreadPoolExecutor(2, 4, 60, TimeUnit.SECONDS, new ResizableBlockingQueue<>(100));
+        try {
+            runTwoBuckets(scheduler, orders);
+            // 保存的水平为10个线程，新桶需求为0：水平降到7，目标 ceil(7 × 1.2) = 9
+            assertEquals(9, orders.getCorePoolSize());
+            verify(scheduler).holdFloor(eq("orders"), eq(9), anyLong());
+        } finally {
+            orders.shutdownNow();
+        }
+    }
+
+    @Test
+    void stoppedOrPinnedPoolsAreNotPreScaled() throws Exception {
+        ThreadPoolTuningScheduler scheduler = mock(ThreadPoolTuningScheduler.class);
+        when(scheduler.isTuningActive("orders")).thenReturn(false);
+        ThreadPoolExecutor orders = new ThreadPoolExecutor(2, 4, 60, TimeUnit.SECONDS, new ResizableBlockingQueue<>(100));
+        try {
+            runTwoBuckets(scheduler, orders);
+            assertEquals(2, orders.getCorePoolSize());
+            verify(scheduler, never()).holdFloor(anyString(), anyInt(), anyLong());
+        } finally {
+            orders.shutdownNow();
+        }
+    }
+
+    @Test
+    void stateFileIsIgnoredWhenBucketLengthChanges() throws IOException {
+        Path file = Files.createTempDirectory("forecast").resolve("forecast.bin");
+        HoltWintersForecaster.State state = new HoltWintersForecaster.State(2, 10, 0.5, 42, 2, new double[]{1, Double.NaN});
+        PredictiveScaler.write(file, 60_000, Map.of("orders", state));
+
+        HoltWintersForecaster.State read = PredictiveScaler.read(file, 60_000).get("orders");
+        assertEquals(10, read.level());
+        assertEquals(42, read.lastBucket());
+        assertTrue(Double.isNaN(read.seasonal()[1]));
+        assertTrue(PredictiveScaler.read(file, 1_000).isEmpty());
+
+        Files.writeString(file, "not a forecast file");
+        assertThrows(IOException.class, () -> PredictiveScaler.read(file, 60_000));
+    }
+
+    // 预置一个已学满季节的模型文件（季节长度2、1秒一个桶），跨两个桶各采样一次
+    private static void runTwoBuckets(ThreadPoolTuningScheduler scheduler, ThreadPoolExecutor orders) throws Exception {
+        ThreadPoolRegistry registry = new ThreadPoolRegistry(List.of(new PidTuningAdvisor()));
+        registry.register("orders", orders, 2, 16, 10, 200, PidTuningAdvisor.NAME);
+        Path file = Files.createTempDirectory("forecast").resolve("forecast.bin");
+        long nowBucket = System.currentTimeMillis() / 1000;
+        PredictiveScaler.write(file, 1000, Map.of("orders",
+                new HoltWintersForecaster.State(2, 10, 0, nowBucket - 1, 2, new double[]{0, 0})));
+
+        PredictiveScaler scaler = new PredictiveScaler(registry, mock(ThreadPoolSampleStore.class), scheduler,
+                new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(scaler, "bucketSeconds", 1L);
+        ReflectionTestUtils.setField(scaler, "seasonBuckets", 2);
+        ReflectionTestUtils.setField(scaler, "leadSeconds", 1L);
+        ReflectionTestUtils.setField(scaler, "headroom", 1.2);
+        ReflectionTestUtils.setField(scaler, "stateFile", file.toString());
+        ReflectionTestUtils.setField(scaler, "stateMaxAgeMs", 60_000L);
+
+        scaler.sample();
+        assertTrue(scaler.getForecaster("orders").seasonLearned(), "模型应从文件恢复");
+        Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 20);
+        scaler.sample();
+    }
+}
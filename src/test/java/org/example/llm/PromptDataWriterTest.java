@@ -0,0 +1,128 @@
+package org.example.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.llm.core.PromptDataWriter;
+import org.example.llm.core.PromptDataWriter.Format;
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.ThreadPoolDetail;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PromptDataWriterTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void columnarFoldsConstantColumnsAndKeepsEverySample() throws Exception {
+        JsonNode data = encode(window(new int[]{2, 4, 6}, new int[]{0, 10, 20}), Format.COLUMNAR, 12);
+
+        assertEquals(objectMapper.readTree("{\"min_core\":4,\"max_core\":32,\"max_queue\":500}"), data.get("config"));
+        assertEquals(LocalDateTime.ofInstant(Instant.ofEpochMilli(10_000), ZoneId.systemDefault())
+                .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME), data.get("end").asText());
+        assertEquals(3, data.get("samples").asInt());
+        assertEquals(5, data.get("interval_s").asInt());
+        // 不变的列只出现在 constant
+        assertEquals(8, data.get("constant").get("current_core").asInt());
+        assertEquals(0.5, data.get("constant").get("idle_ratio").asDouble());
+        assertFalse(data.get("series").has("current_core"));
+        assertEquals(objectMapper.readTree("[2,4,6]"), data.get("series").get("active_threads"));
+        assertEquals(objectMapper.readTree("[0,10,20]"), data.get("series").get("queue_size"));
+        assertEquals(objectMapper.readTree("[0.0,0.02,0.04]"), data.get("series").get("queue_utilization"));
+        assertFalse(data.has("stats"), "未降采样时不输出统计值");
+    }
+
+    @Test
+    void summaryDownsamplesKeepsPeaksAndReportsTrend() throws Exception {
+        JsonNode data = encode(window(new int[]{2, 4, 6, 8}, new int[]{0, 30, 10, 20}), Format.SUMMARY, 2);
+
+        assertEquals(4, data.get("samples").asInt());
+        assertEquals(15, data.get("interval_s").asInt());
+        // 活跃线程取区间均值，队列长度取区间最大值
+        assertEquals(objectMapper.readTree("[3,7]"), data.get("series").get("active_threads"));
+        assertEquals(objectMapper.readTree("[30,20]"), data.get("series").get("queue_size"));
+        JsonNode active = data.get("stats").get("active_threads");
+        assertEquals(2, active.get("min").asDouble());
+        assertEquals(5, active.get("mean").asDouble());
+        assertEquals(8, active.get("max").asDouble());
+        assertEquals(6, active.get("trend").asDouble(), 1e-9); // 斜率2 × 3个间隔
+        assertFalse(data.get("stats").has("current_core"), "不变的列不输出统计值");
+    }
+
+    @Test
+    void summaryOfTwoSamplesIntoOnePointUsesTheFullWindowTrend() throws Exception {
+        JsonNode data = encode(window(new int[]{2, 6}, new int[]{5, 1}), Format.SUMMARY, 1);
+
+        assertEquals(objectMapper.readTree("[4]"), data.get("series").get("active_threads"));
+        assertEquals(objectMapper.readTree("[5]"), data.get("series").get("queue_size"));
+        assertEquals(4, data.get("stats").get("active_threads").get("trend").asDouble(), 1e-9);
+        assertEquals(-4, data.get("stats").get("queue_size").get("trend").asDouble(), 1e-9);
+    }
+
+    @Test
+    void singleSampleIsAllConstant() throws Exception {
+        for (Format format : List.of(Format.COLUMNAR, Format.SUMMARY)) {
+            JsonNode data = encode(window(new int[]{3}, new int[]{7}), format, 12);
+            assertEquals(1, data.get("samples").asInt());
+            assertEquals(0, data.get("interval_s").asInt());
+            assertEquals(0, data.get("series").size());
+            assertEquals(3, data.get("constant").get("active_threads").asInt());
+            assertEquals(7, data.get("constant").get("queue_size").asInt());
+            assertFalse(data.has("stats"));
+        }
+    }
+
+    @Test
+    void emptyWindowEncodesWithoutSamples() throws Exception {
+        PoolSampleHistory.Window empty = new PoolSampleHistory(4).snapshot(4);
+        assertEquals(objectMapper.readTree("{\"samples\":0}"), encode(empty, Format.COLUMNAR, 12));
+        assertEquals(objectMapper.readTree("{\"samples\":0}"), encode(empty, Format.SUMMARY, 12));
+        assertEquals("[]", PromptDataWriter.toPromptData(empty, Format.VERBOSE, 12));
+    }
+
+    @Test
+    void verboseKeepsOneObjectPerSampleAndBatchNestsPerPool() throws Exception {
+        PoolSampleHistory.Window window = window(new int[]{2, 4}, new int[]{0, 10});
+        JsonNode rows = objectMapper.readTree(PromptDataWriter.toPromptData(window, Format.VERBOSE, 12));
+        assertEquals(2, rows.size());
+        assertEquals(4, rows.get(1).get("active_threads").asInt());
+        assertEquals(32, rows.get(1).get("config_max_core").asInt());
+
+        Map<String, PoolSampleHistory.Window> histories = new LinkedHashMap<>();
+        histories.put("orders", window);
+        histories.put("payments", window(new int[]{1}, new int[]{0}));
+        JsonNode batch = objectMapper.readTree(PromptDataWriter.toBatchPromptData(histories, Format.COLUMNAR, 12));
+        assertEquals(List.of("orders", "payments"), List.copyOf(iterable(batch.fieldNames())));
+        assertEquals(encode(window, Format.COLUMNAR, 12), batch.get("orders"));
+    }
+
+    private JsonNode encode(PoolSampleHistory.Window window, Format format, int points) throws Exception {
+        return objectMapper.readTree(PromptDataWriter.toPromptData(window, format, points));
+    }
+
+    private static <T> List<T> iterable(Iterator<T> iterator) {
+        List<T> result = new ArrayList<>();
+        iterator.forEachRemaining(result::add);
+        return result;
+    }
+
+    // 每5秒一条；除活跃线程和队列长度外其余列不变
+    private static PoolSampleHistory.Window window(int[] active, int[] queue) {
+        PoolSampleHistory history = new PoolSampleHistory(active.length);
+        for (int i = 0; i < active.length; i++) {
+            history.add(i * 5_000L, new ThreadPoolDetail("orders", 4, 32, 500, 8, 32, active[i], queue[i], 500,
+                    queue[i] / 500.0, 0.5, 1, 3, 20, 40));
+        }
+        return history.snapshot(active.length);
+    }
+}
@@ -0,0 +1,68 @@
+package org.example.llm;
+
+import org.example.llm.core.ChangeDetector;
+import org.example.llm.core.RecommendationCache;
+import org.example.llm.entity.PoolSampleHistory;
+import org.example.llm.entity.ThreadPoolDetail;
+import org.example.llm.entity.TuningRecommendation;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecommendationCacheTest {
+
+    @Test
+    void similarStatesShareKeyAndEntriesExpire() {
+        RecommendationCache cache = new RecommendationCache(2, 1_000);
+        RecommendationCache.Key steady = RecommendationCache.key("deepseek", window(10, 50, 0));
+        // 活跃线程数和队列长度的小幅抖动落在同一个桶
+        assertEquals(steady, RecommendationCache.key("deepseek", window(10, 52, 0.4)));
+        assertNotEquals(steady, RecommendationCache.key("deepseek", window(24, 400, 0)));
+        assertNotEquals(steady, RecommendationCache.key("ollama", window(10, 50, 0)));
+
+        TuningRecommendation plan = new TuningRecommendation(12, 24, 300);
+        cache.put(steady, plan, 0);
+        assertEquals(plan, cache.get(steady, 999));
+        assertNull(cache.get(steady, 1_000));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        RecommendationCache cache = new RecommendationCache(2, 60_000);
+        RecommendationCache.Key a = RecommendationCache.key("deepseek", window(4, 0, 0));
+        RecommendationCache.Key b = RecommendationCache.key("deepseek", window(16, 100, 0));
+        RecommendationCache.Key c = RecommendationCache.key("deepseek", window(30, 450, 0));
+        cache.put(a, TuningRecommendation.of(4, 8), 0);
+        cache.put(b, TuningRecommendation.of(16, 24), 0);
+        cache.get(a, 1);
+        cache.put(c, TuningRecommendation.of(30, 32), 2);
+        assertNotNull(cache.get(a, 3));
+        assertNull(cache.get(b, 3));
+        assertNotNull(cache.get(c, 3));
+    }
+
+    @Test
+    void detectsStableLoadUntilMaxSkip() {
+        ChangeDetector detector = new ChangeDetector(0.05, 0.1, 10_000);
+        assertFalse(detector.stable("pool", window(10, 50, 0), 0));
+        detector.markPlanned("pool", window(10, 50, 0), 0);
+        assertTrue(detector.stable("pool", window(10, 52, 0.4), 5_000));
+        assertFalse(detector.stable("pool", window(20, 50, 0), 5_000));
+        assertFalse(detector.stable("pool", window(10, 200, 0), 5_000));
+        assertFalse(detector.stable("pool", window(10, 50, 0), 10_000));
+        detector.forget("pool");
+        assertFalse(detector.stable("pool", window(10, 50, 0), 5_000));
+    }
+
+    // 12条采样，活跃线程数和队列长度在给定值附近按 jitter 抖动
+    private static PoolSampleHistory.Window window(int active, int queue, double jitter) {
+        PoolSampleHistory history = new PoolSampleHistory(12);
+        for (int i = 0; i < 12; i++) {
+            int a = active + (int) Math.round(jitter * (i % 3 - 1));
+            int q = queue + (int) Math.round(jitter * 2 * (i % 2));
+            history.add(i * 5_000L, new ThreadPoolDetail("pool", 2, 32, 500, 16, 32, a, q, 500,
+                    q / 500.0, (32 - a) / 32.0, 1.0, 3.0, 20.0, 40.0));
+        }
+        return history.snapshot(12);
+    }
+}
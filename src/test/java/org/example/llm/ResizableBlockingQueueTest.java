@@ -0,0 +1,78 @@
+package org.example.llm;
+
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResizableBlockingQueueTest {
+
+    @Test
+    void neverExceedsCapacityUnderContention() throws Exception {
+        ResizableBlockingQueue<Integer> queue = new ResizableBlockingQueue<>(100);
+        AtomicInteger accepted = new AtomicInteger();
+        ExecutorService producers = Executors.newFixedThreadPool(16);
+        CountDownLatch done = new CountDownLatch(16);
+        for (int t = 0; t < 16; t++) {
+            producers.execute(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    if (queue.offer(i)) {
+                        accepted.incrementAndGet();
+                    }
+                }
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        producers.shutdown();
+
+        assertEquals(100, accepted.get());
+        assertEquals(100, queue.size());
+        assertEquals(0, queue.remainingCapacity());
+    }
+
+    @Test
+    void growingCapacityWakesBlockedProducer() throws Exception {
+        ResizableBlockingQueue<Integer> queue = new ResizableBlockingQueue<>(1);
+        queue.put(1);
+        CountDownLatch putDone = new CountDownLatch(1);
+        Thread producer = new Thread(() -> {
+            try {
+                queue.put(2);
+                putDone.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        assertFalse(putDone.await(200, TimeUnit.MILLISECONDS));
+        queue.setCapacity(2);
+        assertTrue(putDone.await(2, TimeUnit.SECONDS));
+        assertEquals(2, queue.size());
+    }
+
+    @Test
+    void shrinkingCapacityKeepsElementsAndRejectsNewOnes() throws Exception {
+        ResizableBlockingQueue<Integer> queue = new ResizableBlockingQueue<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        queue.setCapacity(2);
+        assertEquals(4, queue.size());
+        assertFalse(queue.offer(5));
+
+        assertEquals(0, queue.take());
+        assertEquals(1, queue.poll(1, TimeUnit.SECONDS));
+        assertEquals(2, queue.poll());
+        assertTrue(queue.offer(6));
+        assertTrue(queue.remove(3));
+        assertEquals(1, queue.size());
+    }
+}
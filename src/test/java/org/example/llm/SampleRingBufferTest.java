@@ -0,0 +1,45 @@
+package org.example.llm;
+
+import org.example.llm.core.SampleRingBuffer;
+import org.example.llm.entity.ThreadPoolDetail;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SampleRingBufferTest {
+
+    private ThreadPoolDetail detail(int active) {
+        return new ThreadPoolDetail("orderServicePool", 8, 32, 500,
+                8, 32, active, active * 2, 500, active * 2 / 500.0, 0.5, 0, 0, 0, 0);
+    }
+
+    @Test
+    void keepsLastSlotsAndSurvivesReopen() throws Exception {
+        Path dir = Files.createTempDirectory("ring");
+        Path file = dir.resolve("orderServicePoolDetail.ring");
+
+        try (SampleRingBuffer buffer = new SampleRingBuffer(file, 4)) {
+            for (int i = 1; i <= 6; i++) {
+                buffer.append(1_000L * i, detail(i));
+            }
+            assertEquals(4, buffer.size());
+        }
+
+        try (SampleRingBuffer reopened = new SampleRingBuffer(file, 4)) {
+            List<Map<String, Object>> last = reopened.readLast(60);
+            assertEquals(4, last.size());
+            assertEquals(3, last.get(0).get("active_threads"));
+            assertEquals(6, last.get(3).get("active_threads"));
+            assertEquals(12, last.get(3).get("queue_size"));
+
+            List<String> csv = reopened.toCsvLines(2);
+            assertEquals(2, csv.size());
+            assertTrue(csv.get(1).endsWith(",8,32,500,8,32,6,12,500,0.0240,0.5000"));
+        }
+    }
+}
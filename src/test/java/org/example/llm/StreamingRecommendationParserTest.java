@@ -0,0 +1,62 @@
+package org.example.llm;
+
+import org.example.llm.core.StreamingRecommendationParser;
+import org.example.llm.entity.TuningRecommendation;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StreamingRecommendationParserTest {
+
+    @Test
+    void numbersSplitAcrossChunksAreNotReadEarly() {
+        StreamingRecommendationParser parser = new StreamingRecommendationParser();
+        assertFalse(parser.accept("{\"core\":1"));
+        assertFalse(parser.accept("2,\"max\":2"));
+        assertFalse(parser.accept("4,\"queue\":30"));
+        // 30 之后还可能有数字，遇到分隔符才产出
+        assertTrue(parser.accept("0}"));
+        assertEquals(new TuningRecommendation(12, 24, 300), parser.result());
+    }
+
+    @Test
+    void bracesInPreambleAreSkipped() {
+        StreamingRecommendationParser parser = new StreamingRecommendationParser();
+        assertFalse(parser.accept("思考：用 {当前核心线程数} 估算，"));
+        assertFalse(parser.accept("参考 {\"active\":6} 的采样。\n"));
+        assertFalse(parser.accept("{\"core\":8,"));
+        assertTrue(parser.accept("\"max\":16}"));
+        assertEquals(new TuningRecommendation(8, 16, -1), parser.result());
+    }
+
+    @Test
+    void stringNumbersAreAccepted() {
+        StreamingRecommendationParser parser = new StreamingRecommendationParser();
+        assertTrue(parser.accept("{\"core\":\"12\",\"max\":\" 24 \",\"reason\":\"x\",\"queue\":\"200\""));
+        assertEquals(new TuningRecommendation(12, 24, 200), parser.result());
+    }
+
+    @Test
+    void finishesAsSoonAsAllFieldsAreComplete() {
+        StreamingRecommendationParser parser = new StreamingRecommendationParser();
+        assertTrue(parser.accept("{\"core\":8,\"max\":16,\"queue\":200,\"reason\":\"排队时间"));
+        // 之后的内容不再解析
+        assertTrue(parser.accept("上升\"}"));
+        assertEquals(new TuningRecommendation(8, 16, 200), parser.result());
+    }
+
+    @Test
+    void truncatedStreamDoesNotGuessIncompleteNumbers() {
+        StreamingRecommendationParser missingMax = new StreamingRecommendationParser();
+        assertFalse(missingMax.accept("{\"core\":8,\"max\":1"));
+        assertThrows(RuntimeException.class, missingMax::result);
+
+        StreamingRecommendationParser partialQueue = new StreamingRecommendationParser();
+        assertFalse(partialQueue.accept("{\"core\":8,\"max\":16,\"queue\":2"));
+        assertEquals(new TuningRecommendation(8, 16, -1), partialQueue.result());
+
+        StreamingRecommendationParser empty = new StreamingRecommendationParser();
+        assertFalse(empty.accept("还没有输出JSON"));
+        assertThrows(RuntimeException.class, empty::result);
+    }
+}
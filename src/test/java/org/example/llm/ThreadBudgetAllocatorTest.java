@@ -0,0 +1,42 @@
+package org.example.llm;
+
+import org.example.llm.core.ThreadBudgetAllocator;
+import org.example.llm.core.ThreadBudgetAllocator.Demand;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThreadBudgetAllocatorTest {
+
+    @Test
+    void noisyPoolCannotStarveOthers() {
+        // noisy 需求远超预算，quiet 只需要少量线程，critical 权重更高
+        Map<String, Integer> caps = ThreadBudgetAllocator.allocate(40, List.of(
+                new Demand("noisy", 2, 100, 100, 1.0),
+                new Demand("quiet", 2, 50, 6, 1.0),
+                new Demand("critical", 2, 100, 100, 2.0)));
+
+        assertEquals(40, caps.values().stream().mapToInt(Integer::intValue).sum());
+        assertEquals(6, caps.get("quiet"));
+        // 剩余34个按 1:2 分给 noisy 和 critical
+        assertTrue(caps.get("critical") >= 2 * caps.get("noisy") - 1, caps.toString());
+        assertTrue(caps.get("noisy") >= 11, caps.toString());
+    }
+
+    @Test
+    void surplusGoesTowardsConfiguredMaxAndFloorsAreKept() {
+        Map<String, Integer> caps = ThreadBudgetAllocator.allocate(30, List.of(
+                new Demand("a", 1, 10, 2, 1.0),
+                new Demand("b", 1, 10, 3, 1.0)));
+        assertEquals(Map.of("a", 10, "b", 10), caps);
+
+        // 最小核心线程数之和超过预算时仍保证最小值
+        caps = ThreadBudgetAllocator.allocate(5, List.of(
+                new Demand("a", 4, 10, 8, 1.0),
+                new Demand("b", 4, 10, 8, 1.0)));
+        assertEquals(Map.of("a", 4, "b", 4), caps);
+    }
+}
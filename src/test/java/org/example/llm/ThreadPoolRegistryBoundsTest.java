@@ -0,0 +1,52 @@
+package org.example.llm;
+
+import org.example.llm.core.PidTuningAdvisor;
+import org.example.llm.core.ThreadPoolRegistry;
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ThreadPoolRegistryBoundsTest {
+
+    @Test
+    void updateReclampsRunningExecutorAndRejectsUnknownPoolsAtomically() {
+        ThreadPoolRegistry registry = new ThreadPoolRegistry(List.of(new PidTuningAdvisor()));
+        ThreadPoolExecutor orders = new ThreadPoolExecutor(20, 40, 60, TimeUnit.SECONDS,
+                new ResizableBlockingQueue<>(200));
+        ThreadPoolExecutor payments = new ThreadPoolExecutor(4, 8, 60, TimeUnit.SECONDS,
+                new ResizableBlockingQueue<>(100));
+        registry.register("orders", orders, 10, 50, 50, 500, PidTuningAdvisor.NAME);
+        registry.register("payments", payments, 2, 16, 10, 200, PidTuningAdvisor.NAME);
+        try {
+            // 缩小 orders 的范围：当前参数立即裁剪到新范围
+            List<String> changed = registry.updateBounds(Map.of(
+                    "orders", new ThreadPoolRegistry.Bounds(5, 16, 50, 100),
+                    "payments", registry.getDeclaredBounds("payments")));
+            assertEquals(List.of("orders"), changed);
+            assertEquals(16, orders.getCorePoolSize());
+            assertEquals(16, orders.getMaximumPoolSize());
+            assertEquals(100, ((ResizableBlockingQueue<?>) orders.getQueue()).capacity());
+            assertEquals(16, registry.getMaxCore("orders"));
+
+            // 任一线程池未注册时整体不生效
+            Map<String, ThreadPoolRegistry.Bounds> updates = new LinkedHashMap<>();
+            updates.put("payments", new ThreadPoolRegistry.Bounds(1, 4, 10, 50));
+            updates.put("missing", new ThreadPoolRegistry.Bounds(1, 4, 10, 50));
+            assertThrows(IllegalArgumentException.class, () -> registry.updateBounds(updates));
+            assertEquals(16, registry.getMaxCore("payments"));
+            assertEquals(8, payments.getMaximumPoolSize());
+
+            assertThrows(IllegalArgumentException.class, () -> new ThreadPoolRegistry.Bounds(8, 4, 10, 50));
+        } finally {
+            orders.shutdownNow();
+            payments.shutdownNow();
+        }
+    }
+}
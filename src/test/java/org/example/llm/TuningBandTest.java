@@ -0,0 +1,27 @@
+package org.example.llm;
+
+import org.example.llm.entity.TuningBand;
+import org.example.llm.entity.TuningRecommendation;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TuningBandTest {
+
+    @Test
+    void bandIsCenteredOnPlanAndClampedToConfig() {
+        TuningBand band = TuningBand.around(new TuningRecommendation(16, 24, 200), 8, 32);
+        assertEquals(12, band.lowerCore());
+        assertEquals(20, band.upperCore());
+        assertEquals(28, band.upperMax());
+        assertEquals(16, band.targetCore());
+
+        assertEquals(20, band.clampCore(31));
+        assertEquals(12, band.clampCore(1));
+        assertEquals(20, band.clampMax(10, 20));
+
+        TuningBand edge = TuningBand.around(TuningRecommendation.of(40, 60), 8, 32);
+        assertEquals(32, edge.upperCore());
+        assertEquals(32, edge.upperMax());
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.llm;
+
+import org.example.llm.core.VirtualThreadPoolExecutor;
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VirtualThreadPoolExecutorTest {
+
+    @Test
+    void permitLimitBoundsConcurrencyAndCanBeRaised() throws Exception {
+        VirtualThreadPoolExecutor executor = new VirtualThreadPoolExecutor("test-vt-", 2, 8,
+                new ResizableBlockingQueue<>(4), Executors.defaultThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(6);
+        AtomicInteger peak = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        for (int i = 0; i < 6; i++) {
+            executor.execute(() -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                done.countDown();
+            });
+        }
+        // 2个许可 + 4个队列位置已满，再提交被拒绝
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+        assertEquals(4, executor.getQueue().size());
+
+        // 调高许可上限后队列中的任务立即获得许可
+        executor.setCorePoolSize(6);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (running.get() < 6 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(6, running.get());
+        assertTrue(executor.getQueue().isEmpty());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(6, peak.get());
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(6, executor.getCompletedTaskCount());
+    }
+
+    @Test
+    void shutdownNowReturnsQueuedTasksWithoutStartingThem() throws Exception {
+        VirtualThreadPoolExecutor executor = new VirtualThreadPoolExecutor("test-vt-", 1, 1,
+                new ResizableBlockingQueue<>(4), Executors.defaultThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger queuedRuns = new AtomicInteger();
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) {
+            executor.execute(queuedRuns::incrementAndGet);
+        }
+
+        assertEquals(3, executor.shutdownNow().size());
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS)); // 运行中的任务被中断
+        assertEquals(0, queuedRuns.get());
+        assertThrows(RejectedExecutionException.class, () -> executor.execute(() -> { }));
+    }
+}
@@ -0,0 +1,129 @@
+package org.example.llm;
+
+import org.example.llm.core.PidTuningAdvisor;
+import org.example.llm.core.ThreadPoolRegistry;
+import org.example.llm.core.WarmStartStore;
+import org.example.llm.core.WarmStartStore.PoolState;
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.example.llm.entity.ThreadPoolDetail;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WarmStartStoreTest {
+
+    @Test
+    void roundTripsStatesAndRejectsForeignFiles() throws IOException {
+        Path dir = Files.createTempDirectory("warm-start");
+        Path file = dir.resolve("warm-start.bin");
+        float[] profile = new float[WarmStartStore.HOURS];
+        profile[14] = 37.5f;
+        WarmStartStore.write(file, List.of(
+                new PoolState("orderServicePool", 1_000L, 24, 48, 800, profile),
+                new PoolState("paymentServicePool", 2_000L, 6, 12, -1, new float[WarmStartStore.HOURS])));
+
+        Map<String, PoolState> states = WarmStartStore.read(file);
+        assertEquals(List.of("orderServicePool", "paymentServicePool"), List.copyOf(states.keySet()));
+        PoolState order = states.get("orderServicePool");
+        assertEquals(24, order.core());
+        assertEquals(48, order.max());
+        assertEquals(800, order.queue());
+        assertEquals(37.5f, order.profile()[14]);
+        // 每个线程池约 20 + 名称 + 24×4 字节
+        assertTrue(Files.size(file) < 300, "文件大小 " + Files.size(file));
+
+        assertTrue(WarmStartStore.read(dir.resolve("missing.bin")).isEmpty());
+        Files.writeString(file, "not a warm start file");
+        assertThrows(IOException.class, () -> WarmStartStore.read(file));
+    }
+
+    @Test
+    void restoreUsesHourProfileClampsToBoundsAndPrestarts() throws IOException {
+        long now = System.currentTimeMillis();
+        int hour = Instant.ofEpochMilli(now).atZone(ZoneId.systemDefault()).getHour();
+        float[] peak = new float[WarmStartStore.HOURS];
+        peak[hour] = 19.2f; // 当前小时的线程需求高于保存时的核心线程数
+        Path file = Files.createTempDirectory("warm-start").resolve("warm-start.bin");
+        WarmStartStore.write(file, List.of(
+                new PoolState("orders", now, 6, 12, 300, peak),
+                new PoolState("payments", now, 40, 64, 5_000, new float[WarmStartStore.HOURS]),
+                new PoolState("reports", now - 2 * 3_600_000L, 8, 8, 100, new float[WarmStartStore.HOURS])));
+
+        ThreadPoolRegistry registry = new ThreadPoolRegistry(List.of(new PidTuningAdvisor()));
+        ThreadPoolExecutor orders = executor(2, 4, 100);
+        ThreadPoolExecutor payments = executor(2, 4, 100);
+        ThreadPoolExecutor reports = executor(2, 4, 100);
+        registry.register("orders", orders, 2, 32, 10, 500, PidTuningAdvisor.NAME);
+        registry.register("payments", payments, 2, 16, 10, 1_000, PidTuningAdvisor.NAME);
+        registry.register("reports", reports, 2, 16, 10, 1_000, PidTuningAdvisor.NAME);
+        WarmStartStore store = store(registry, file, true, 3_600_000L);
+        try {
+            assertTrue(store.restore("orders"));
+            assertEquals(20, orders.getCorePoolSize()); // ceil(19.2)，取画像与保存值中的较大者
+            assertEquals(20, orders.getMaximumPoolSize());
+            assertEquals(300, ((ResizableBlockingQueue<?>) orders.getQueue()).capacity());
+            assertEquals(20, orders.getPoolSize(), "核心线程应已预启动");
+
+            // 保存值超出注册范围时按范围裁剪
+            assertTrue(store.restore("payments"));
+            assertEquals(16, payments.getCorePoolSize());
+            assertEquals(16, payments.getMaximumPoolSize());
+            assertEquals(1_000, ((ResizableBlockingQueue<?>) payments.getQueue()).capacity());
+
+            // 超过 max-age-ms 的记录和没有记录的线程池保持注解参数
+            assertFalse(store.restore("reports"));
+            assertEquals(2, reports.getCorePoolSize());
+            assertEquals(0, reports.getPoolSize());
+            assertFalse(store.restore("missing"));
+
+            assertFalse(store(registry, file, false, 3_600_000L).restore("orders"));
+        } finally {
+            orders.shutdownNow();
+            payments.shutdownNow();
+            reports.shutdownNow();
+        }
+    }
+
+    @Test
+    void profileRecordsThreadDemandNotQueuedTasks() throws IOException {
+        Path file = Files.createTempDirectory("warm-start").resolve("warm-start.bin");
+        ThreadPoolRegistry registry = new ThreadPoolRegistry(List.of(new PidTuningAdvisor()));
+        ThreadPoolExecutor orders = executor(4, 10, 400);
+        registry.register("orders", orders, 2, 32, 10, 500, PidTuningAdvisor.NAME);
+        // 4个活跃线程 + 200个排队任务（队列利用率0.5）：线程需求 4 + 0.5 × 10 = 9，而不是204
+        for (int i = 0; i < 12; i++) {
+            registry.getPoolMetadata("orders").history().add(System.currentTimeMillis(),
+                    new ThreadPoolDetail("orders", 2, 32, 500, 4, 10, 4, 200, 400, 0.5, 0, 1, 3, 20, 40));
+        }
+        try {
+            store(registry, file, true, 3_600_000L).save();
+            float[] profile = WarmStartStore.read(file).get("orders").profile();
+            assertEquals(9f, profile[Instant.now().atZone(ZoneId.systemDefault()).getHour()]);
+        } finally {
+            orders.shutdownNow();
+        }
+    }
+
+    private static WarmStartStore store(ThreadPoolRegistry registry, Path file, boolean enabled, long maxAgeMs) {
+        WarmStartStore store = new WarmStartStore(registry);
+        ReflectionTestUtils.setField(store, "enabled", enabled);
+        ReflectionTestUtils.setField(store, "file", file.toString());
+        ReflectionTestUtils.setField(store, "maxAgeMs", maxAgeMs);
+        return store;
+    }
+
+    private static ThreadPoolExecutor executor(int core, int max, int queue) {
+        return new ThreadPoolExecutor(core, max, 60, TimeUnit.SECONDS, new ResizableBlockingQueue<>(queue));
+    }
+}
@@ -0,0 +1,62 @@
+package org.example.llm;
+
+import org.example.llm.core.PidTuningAdvisor;
+import org.example.llm.core.ThreadPoolRegistry;
+import org.example.llm.core.ThreadPoolTuningScheduler;
+import org.example.llm.core.WorkloadReplayer;
+import org.example.llm.core.WorkloadTraces;
+import org.example.llm.entity.ReplayReport;
+import org.example.llm.entity.ResizableBlockingQueue;
+import org.example.llm.entity.WorkloadTrace;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class WorkloadReplayerTest {
+
+    @Test
+    void staticReplayPinsCoreAndRestoresPreviousConfig() throws Exception {
+        Path dir = Files.createTempDirectory("replay");
+        ThreadPoolRegistry registry = new ThreadPoolRegistry(List.of(new PidTuningAdvisor()));
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(2, 8, 60, TimeUnit.SECONDS,
+                new ResizableBlockingQueue<>(100));
+        registry.register("replayPool", executor, 1, 16, 10, 200, PidTuningAdvisor.NAME);
+        ThreadPoolTuningScheduler scheduler = mock(ThreadPoolTuningScheduler.class);
+        when(scheduler.isTuningActive("replayPool")).thenReturn(true);
+        WorkloadReplayer replayer = new WorkloadReplayer(registry, scheduler);
+        ReflectionTestUtils.setField(replayer, "replayDir", dir.toString());
+        try {
+            WorkloadTrace trace = WorkloadTraces.parse("t", List.of("0,20", "0,20", "0,20", "0,20", "40,1"));
+            ReplayReport report = replayer.replay("replayPool", trace, WorkloadReplayer.STATIC, 4, null, 1, 42)
+                    .get(5, TimeUnit.SECONDS);
+
+            assertEquals(5, report.getTasks());
+            assertEquals(5, report.getCompleted());
+            assertEquals(0, report.getRejected());
+            assertEquals(WorkloadReplayer.STATIC, report.getStrategy());
+            // 固定4个核心线程同时处理前4个任务，第5个任务到达时线程已空闲，排队时间接近0
+            assertTrue(report.getWaitP99Ms() < 15, "waitP99=" + report.getWaitP99Ms());
+            // 回放结束后恢复原参数和调优状态
+            assertEquals(2, executor.getCorePoolSize());
+            assertEquals(8, executor.getMaximumPoolSize());
+            verify(scheduler, atLeastOnce()).stopAutoTuning("replayPool");
+            verify(scheduler).startAutoTuning("replayPool");
+            assertTrue(Files.readString(dir.resolve("report.csv")).startsWith(ReplayReport.CSV_HEADER));
+
+            assertThrows(IllegalArgumentException.class, () -> replayer.loadTrace("../report.csv"));
+            Files.createDirectories(dir.resolve("traces"));
+            Files.writeString(dir.resolve("traces/small.csv"), "0,1\n2,1\n");
+            assertEquals(2, replayer.loadTrace("small.csv").size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
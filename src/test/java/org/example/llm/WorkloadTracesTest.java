@@ -0,0 +1,58 @@
+package org.example.llm;
+
+import org.example.llm.core.WorkloadTraces;
+import org.example.llm.entity.WorkloadTrace;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WorkloadTracesTest {
+
+    @Test
+    void sameSeedProducesSameTrace() {
+        WorkloadTrace a = WorkloadTraces.generate(WorkloadTraces.Shape.BURST, 20, 200, 30, 50,
+                WorkloadTraces.Service.PARETO, 7);
+        WorkloadTrace b = WorkloadTraces.generate(WorkloadTraces.Shape.BURST, 20, 200, 30, 50,
+                WorkloadTraces.Service.PARETO, 7);
+        WorkloadTrace c = WorkloadTraces.generate(WorkloadTraces.Shape.BURST, 20, 200, 30, 50,
+                WorkloadTraces.Service.PARETO, 8);
+
+        assertTrue(a.size() > 0);
+        assertArrayEquals(a.arrivalNanos(), b.arrivalNanos());
+        assertArrayEquals(a.serviceNanos(), b.serviceNanos());
+        assertFalse(Arrays.equals(a.arrivalNanos(), c.arrivalNanos()));
+        for (int i = 1; i < a.size(); i++) {
+            assertTrue(a.arrivalNanos()[i] >= a.arrivalNanos()[i - 1]);
+        }
+        // 突发窗口（每10秒的前2秒）的到达率明显高于其余时间
+        long burst = Arrays.stream(a.arrivalNanos()).filter(t -> (t / 1_000_000_000L) % 10 < 2).count();
+        assertTrue(burst > a.size() / 2);
+    }
+
+    @Test
+    void traceNamesCannotEscapeTheTraceDirectory() {
+        Path dir = Path.of("logs/replay/traces");
+        assertTrue(WorkloadTraces.resolve(dir, "peak/monday.csv").endsWith(Path.of("traces/peak/monday.csv")));
+        for (String name : List.of("../report.csv", "a/../../x", "/etc/passwd", "", ".")) {
+            assertThrows(IllegalArgumentException.class, () -> WorkloadTraces.resolve(dir, name), name);
+        }
+    }
+
+    @Test
+    void parseErrorsReportLineNumbersWithoutEchoingContent() {
+        WorkloadTrace trace = WorkloadTraces.parse("t", List.of("arrival_ms,service_ms", "0,5", "# c", "10,5"));
+        assertEquals(2, trace.size());
+        assertEquals(10_000_000L, trace.arrivalNanos()[1]);
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> WorkloadTraces.parse("t", List.of("0,5", "1secret:value")));
+        assertEquals("轨迹格式错误: 第2行", e.getMessage());
+        e = assertThrows(IllegalArgumentException.class,
+                () -> WorkloadTraces.parse("t", List.of("10,5", "3,secret")));
+        assertFalse(e.getMessage().contains("secret"));
+    }
+}